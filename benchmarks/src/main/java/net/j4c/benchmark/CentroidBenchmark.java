@@ -0,0 +1,95 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.MeanCentroidAnalyzer;
+import net.j4c.data.DenseDataset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link MeanCentroidAnalyzer#recompute(ClusterStatistics, DenseDataset)}
+ * (from the kept statistics) and 
+ * {@link MeanCentroidAnalyzer#recompute(net.j4c.data.Dataset, int[], DenseDataset)}
+ * (from the 10,000 rows) for k centroids.
+ * @author Jee Vang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CentroidBenchmark {
+
+	private static final int NUM_ROWS = 10000;
+	
+	@Param({"10", "100", "1000"})
+	public int k;
+	
+	@Param({"16", "128"})
+	public int dimension;
+	
+	private MeanCentroidAnalyzer centroidAnalyzer;
+	private DenseDataset data;
+	private int[] labels;
+	private ClusterStatistics statistics;
+	private DenseDataset centroids;
+	
+	@Setup
+	public void setUp() {
+		centroidAnalyzer = new MeanCentroidAnalyzer();
+		data = SyntheticData.getDense(NUM_ROWS, dimension, k);
+		labels = new int[NUM_ROWS];
+		statistics = new ClusterStatistics(k, dimension);
+		centroids = new DenseDataset(k, dimension);
+		
+		Random random = new Random(37L);
+		double[] row = new double[dimension];
+		for(int i=0; i < NUM_ROWS; i++) {
+			labels[i] = random.nextInt(k);
+			data.getRow(i, row);
+			statistics.add(labels[i], row);
+		}
+	}
+	
+	@Benchmark
+	public DenseDataset fromStatistics() {
+		centroidAnalyzer.recompute(statistics, centroids);
+		return centroids;
+	}
+	
+	@Benchmark
+	public DenseDataset fromRows() {
+		centroidAnalyzer.recompute(data, labels, centroids);
+		return centroids;
+	}
+}
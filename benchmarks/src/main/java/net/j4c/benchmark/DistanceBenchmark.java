@@ -0,0 +1,114 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.distance.NormalizedCosineDistance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one distance of each {@link DatasetDistanceMeasure}, between 
+ * dense rows and between sparse rows (10% non-zero), by the 
+ * dimension. Each invocation computes the distances from one row
+ * to a block of rows, so the time is per distance.
+ * @author Jee Vang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+	private static final int NUM_ROWS = 64;
+	
+	@Param({"euclidean", "manhattan", "minkowski3", "cosine", "normalizedCosine"})
+	public String measure;
+	
+	@Param({"16", "128", "1024"})
+	public int dimension;
+	
+	private DatasetDistanceMeasure distanceMeasure;
+	private double[] values;
+	private SparseDataset sparse;
+	
+	@Setup
+	public void setUp() {
+		distanceMeasure = getDistanceMeasure(measure);
+		DenseDataset dense = SyntheticData.getDense(NUM_ROWS, dimension, 4);
+		values = dense.getValues();
+		sparse = SyntheticData.getSparse(NUM_ROWS, dimension, 0.1d);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(NUM_ROWS)
+	public double dense() {
+		double sum = 0.0d;
+		for(int row=0; row < NUM_ROWS; row++) {
+			sum += distanceMeasure.getDistance(values, 0, values, row * dimension, dimension);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(NUM_ROWS)
+	public double sparse() {
+		double sum = 0.0d;
+		for(int row=0; row < NUM_ROWS; row++) {
+			sum += distanceMeasure.getDistance(sparse, 0, sparse, row);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Gets a {@link DatasetDistanceMeasure} by name.
+	 * @param measure Name (euclidean, manhattan, minkowski3, cosine or normalizedCosine).
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	static DatasetDistanceMeasure getDistanceMeasure(String measure) {
+		if("euclidean".equals(measure))
+			return new MinkowskiDistance(2.0d);
+		if("manhattan".equals(measure))
+			return new MinkowskiDistance(1.0d);
+		if("minkowski3".equals(measure))
+			return new MinkowskiDistance(3.0d);
+		if("cosine".equals(measure))
+			return new CosineDistance();
+		if("normalizedCosine".equals(measure))
+			return new NormalizedCosineDistance();
+		throw new IllegalArgumentException("unknown distance measure = " + measure);
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.j4c.ElkanKmeansClusterer;
+import net.j4c.HamerlyKmeansClusterer;
+import net.j4c.KdTreeKmeansClusterer;
+import net.j4c.KmeansClusterer;
+import net.j4c.KmeansResult;
+import net.j4c.YinyangKmeansClusterer;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.seeding.KmppSeedInitializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks full (Euclidean) k-means runs of each engine, 
+ * including seeding, over synthetic data with a number of 
+ * true centers. The seeds are the same for every run, and each 
+ * run has a new clusterer, so nothing (like the kd-tree) is kept 
+ * from one run to the next.
+ * @author Jee Vang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KmeansBenchmark {
+
+	private static final int MAX_ITERATIONS = 100;
+	
+	@Param({"lloyd", "elkan", "hamerly", "yinyang", "kdtree"})
+	public String engine;
+	
+	@Param({"10000", "100000"})
+	public int n;
+	
+	@Param({"2", "16"})
+	public int dimension;
+	
+	@Param({"20"})
+	public int k;
+	
+	@Param({"20"})
+	public int numCenters;
+	
+	private DenseDataset data;
+	
+	@Setup
+	public void setUp() {
+		data = SyntheticData.getDense(n, dimension, numCenters);
+	}
+	
+	@Benchmark
+	public KmeansResult<DenseDataset> getClusters() {
+		KmeansClusterer clusterer = getClusterer(engine);
+		clusterer.setDistanceMeasure(new MinkowskiDistance(2.0d));
+		
+		//the same k-means++ seeds every run
+		KmppSeedInitializer seedInitializer = new KmppSeedInitializer();
+		seedInitializer.setDistanceMeasure(clusterer.getDistanceMeasure());
+		seedInitializer.setRandom(new Random(37L));
+		clusterer.setSeedInitializer(seedInitializer);
+		return clusterer.getClusters(k, MAX_ITERATIONS, data);
+	}
+	
+	/**
+	 * Gets a {@link KmeansClusterer} by the name of its engine.
+	 * @param engine Name (lloyd, elkan, hamerly, yinyang or kdtree).
+	 * @return {@link KmeansClusterer}.
+	 */
+	static KmeansClusterer getClusterer(String engine) {
+		if("lloyd".equals(engine))
+			return new KmeansClusterer();
+		if("elkan".equals(engine))
+			return new ElkanKmeansClusterer();
+		if("hamerly".equals(engine))
+			return new HamerlyKmeansClusterer();
+		if("yinyang".equals(engine))
+			return new YinyangKmeansClusterer();
+		if("kdtree".equals(engine))
+			return new KdTreeKmeansClusterer();
+		throw new IllegalArgumentException("unknown engine = " + engine);
+	}
+}
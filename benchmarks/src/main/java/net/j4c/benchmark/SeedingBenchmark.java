@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.seeding.DatasetSeedInitializer;
+import net.j4c.seeding.KmppSeedInitializer;
+import net.j4c.seeding.RandomSeedInitializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks picking k seeds from n rows (16 columns), with 
+ * {@link KmppSeedInitializer} (Euclidean) and {@link RandomSeedInitializer}.
+ * @author Jee Vang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeedingBenchmark {
+
+	private static final int DIMENSION = 16;
+	
+	@Param({"kmpp", "random"})
+	public String initializer;
+	
+	@Param({"10000", "100000"})
+	public int n;
+	
+	@Param({"10", "100"})
+	public int k;
+	
+	private DenseDataset data;
+	private DatasetSeedInitializer seedInitializer;
+	
+	@Setup
+	public void setUp() {
+		data = SyntheticData.getDense(n, DIMENSION, 20);
+		if("kmpp".equals(initializer)) {
+			KmppSeedInitializer kmpp = new KmppSeedInitializer();
+			kmpp.setDistanceMeasure(new MinkowskiDistance(2.0d));
+			seedInitializer = kmpp;
+		} else {
+			seedInitializer = new RandomSeedInitializer();
+		}
+	}
+	
+	@Benchmark
+	public DenseDataset getSeeds() {
+		//the same seeds every time
+		return seedInitializer.newInstance(new Random(37L)).getSeeds(k, data);
+	}
+}
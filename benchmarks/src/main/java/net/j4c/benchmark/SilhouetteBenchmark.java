@@ -0,0 +1,85 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.j4c.ClusterItem;
+import net.j4c.SilhouetteClusterer;
+import net.j4c.centroid.Centroid;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.seeding.KmppSeedInitializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks full {@link SilhouetteClusterer} runs over a 
+ * {@link List} of {@link ClusterItem}, trying up to 10 values
+ * of k.
+ * @author Jee Vang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SilhouetteBenchmark {
+
+	private static final int MAX_ITERATIONS = 10;
+	
+	@Param({"500", "2000"})
+	public int n;
+	
+	@Param({"2", "16"})
+	public int dimension;
+	
+	@Param({"2", "5"})
+	public int numCenters;
+	
+	private List<ClusterItem> clusterItems;
+	private SilhouetteClusterer clusterer;
+	
+	@Setup
+	public void setUp() {
+		clusterItems = SyntheticData.getClusterItems(n, dimension, numCenters);
+		clusterer = new SilhouetteClusterer();
+		clusterer.setDistanceMeasure(new MinkowskiDistance(2.0d));
+	}
+	
+	@Benchmark
+	public List<Centroid> getClusters() {
+		//the same k-means++ seeds every run
+		KmppSeedInitializer seedInitializer = new KmppSeedInitializer();
+		seedInitializer.setDistanceMeasure(clusterer.getDistanceMeasure());
+		seedInitializer.setRandom(new Random(37L));
+		clusterer.setSeedInitializer(seedInitializer);
+		return clusterer.getClusters(MAX_ITERATIONS, clusterItems);
+	}
+}
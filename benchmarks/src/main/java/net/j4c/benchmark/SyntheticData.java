@@ -0,0 +1,118 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.j4c.ClusterItem;
+import net.j4c.IndexValue;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Generates synthetic data for the benchmarks, the way 
+ * {@link net.j4c.test.GenerateData} does: each row is one of 
+ * a number of centers, picked at random, plus a delta in the 
+ * range [0,1] in every column. The centers are spread over 
+ * [0,10) in every column. The same arguments always give
+ * the same data.
+ * @author Jee Vang
+ *
+ */
+public class SyntheticData {
+
+	private SyntheticData() { }
+	
+	/**
+	 * Generates a {@link DenseDataset}.
+	 * @param n Number of rows.
+	 * @param dimension Number of columns.
+	 * @param numCenters Number of centers.
+	 * @return {@link DenseDataset}.
+	 */
+	public static DenseDataset getDense(int n, int dimension, int numCenters) {
+		Random random = new Random(37L);
+		double[] centers = new double[numCenters * dimension];
+		for(int i=0; i < centers.length; i++) {
+			centers[i] = 10.0d * random.nextDouble();
+		}
+		
+		DenseDataset data = new DenseDataset(n, dimension);
+		double[] values = data.getValues();
+		for(int row=0; row < n; row++) {
+			int offset = random.nextInt(numCenters) * dimension;
+			for(int i=0; i < dimension; i++) {
+				values[row * dimension + i] = centers[offset + i] + random.nextDouble();
+			}
+		}
+		return data;
+	}
+	
+	/**
+	 * Generates a {@link SparseDataset} where each row has about
+	 * a fraction of the columns (at least one), with values in [0,1).
+	 * @param n Number of rows.
+	 * @param dimension Number of columns.
+	 * @param density Fraction of the columns of each row.
+	 * @return {@link SparseDataset}.
+	 */
+	public static SparseDataset getSparse(int n, int dimension, double density) {
+		Random random = new Random(37L);
+		int numNonZeros = Math.max(1, (int)(density * dimension));
+		int[] pointers = new int[n + 1];
+		int[] indices = new int[n * numNonZeros];
+		double[] values = new double[n * numNonZeros];
+		
+		for(int row=0; row < n; row++) {
+			int position = row * numNonZeros;
+			//pick the columns in ascending order (selection sampling)
+			int needed = numNonZeros;
+			for(int col=0; col < dimension && needed > 0; col++) {
+				if(random.nextInt(dimension - col) < needed) {
+					indices[position] = col;
+					values[position] = random.nextDouble();
+					position++;
+					needed--;
+				}
+			}
+			pointers[row+1] = position;
+		}
+		return new SparseDataset(n, dimension, pointers, indices, values);
+	}
+	
+	/**
+	 * Generates a {@link List} of {@link ClusterItem}, with the 
+	 * same values as {@link #getDense(int, int, int)}.
+	 * @param n Number of rows.
+	 * @param dimension Number of columns.
+	 * @param numCenters Number of centers.
+	 * @return {@link List} of {@link ClusterItem}.
+	 */
+	public static List<ClusterItem> getClusterItems(int n, int dimension, int numCenters) {
+		DenseDataset data = getDense(n, dimension, numCenters);
+		List<ClusterItem> clusterItems = new ArrayList<ClusterItem>();
+		for(int row=0; row < n; row++) {
+			ClusterItem clusterItem = new ClusterItem(""+row);
+			for(int i=0; i < dimension; i++) {
+				clusterItem.add(new IndexValue(i, data.getValue(row, i)));
+			}
+			clusterItems.add(clusterItem);
+		}
+		return clusterItems;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import net.j4c.centroid.ClusterStatistics;
+
+/**
+ * The outcome of assigning a range of rows to centroids: the
+ * change of the {@link ClusterStatistics} due to the rows whose 
+ * label changed (null if none did), the number of such rows and 
+ * the number of distances computed.
+ * @author Jee Vang
+ *
+ */
+class Assignment {
+
+	ClusterStatistics statistics;
+	int numChanged;
+	long numDistances;
+	
+	/**
+	 * Merges the assignment of the rows that follow these rows.
+	 * @param assignment {@link Assignment}.
+	 */
+	void merge(Assignment assignment) {
+		if(null == statistics)
+			statistics = assignment.statistics;
+		else if(null != assignment.statistics)
+			statistics.merge(assignment.statistics);
+		numChanged += assignment.numChanged;
+		numDistances += assignment.numDistances;
+	}
+	
+	/**
+	 * Moves a row from one cluster to another.
+	 * @param from Previous label (-1 if the row had none).
+	 * @param to New label.
+	 * @param row Values of the row.
+	 * @param shifts Shifts of the {@link ClusterStatistics}, row-major
+	 * by cluster.
+	 */
+	void move(int from, int to, double[] row, double[] shifts) {
+		if(null == statistics)
+			statistics = new ClusterStatistics(shifts.length / row.length, row.length, shifts);
+		if(from >= 0)
+			statistics.remove(from, row);
+		statistics.add(to, row);
+		numChanged++;
+	}
+	
+	/**
+	 * Moves a set of rows that all have the same label from one
+	 * cluster to another, given their per-column sums, the sum of
+	 * their squared norms and their number, all of the rows minus 
+	 * an origin.
+	 * @param from Previous label (-1 if the rows had none).
+	 * @param to New label.
+	 * @param sums Per-column sums of the rows.
+	 * @param offset Offset of the sums.
+	 * @param count Number of rows.
+	 * @param squaredNorm Sum of the squared norms of the rows.
+	 * @param origin Origin of the rows.
+	 * @param shifts Shifts of the {@link ClusterStatistics}, row-major
+	 * by cluster.
+	 */
+	void move(int from, int to, double[] sums, int offset, int count, double squaredNorm, double[] origin, double[] shifts) {
+		if(null == statistics)
+			statistics = new ClusterStatistics(shifts.length / origin.length, origin.length, shifts);
+		if(from >= 0)
+			statistics.remove(from, sums, offset, count, squaredNorm, origin);
+		statistics.add(to, sums, offset, count, squaredNorm, origin);
+		numChanged += count;
+	}
+}
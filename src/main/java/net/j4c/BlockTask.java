@@ -0,0 +1,92 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Assigns a range of rows. Ranges larger than the block size 
+ * are split in half (forking the left half if running in a 
+ * {@link java.util.concurrent.ForkJoinPool}), and the two 
+ * {@link Assignment}s are merged left to right. The blocks 
+ * only depend on the range and the block size, so the result 
+ * is the same whether or not the halves run concurrently.
+ * @author Jee Vang
+ *
+ */
+abstract class BlockTask extends RecursiveTask<Assignment> {
+
+	private static final long serialVersionUID = 1L;
+	
+	protected int from;
+	protected int to;
+	protected int blockSize;
+	protected boolean fork;
+	
+	/**
+	 * Constructor.
+	 * @param from First row (inclusive).
+	 * @param to Last row (exclusive).
+	 * @param blockSize Maximum number of rows of a block.
+	 * @param fork Whether to fork (only inside a pool).
+	 */
+	protected BlockTask(int from, int to, int blockSize, boolean fork) {
+		this.from = from;
+		this.to = to;
+		this.blockSize = blockSize;
+		this.fork = fork;
+	}
+	
+	/**
+	 * Creates a task of the same kind for a sub-range.
+	 * @param from First row (inclusive).
+	 * @param to Last row (exclusive).
+	 * @return {@link BlockTask}.
+	 */
+	protected abstract BlockTask createTask(int from, int to);
+	
+	/**
+	 * Assigns the rows of a block.
+	 * @param from First row (inclusive).
+	 * @param to Last row (exclusive).
+	 * @return {@link Assignment}.
+	 */
+	protected abstract Assignment computeBlock(int from, int to);
+
+	@Override
+	protected Assignment compute() {
+		if(to - from <= blockSize)
+			return computeBlock(from, to);
+		
+		int mid = (from + to) >>> 1;
+		BlockTask left = createTask(from, mid);
+		BlockTask right = createTask(mid, to);
+		
+		Assignment leftAssignment;
+		Assignment rightAssignment;
+		if(fork) {
+			left.fork();
+			rightAssignment = right.compute();
+			leftAssignment = left.join();
+		} else {
+			leftAssignment = left.compute();
+			rightAssignment = right.compute();
+		}
+		
+		leftAssignment.merge(rightAssignment);
+		return leftAssignment;
+	}
+}
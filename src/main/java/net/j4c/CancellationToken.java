@@ -0,0 +1,44 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+/**
+ * Cancels clustering runs from another thread. A run checks
+ * the token after each iteration, and stops with 
+ * {@link StopReason#CANCELLED}, returning the clusters it has 
+ * so far. A token stays cancelled once cancelled.
+ * @author Jee Vang
+ *
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled;
+	
+	/**
+	 * Cancels the runs that check this token.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Checks if the token was cancelled.
+	 * @return boolean.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the iterations of one clustering run, and 
+ * checks the stopping rules after each iteration. A rule with
+ * a tolerance of 0 is not checked. The {@link KmeansListener} 
+ * (if any) is told about the seeds and each iteration. If metrics
+ * are collected, the time of each phase is measured as well; 
+ * otherwise the clock is not read at all (unless there is a listener).
+ * The clock starts when the {@link Convergence} is created, or 
+ * again with {@link #start()} when the run actually begins.
+ * @author Jee Vang
+ *
+ */
+class Convergence {
+
+	private int maxIterations;
+	private double shiftTolerance;
+	private double inertiaTolerance;
+	private double reassignmentTolerance;
+	private int numRows;
+	private Restarts restarts;
+	private KmeansListener listener;
+	private CancellationToken cancellationToken;
+	private long deadline;
+	private long startTime = System.nanoTime();
+	private boolean collectingMetrics;
+	
+	private int numOfIterations;
+	private double[] inertias = new double[16];
+	private StopReason stopReason;
+	
+	//metrics, only if collected
+	private long mark;
+	private long seedingTime;
+	private long[] assignmentTimes;
+	private long[] recomputationTimes;
+	private int[] numOfChanges;
+	
+	/**
+	 * Constructor.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param shiftTolerance Largest centroid shift to stop at.
+	 * @param inertiaTolerance Smallest relative inertia improvement to keep going.
+	 * @param reassignmentTolerance Smallest fraction of reassigned rows to keep going.
+	 * @param numRows Number of rows.
+	 * @param restarts {@link Restarts} (null if the run is not restarted).
+	 */
+	Convergence(int maxIterations, double shiftTolerance, double inertiaTolerance, double reassignmentTolerance, 
+			int numRows, Restarts restarts) {
+		this.maxIterations = maxIterations;
+		this.shiftTolerance = shiftTolerance;
+		this.inertiaTolerance = inertiaTolerance;
+		this.reassignmentTolerance = reassignmentTolerance;
+		this.numRows = numRows;
+		this.restarts = restarts;
+		if(maxIterations <= 0)
+			stopReason = StopReason.MAX_ITERATIONS;
+	}
+	
+	/**
+	 * Sets what to report to, and what to check for, besides 
+	 * the stopping rules.
+	 * @param listener {@link KmeansListener} (may be null).
+	 * @param cancellationToken {@link CancellationToken} (may be null).
+	 * @param deadline Time (in milliseconds since the epoch) to stop at (0 for none).
+	 */
+	void setMonitors(KmeansListener listener, CancellationToken cancellationToken, long deadline) {
+		this.listener = listener;
+		this.cancellationToken = cancellationToken;
+		this.deadline = deadline;
+	}
+	
+	/**
+	 * Sets whether to collect {@link KmeansMetrics}.
+	 * @param collectingMetrics boolean.
+	 */
+	void setCollectingMetrics(boolean collectingMetrics) {
+		this.collectingMetrics = collectingMetrics;
+		if(collectingMetrics && null == numOfChanges) {
+			assignmentTimes = new long[inertias.length];
+			recomputationTimes = new long[inertias.length];
+			numOfChanges = new int[inertias.length];
+		}
+	}
+	
+	/**
+	 * Starts the clock of the run, e.g. once a restarted run 
+	 * that waited for other runs begins.
+	 */
+	void start() {
+		startTime = System.nanoTime();
+	}
+	
+	/**
+	 * Records that the run has its seeds.
+	 * @param numOfSeeds Number of seeds.
+	 */
+	void seeded(int numOfSeeds) {
+		if(collectingMetrics) {
+			mark = System.nanoTime();
+			seedingTime = mark - startTime;
+		}
+		if(null != listener)
+			listener.seeded(numOfSeeds, System.nanoTime() - startTime);
+	}
+	
+	/**
+	 * Records that the rows of the current iteration are assigned, 
+	 * before the centroids are recomputed.
+	 */
+	void assigned() {
+		if(!collectingMetrics)
+			return;
+		
+		long now = System.nanoTime();
+		if(numOfIterations == assignmentTimes.length) {
+			assignmentTimes = Arrays.copyOf(assignmentTimes, 2 * assignmentTimes.length);
+			recomputationTimes = Arrays.copyOf(recomputationTimes, 2 * recomputationTimes.length);
+			numOfChanges = Arrays.copyOf(numOfChanges, 2 * numOfChanges.length);
+		}
+		assignmentTimes[numOfIterations] = now - mark;
+		mark = now;
+	}
+	
+	/**
+	 * Records an iteration, and checks if clustering should stop.
+	 * @param numChanged Number of rows that changed their cluster.
+	 * @param maxShift Largest distance a centroid moved.
+	 * @param inertia Inertia after the iteration.
+	 * @return boolean (true to stop).
+	 */
+	boolean update(int numChanged, double maxShift, double inertia) {
+		return update(0 == numChanged, numChanged, maxShift, inertia);
+	}
+	
+	/**
+	 * Records an iteration of a run without labels, which does not
+	 * know how many rows changed their cluster, and checks if 
+	 * clustering should stop. The reassignment tolerance is not 
+	 * checked, and the number of changes reported is -1.
+	 * @param converged Whether no centroid changed at all.
+	 * @param maxShift Largest distance a centroid moved.
+	 * @param inertia Inertia after the iteration.
+	 * @return boolean (true to stop).
+	 */
+	boolean update(boolean converged, double maxShift, double inertia) {
+		return update(converged, -1, maxShift, inertia);
+	}
+	
+	private boolean update(boolean converged, int numChanged, double maxShift, double inertia) {
+		if(numOfIterations == inertias.length)
+			inertias = Arrays.copyOf(inertias, 2 * inertias.length);
+		inertias[numOfIterations++] = inertia;
+		
+		if(converged) {
+			stopReason = StopReason.CONVERGED;
+		} else if(shiftTolerance > 0.0d && maxShift <= shiftTolerance) {
+			stopReason = StopReason.CENTROID_SHIFT;
+		} else if(inertiaTolerance > 0.0d && numOfIterations > 1 
+				&& inertias[numOfIterations-2] - inertia <= inertiaTolerance * inertias[numOfIterations-2]) {
+			stopReason = StopReason.INERTIA;
+		} else if(reassignmentTolerance > 0.0d && numChanged >= 0 && numChanged < reassignmentTolerance * numRows) {
+			stopReason = StopReason.REASSIGNMENTS;
+		} else if(numOfIterations >= maxIterations) {
+			stopReason = StopReason.MAX_ITERATIONS;
+		} else if(null != cancellationToken && cancellationToken.isCancelled()) {
+			stopReason = StopReason.CANCELLED;
+		} else if(deadline > 0L && System.currentTimeMillis() >= deadline) {
+			stopReason = StopReason.DEADLINE;
+		} else if(null != restarts && restarts.isBehind(inertia)) {
+			stopReason = StopReason.ABANDONED;
+		}
+		
+		if(null != listener)
+			listener.iterated(numOfIterations, numChanged, inertia, System.nanoTime() - startTime);
+		if(collectingMetrics) {
+			long now = System.nanoTime();
+			recomputationTimes[numOfIterations-1] = now - mark;
+			numOfChanges[numOfIterations-1] = numChanged;
+			mark = now;
+		}
+		return null != stopReason;
+	}
+	
+	/**
+	 * Checks if clustering has stopped.
+	 * @return boolean.
+	 */
+	boolean isStopped() {
+		return null != stopReason;
+	}
+	
+	/**
+	 * Copies the number of iterations, the inertias and 
+	 * the {@link StopReason} to the result.
+	 * @param result {@link KmeansResult}.
+	 */
+	void setResult(KmeansResult<?> result) {
+		result.setNumOfIterations(numOfIterations);
+		result.setInertias(Arrays.copyOf(inertias, numOfIterations));
+		result.setStopReason(stopReason);
+		if(collectingMetrics) {
+			result.setMetrics(new KmeansMetrics(seedingTime, Arrays.copyOf(assignmentTimes, numOfIterations), 
+					Arrays.copyOf(recomputationTimes, numOfIterations), Arrays.copyOf(numOfChanges, numOfIterations)));
+		}
+	}
+	
+	/**
+	 * Gets the {@link StopReason}.
+	 * @return {@link StopReason} (null if not stopped).
+	 */
+	StopReason getStopReason() {
+		return stopReason;
+	}
+}
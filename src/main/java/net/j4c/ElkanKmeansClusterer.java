@@ -0,0 +1,298 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+
+/**
+ * K-means clustering accelerated with the triangle inequality
+ * (Elkan, "Using the Triangle Inequality to Accelerate k-Means", 2003).
+ * <p>
+ * Every row keeps an upper bound on the distance to its centroid
+ * and a lower bound on the distance to every other centroid. After
+ * the centroids move, the bounds are loosened by how far each centroid
+ * moved, and a distance is only computed if the bounds (or half the
+ * distance between the two centroids) cannot rule the centroid out.
+ * The clusters are the same as those of {@link KmeansClusterer}, 
+ * including how ties are broken; the number of distances that were
+ * skipped is given by {@link KmeansResult#getNumOfSkippedDistances()}.
+ * A row for which no distance is computed is not read from the
+ * {@link Dataset} at all.
+ * </p>
+ * <p>
+ * The bounds need k doubles per row. They are only valid for a 
+ * {@link DatasetDistanceMeasure} that is a metric 
+ * (see {@link DatasetDistanceMeasure#isMetric()}), such as 
+ * {@link net.j4c.distance.MinkowskiDistance} with p &gt;= 1; any other 
+ * distance measure (e.g. the default cosine distance) is clustered
+ * without acceleration. {@link net.j4c.data.SparseDataset}s are
+ * also clustered without acceleration.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class ElkanKmeansClusterer extends KmeansClusterer {
+
+	@Override
+	KmeansResult<DenseDataset> cluster(int k, Dataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		if(!distanceMeasure.isMetric())
+			return super.cluster(k, data, seedInitializer, convergence, pool);
+		
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		if((long)numRows * kMax > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many rows and clusters for the lower bounds: " + numRows + " x " + kMax);
+		
+		//get the initial seeds
+		DenseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		int numCentroids = centroids.size();
+		
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		Bounds bounds = new Bounds();
+		bounds.data = data;
+		bounds.centroids = centroids;
+		bounds.distanceMeasure = distanceMeasure;
+		bounds.labels = new int[numRows];
+		Arrays.fill(bounds.labels, -1);
+		bounds.upper = new double[numRows];
+		bounds.lower = new double[numRows * numCentroids];
+		bounds.centroidDistances = new double[numCentroids * numCentroids];
+		bounds.halfMinDistances = new double[numCentroids];
+		bounds.drifts = new double[numCentroids];
+		
+		double[] distances = new double[numRows];
+		bounds.shifts = Arrays.copyOf(centroids.getValues(), centroids.getValues().length);
+		ClusterStatistics statistics = new ClusterStatistics(numCentroids, data.getDimension(), bounds.shifts);
+		double[] previous = new double[centroids.getValues().length];
+		int blockSize = getBlockSize(numRows, numCentroids, data.getDimension());
+		long numDistances = 0L;
+		long numSkippedDistances = 0L;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			BlockTask task = new ElkanTask(bounds, 0, numRows, blockSize, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			numSkippedDistances += (long)numRows * numCentroids - assignment.numDistances;
+			
+			//update the statistics with the rows that moved, 
+			//and recompute centroids
+			if(null != assignment.statistics)
+				statistics.merge(assignment.statistics);
+			System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+			centroidAnalyzer.recompute(statistics, centroids);
+			
+			//check the stopping rules
+			double maxShift = getMaxShift(previous, centroids, distanceMeasure);
+			if(convergence.update(assignment.numChanged, maxShift, statistics.getInertia()))
+				break;
+			
+			bounds.update(previous);
+		}
+		
+		//the bounds are not exact distances
+		computeDistances(data, centroids, bounds.labels, distances, pool);
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, bounds.labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		result.setNumOfSkippedDistances(numSkippedDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * The state shared by the assignment tasks of one run. 
+	 * The tasks only write the entries of their own rows.
+	 */
+	private static class Bounds {
+		private Dataset data;
+		private DenseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private int[] labels;
+		//shifts of the statistics, the seeds
+		private double[] shifts;
+		//upper bound per row on the distance to its centroid
+		private double[] upper;
+		//lower bounds per row on the distances to all centroids
+		private double[] lower;
+		//distances between centroids
+		private double[] centroidDistances;
+		//half the distance of each centroid to its closest centroid
+		private double[] halfMinDistances;
+		//how far each centroid moved in the last recomputation
+		private double[] drifts;
+		
+		/**
+		 * Computes how far the centroids moved, and the distances 
+		 * between the recomputed centroids.
+		 * @param previous Values of the centroids before recomputation.
+		 */
+		private void update(double[] previous) {
+			int numCentroids = centroids.size();
+			int dimension = centroids.getDimension();
+			double[] values = centroids.getValues();
+			
+			for(int c=0; c < numCentroids; c++) {
+				drifts[c] = distanceMeasure.getDistance(previous, c * dimension, values, c * dimension, dimension);
+			}
+			
+			Arrays.fill(halfMinDistances, Double.POSITIVE_INFINITY);
+			for(int c1=0; c1 < numCentroids; c1++) {
+				centroidDistances[c1 * numCentroids + c1] = 0.0d;
+				for(int c2=c1+1; c2 < numCentroids; c2++) {
+					double dist = distanceMeasure.getDistance(values, c1 * dimension, values, c2 * dimension, dimension);
+					centroidDistances[c1 * numCentroids + c2] = dist;
+					centroidDistances[c2 * numCentroids + c1] = dist;
+					
+					double half = 0.5d * dist;
+					if(half < halfMinDistances[c1])
+						halfMinDistances[c1] = half;
+					if(half < halfMinDistances[c2])
+						halfMinDistances[c2] = half;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Assigns rows to their closest centroids, skipping the 
+	 * centroids that the bounds rule out.
+	 */
+	private static class ElkanTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private Bounds bounds;
+		
+		private ElkanTask(Bounds bounds, int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.bounds = bounds;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new ElkanTask(bounds, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			Dataset data = bounds.data;
+			DatasetDistanceMeasure distanceMeasure = bounds.distanceMeasure;
+			int[] labels = bounds.labels;
+			double[] upper = bounds.upper;
+			double[] lower = bounds.lower;
+			double[] centroidDistances = bounds.centroidDistances;
+			double[] halfMinDistances = bounds.halfMinDistances;
+			double[] drifts = bounds.drifts;
+			
+			int dimension = data.getDimension();
+			int numCentroids = bounds.centroids.size();
+			double[] centroidValues = bounds.centroids.getValues();
+			double[] buffer = new double[dimension];
+			
+			Assignment assignment = new Assignment();
+			
+			for(int row=from; row < to; row++) {
+				int offset = row * numCentroids;
+				int label = labels[row];
+				
+				if(label < 0) {
+					//first assignment, compute all distances
+					data.getRow(row, buffer);
+					double min = 0.0d;
+					for(int c=0; c < numCentroids; c++) {
+						double dist = distanceMeasure.getDistance(buffer, 0, centroidValues, c * dimension, dimension);
+						lower[offset + c] = dist;
+						if(0 == c || dist < min) {
+							min = dist;
+							label = c;
+						}
+					}
+					upper[row] = min;
+					assignment.numDistances += numCentroids;
+				} else {
+					//loosen the bounds by how far the centroids moved
+					double u = upper[row] + drifts[label];
+					for(int c=0; c < numCentroids; c++) {
+						double l = lower[offset + c] - drifts[c];
+						lower[offset + c] = (l > 0.0d) ? l : 0.0d;
+					}
+					
+					//a row closer to its centroid than half the distance to
+					//any other centroid stays; the comparisons are strict so 
+					//that ties are broken as by the plain iteration
+					if(!(u < halfMinDistances[label])) {
+						boolean tight = false;
+						for(int c=0; c < numCentroids; c++) {
+							if(c == label)
+								continue;
+							
+							double z = lower[offset + c];
+							double half = 0.5d * centroidDistances[label * numCentroids + c];
+							if(half > z)
+								z = half;
+							if(z > u)
+								continue;
+							
+							if(!tight) {
+								//only now read the row, and tighten the upper bound
+								data.getRow(row, buffer);
+								u = distanceMeasure.getDistance(buffer, 0, centroidValues, label * dimension, dimension);
+								lower[offset + label] = u;
+								assignment.numDistances++;
+								tight = true;
+								if(z > u)
+									continue;
+							}
+							
+							double dist = distanceMeasure.getDistance(buffer, 0, centroidValues, c * dimension, dimension);
+							lower[offset + c] = dist;
+							assignment.numDistances++;
+							if(dist < u || (dist == u && c < label)) {
+								u = dist;
+								label = c;
+							}
+						}
+					}
+					upper[row] = u;
+				}
+				
+				//check if membership has changed
+				if(labels[row] != label) {
+					assignment.move(labels[row], label, buffer, bounds.shifts);
+					labels[row] = label;
+				}
+			}
+			
+			return assignment;
+		}
+	}
+}
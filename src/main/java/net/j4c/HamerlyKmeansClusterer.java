@@ -0,0 +1,289 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+
+/**
+ * K-means clustering accelerated with the triangle inequality, 
+ * using a single lower bound per row
+ * (Hamerly, "Making k-means even faster", 2010).
+ * <p>
+ * Every row keeps an upper bound on the distance to its centroid,
+ * and one lower bound on the distance to its second closest centroid.
+ * A row is skipped if its upper bound is below the lower bound, or
+ * below half the distance of its centroid to the closest other 
+ * centroid; otherwise the distances to all centroids are computed. 
+ * Unlike {@link ElkanKmeansClusterer}, the bounds only take two 
+ * doubles per row, which suits low-dimensional data with many rows.
+ * The clusters are the same as those of {@link KmeansClusterer}, 
+ * including how ties are broken.
+ * A row for which no distance is computed is not read from the
+ * {@link Dataset} at all.
+ * </p>
+ * <p>
+ * The bounds are only valid for a {@link DatasetDistanceMeasure} that is a 
+ * metric (see {@link DatasetDistanceMeasure#isMetric()}); any other distance 
+ * measure is clustered without acceleration. 
+ * {@link net.j4c.data.SparseDataset}s are also clustered without 
+ * acceleration.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class HamerlyKmeansClusterer extends KmeansClusterer {
+
+	@Override
+	KmeansResult<DenseDataset> cluster(int k, Dataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		if(!distanceMeasure.isMetric())
+			return super.cluster(k, data, seedInitializer, convergence, pool);
+		
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		
+		//get the initial seeds
+		DenseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		int numCentroids = centroids.size();
+		
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		Bounds bounds = new Bounds();
+		bounds.data = data;
+		bounds.centroids = centroids;
+		bounds.distanceMeasure = distanceMeasure;
+		bounds.labels = new int[numRows];
+		Arrays.fill(bounds.labels, -1);
+		bounds.upper = new double[numRows];
+		bounds.lower = new double[numRows];
+		bounds.halfMinDistances = new double[numCentroids];
+		bounds.drifts = new double[numCentroids];
+		
+		double[] distances = new double[numRows];
+		bounds.shifts = Arrays.copyOf(centroids.getValues(), centroids.getValues().length);
+		ClusterStatistics statistics = new ClusterStatistics(numCentroids, data.getDimension(), bounds.shifts);
+		double[] previous = new double[centroids.getValues().length];
+		int blockSize = getBlockSize(numRows, numCentroids, data.getDimension());
+		long numDistances = 0L;
+		long numSkippedDistances = 0L;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			BlockTask task = new HamerlyTask(bounds, 0, numRows, blockSize, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			numSkippedDistances += (long)numRows * numCentroids - assignment.numDistances;
+			
+			//update the statistics with the rows that moved, 
+			//and recompute centroids
+			if(null != assignment.statistics)
+				statistics.merge(assignment.statistics);
+			System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+			centroidAnalyzer.recompute(statistics, centroids);
+			
+			//check the stopping rules
+			double maxShift = getMaxShift(previous, centroids, distanceMeasure);
+			if(convergence.update(assignment.numChanged, maxShift, statistics.getInertia()))
+				break;
+			
+			bounds.update(previous);
+		}
+		
+		//the bounds are not exact distances
+		computeDistances(data, centroids, bounds.labels, distances, pool);
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, bounds.labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		result.setNumOfSkippedDistances(numSkippedDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * The state shared by the assignment tasks of one run. 
+	 * The tasks only write the entries of their own rows.
+	 */
+	private static class Bounds {
+		private Dataset data;
+		private DenseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private int[] labels;
+		//shifts of the statistics, the seeds
+		private double[] shifts;
+		//upper bound per row on the distance to its centroid
+		private double[] upper;
+		//lower bound per row on the distance to its second closest centroid
+		private double[] lower;
+		//half the distance of each centroid to its closest centroid
+		private double[] halfMinDistances;
+		//how far each centroid moved in the last recomputation
+		private double[] drifts;
+		//the centroid that moved the most, and the two largest moves
+		private int maxDriftIndex;
+		private double maxDrift;
+		private double secondMaxDrift;
+		
+		/**
+		 * Computes how far the centroids moved, and the distances 
+		 * between the recomputed centroids.
+		 * @param previous Values of the centroids before recomputation.
+		 */
+		private void update(double[] previous) {
+			int numCentroids = centroids.size();
+			int dimension = centroids.getDimension();
+			double[] values = centroids.getValues();
+			
+			maxDriftIndex = -1;
+			maxDrift = 0.0d;
+			secondMaxDrift = 0.0d;
+			for(int c=0; c < numCentroids; c++) {
+				double drift = distanceMeasure.getDistance(previous, c * dimension, values, c * dimension, dimension);
+				drifts[c] = drift;
+				if(drift > maxDrift) {
+					secondMaxDrift = maxDrift;
+					maxDrift = drift;
+					maxDriftIndex = c;
+				} else if(drift > secondMaxDrift) {
+					secondMaxDrift = drift;
+				}
+			}
+			
+			Arrays.fill(halfMinDistances, Double.POSITIVE_INFINITY);
+			for(int c1=0; c1 < numCentroids; c1++) {
+				for(int c2=c1+1; c2 < numCentroids; c2++) {
+					double half = 0.5d * distanceMeasure.getDistance(values, c1 * dimension, values, c2 * dimension, dimension);
+					if(half < halfMinDistances[c1])
+						halfMinDistances[c1] = half;
+					if(half < halfMinDistances[c2])
+						halfMinDistances[c2] = half;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Assigns rows to their closest centroids, skipping the 
+	 * rows that the bounds rule out.
+	 */
+	private static class HamerlyTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private Bounds bounds;
+		
+		private HamerlyTask(Bounds bounds, int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.bounds = bounds;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new HamerlyTask(bounds, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			Dataset data = bounds.data;
+			DatasetDistanceMeasure distanceMeasure = bounds.distanceMeasure;
+			int[] labels = bounds.labels;
+			double[] upper = bounds.upper;
+			double[] lower = bounds.lower;
+			double[] halfMinDistances = bounds.halfMinDistances;
+			double[] drifts = bounds.drifts;
+			
+			int dimension = data.getDimension();
+			int numCentroids = bounds.centroids.size();
+			double[] centroidValues = bounds.centroids.getValues();
+			double[] buffer = new double[dimension];
+			
+			Assignment assignment = new Assignment();
+			
+			for(int row=from; row < to; row++) {
+				int label = labels[row];
+				
+				boolean skip = false;
+				//the label whose distance is already computed, if any
+				int known = -1;
+				double u = 0.0d;
+				if(label >= 0) {
+					//loosen the bounds by how far the centroids moved
+					u = upper[row] + drifts[label];
+					double l = lower[row] - ((label == bounds.maxDriftIndex) ? bounds.secondMaxDrift : bounds.maxDrift);
+					upper[row] = u;
+					lower[row] = l;
+					
+					//the comparisons are strict so that ties are 
+					//broken as by the plain iteration
+					double m = (halfMinDistances[label] > l) ? halfMinDistances[label] : l;
+					if(u < m) {
+						skip = true;
+					} else {
+						//only now read the row, and tighten the upper bound
+						data.getRow(row, buffer);
+						u = distanceMeasure.getDistance(buffer, 0, centroidValues, label * dimension, dimension);
+						upper[row] = u;
+						assignment.numDistances++;
+						known = label;
+						skip = u < m;
+					}
+				} else {
+					data.getRow(row, buffer);
+				}
+				
+				if(!skip) {
+					//compute all other distances, keeping the closest 
+					//and second closest
+					double min = Double.POSITIVE_INFINITY;
+					double secondMin = Double.POSITIVE_INFINITY;
+					for(int c=0; c < numCentroids; c++) {
+						double dist = (c == known) ? u : distanceMeasure.getDistance(buffer, 0, centroidValues, c * dimension, dimension);
+						if(0 == c || dist < min) {
+							secondMin = min;
+							min = dist;
+							label = c;
+						} else if(dist < secondMin) {
+							secondMin = dist;
+						}
+					}
+					upper[row] = min;
+					lower[row] = secondMin;
+					assignment.numDistances += (known >= 0) ? numCentroids - 1 : numCentroids;
+				}
+				
+				//check if membership has changed
+				if(labels[row] != label) {
+					assignment.move(labels[row], label, buffer, bounds.shifts);
+					labels[row] = label;
+				}
+			}
+			
+			return assignment;
+		}
+	}
+}
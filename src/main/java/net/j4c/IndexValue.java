@@ -1,58 +1,58 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c;
-
-/**
- * Index-Value pair. Index represents column place
- * and value represents a value.
- * @author Jee Vang
- *
- */
-public class IndexValue {
-
-	private int index;
-	private double value;
-	
-	/**
-	 * Constructor.
-	 * @param index Index.
-	 * @param value Weight.
-	 */
-	public IndexValue(int index, double value) {
-		this.index = index;
-		this.value = value;
-	}
-
-	/**
-	 * Gets the index.
-	 * @return int.
-	 */
-	public int getIndex() {
-		return index;
-	}
-
-	/**
-	 * Gets the value.
-	 * @return double.
-	 */
-	public double getValue() {
-		return value;
-	}
-	
-	public String toString() {
-		return (new StringBuilder()).append(value).toString();
-	}
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+/**
+ * Index-Value pair. Index represents column place
+ * and value represents a value.
+ * @author Jee Vang
+ *
+ */
+public class IndexValue {
+
+	private int index;
+	private double value;
+	
+	/**
+	 * Constructor.
+	 * @param index Index.
+	 * @param value Weight.
+	 */
+	public IndexValue(int index, double value) {
+		this.index = index;
+		this.value = value;
+	}
+
+	/**
+	 * Gets the index.
+	 * @return int.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the value.
+	 * @return double.
+	 */
+	public double getValue() {
+		return value;
+	}
+	
+	public String toString() {
+		return (new StringBuilder()).append(value).toString();
+	}
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import net.j4c.data.Dataset;
+
+/**
+ * A kd-tree over the rows of a {@link Dataset}. The rows are copied 
+ * in tree order, so the rows of every node are contiguous. Each node
+ * keeps the bounding box of its rows, their per-column sums, the sum
+ * of their squared norms and their number; the sums and norms are of
+ * the rows minus the center of all rows, to keep them small. A node is split at the 
+ * median of the column in which its bounding box is widest, until it 
+ * has at most the leaf size of rows. The tree is not modified once 
+ * built, so it can be shared by concurrent runs.
+ * @author Jee Vang
+ *
+ */
+class KdTree {
+
+	private int dimension;
+	//values of the rows, in tree order
+	private double[] points;
+	//row of the dataset at each position of the tree order
+	private int[] rows;
+	private int numNodes;
+	//range of positions of the rows of each node
+	private int[] starts;
+	private int[] ends;
+	//children of each node (-1 for a leaf)
+	private int[] lefts;
+	private int[] rights;
+	//bounding box of each node
+	private double[] lowers;
+	private double[] uppers;
+	//mean of all rows, which the sums are relative to
+	private double[] center;
+	private double[] sums;
+	private double[] squaredNorms;
+	
+	/**
+	 * Constructor.
+	 * @param data {@link Dataset}.
+	 * @param leafSize Maximum number of rows of a leaf (at least 1).
+	 */
+	KdTree(Dataset data, int leafSize) {
+		int numRows = data.size();
+		dimension = data.getDimension();
+		if((long)numRows * dimension > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many values for a kd-tree: " + numRows + " x " + dimension);
+		
+		points = new double[numRows * dimension];
+		rows = new int[numRows];
+		center = new double[dimension];
+		double[] buffer = new double[dimension];
+		for(int row=0; row < numRows; row++) {
+			data.getRow(row, buffer);
+			System.arraycopy(buffer, 0, points, row * dimension, dimension);
+			rows[row] = row;
+			for(int j=0; j < dimension; j++) {
+				center[j] += buffer[j];
+			}
+		}
+		for(int j=0; j < dimension; j++) {
+			center[j] /= (numRows > 0) ? numRows : 1;
+		}
+		
+		//a node is only split if it has more than the leaf size of
+		//rows, so every leaf has at least half the leaf size of rows
+		int maxNodes = 2 * (numRows / ((leafSize + 1) / 2)) + 1;
+		starts = new int[maxNodes];
+		ends = new int[maxNodes];
+		lefts = new int[maxNodes];
+		rights = new int[maxNodes];
+		lowers = new double[maxNodes * dimension];
+		uppers = new double[maxNodes * dimension];
+		sums = new double[maxNodes * dimension];
+		squaredNorms = new double[maxNodes];
+		
+		build(0, numRows, leafSize);
+	}
+	
+	/**
+	 * Builds the node of a range of rows, and its children.
+	 * @param from First position (inclusive).
+	 * @param to Last position (exclusive).
+	 * @param leafSize Maximum number of rows of a leaf.
+	 * @return Index of the node.
+	 */
+	private int build(int from, int to, int leafSize) {
+		int node = numNodes++;
+		starts[node] = from;
+		ends[node] = to;
+		lefts[node] = -1;
+		rights[node] = -1;
+		
+		//bounding box
+		int offset = node * dimension;
+		for(int j=0; j < dimension; j++) {
+			lowers[offset + j] = Double.POSITIVE_INFINITY;
+			uppers[offset + j] = Double.NEGATIVE_INFINITY;
+		}
+		for(int i=from; i < to; i++) {
+			int rowOffset = i * dimension;
+			for(int j=0; j < dimension; j++) {
+				double value = points[rowOffset + j];
+				if(value < lowers[offset + j])
+					lowers[offset + j] = value;
+				if(value > uppers[offset + j])
+					uppers[offset + j] = value;
+			}
+		}
+		
+		int split = -1;
+		double width = 0.0d;
+		for(int j=0; j < dimension; j++) {
+			double w = uppers[offset + j] - lowers[offset + j];
+			if(w > width) {
+				width = w;
+				split = j;
+			}
+		}
+		
+		if(to - from <= leafSize || split < 0) {
+			//leaf (or rows that are all the same)
+			for(int i=from; i < to; i++) {
+				int rowOffset = i * dimension;
+				double squaredNorm = 0.0d;
+				for(int j=0; j < dimension; j++) {
+					double value = points[rowOffset + j] - center[j];
+					sums[offset + j] += value;
+					squaredNorm += value * value;
+				}
+				squaredNorms[node] += squaredNorm;
+			}
+			return node;
+		}
+		
+		int mid = (from + to) >>> 1;
+		select(from, to, mid, split);
+		int left = build(from, mid, leafSize);
+		int right = build(mid, to, leafSize);
+		lefts[node] = left;
+		rights[node] = right;
+		for(int j=0; j < dimension; j++) {
+			sums[offset + j] = sums[left * dimension + j] + sums[right * dimension + j];
+		}
+		squaredNorms[node] = squaredNorms[left] + squaredNorms[right];
+		return node;
+	}
+	
+	/**
+	 * Reorders a range of rows so that the row at position nth has 
+	 * the value it would have if the range were sorted by a column,
+	 * with no greater value before it and no smaller value after it.
+	 * @param from First position (inclusive).
+	 * @param to Last position (exclusive).
+	 * @param nth Position.
+	 * @param column Column.
+	 */
+	private void select(int from, int to, int nth, int column) {
+		int lo = from;
+		int hi = to - 1;
+		while(lo < hi) {
+			double pivot = points[((lo + hi) >>> 1) * dimension + column];
+			int i = lo;
+			int j = hi;
+			while(i <= j) {
+				while(points[i * dimension + column] < pivot)
+					i++;
+				while(points[j * dimension + column] > pivot)
+					j--;
+				if(i <= j)
+					swap(i++, j--);
+			}
+			if(nth <= j)
+				hi = j;
+			else if(nth >= i)
+				lo = i;
+			else
+				break;
+		}
+	}
+	
+	private void swap(int i, int j) {
+		int offset1 = i * dimension;
+		int offset2 = j * dimension;
+		for(int c=0; c < dimension; c++) {
+			double value = points[offset1 + c];
+			points[offset1 + c] = points[offset2 + c];
+			points[offset2 + c] = value;
+		}
+		int row = rows[i];
+		rows[i] = rows[j];
+		rows[j] = row;
+	}
+	
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 */
+	int getDimension() {
+		return dimension;
+	}
+	
+	/**
+	 * Gets the number of nodes. The root is node 0.
+	 * @return int.
+	 */
+	int getNumOfNodes() {
+		return numNodes;
+	}
+	
+	/**
+	 * Gets the values of the rows in tree order. This is the 
+	 * backing array, not a copy.
+	 * @return Values.
+	 */
+	double[] getPoints() {
+		return points;
+	}
+	
+	/**
+	 * Gets the row of the {@link Dataset} at each position of 
+	 * the tree order. This is the backing array, not a copy.
+	 * @return Rows.
+	 */
+	int[] getRows() {
+		return rows;
+	}
+	
+	int getStart(int node) {
+		return starts[node];
+	}
+	
+	int getEnd(int node) {
+		return ends[node];
+	}
+	
+	int getLeft(int node) {
+		return lefts[node];
+	}
+	
+	int getRight(int node) {
+		return rights[node];
+	}
+	
+	/**
+	 * Gets the lower corners of the bounding boxes, row-major by
+	 * node. This is the backing array, not a copy.
+	 * @return Lower corners.
+	 */
+	double[] getLowers() {
+		return lowers;
+	}
+	
+	/**
+	 * Gets the upper corners of the bounding boxes, row-major by
+	 * node. This is the backing array, not a copy.
+	 * @return Upper corners.
+	 */
+	double[] getUppers() {
+		return uppers;
+	}
+	
+	/**
+	 * Gets the mean of all rows, which the sums and squared norms
+	 * of the nodes are relative to. This is the backing array, not 
+	 * a copy.
+	 * @return Center.
+	 */
+	double[] getCenter() {
+		return center;
+	}
+	
+	/**
+	 * Gets the per-column sums of the rows of each node minus the
+	 * center, row-major by node. This is the backing array, not a copy.
+	 * @return Sums.
+	 */
+	double[] getSums() {
+		return sums;
+	}
+	
+	/**
+	 * Gets the sum of the squared norms of the rows of a node 
+	 * minus the center.
+	 * @param node Node.
+	 * @return double.
+	 */
+	double getSquaredNorm(int node) {
+		return squaredNorms[node];
+	}
+}
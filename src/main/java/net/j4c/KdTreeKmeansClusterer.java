@@ -0,0 +1,436 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.seeding.DatasetSeedInitializer;
+
+/**
+ * K-means clustering over a kd-tree with the filtering algorithm
+ * (Kanungo et al., "An Efficient k-Means Clustering Algorithm: 
+ * Analysis and Implementation", 2002).
+ * <p>
+ * The rows are put in a kd-tree once (see {@link KdTree}), whose 
+ * nodes keep the sums and counts of their rows. Each assignment goes
+ * down the tree with a list of candidate centroids; at each node, a 
+ * candidate is dropped if it is farther than the candidate closest to
+ * the center of the node from every point of the bounding box of the 
+ * node. A node that is left with one candidate is assigned as a whole:
+ * if all its rows had the same centroid, the statistics are moved with
+ * the sums of the node, without going over its rows. Only the rows of
+ * leaves with more than one candidate are compared to centroids. This 
+ * works best for a few (e.g. 2 to 8) columns, where the bounding boxes 
+ * are tight.
+ * </p>
+ * <p>
+ * The clusters are the same as those of {@link KmeansClusterer}, 
+ * including how ties are broken, up to rounding (the sums are added 
+ * in a different order). Only the Euclidean distance 
+ * ({@link MinkowskiDistance} with p = 2) is supported; any other 
+ * distance measure is clustered without the tree. The tree keeps a 
+ * copy of the rows, and is built for every call (the restarts of a
+ * call share it), so changes to the rows between calls are seen and
+ * the copy is not kept once the call returns.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class KdTreeKmeansClusterer extends KmeansClusterer {
+
+	private static final int LEAF_SIZE = 16;
+	
+	@Override
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, Dataset data) {
+		checkDense(data);
+		return super.getClusters(k, maxIterations, new TreeDataset(data));
+	}
+	
+	@Override
+	KmeansResult<DenseDataset> cluster(int k, Dataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		TreeDataset treeData = null;
+		if(data instanceof TreeDataset) {
+			treeData = (TreeDataset)data;
+			data = treeData.data;
+		}
+		
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		if(!isEuclidean(distanceMeasure) || 0 == data.size())
+			return super.cluster(k, data, seedInitializer, convergence, pool);
+		
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		
+		KdTree tree = (null == treeData) ? new KdTree(data, LEAF_SIZE) : treeData.getTree();
+		
+		//get the initial seeds
+		DenseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		int numCentroids = centroids.size();
+		
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		Filter filter = new Filter();
+		filter.tree = tree;
+		filter.centroids = centroids;
+		filter.distanceMeasure = distanceMeasure;
+		filter.labels = new int[numRows];
+		Arrays.fill(filter.labels, -1);
+		//before the first assignment, every node has all of its rows
+		//labeled -1 "in the previous iteration" 
+		filter.owners = new int[tree.getNumOfNodes()];
+		Arrays.fill(filter.owners, -1);
+		filter.iterations = new int[tree.getNumOfNodes()];
+		filter.blockSize = getBlockSize(numRows, numCentroids, data.getDimension());
+		
+		int[] candidates = new int[numCentroids];
+		for(int c=0; c < numCentroids; c++) {
+			candidates[c] = c;
+		}
+		
+		filter.shifts = Arrays.copyOf(centroids.getValues(), centroids.getValues().length);
+		ClusterStatistics statistics = new ClusterStatistics(numCentroids, data.getDimension(), filter.shifts);
+		double[] previous = new double[centroids.getValues().length];
+		long numDistances = 0L;
+		long numSkippedDistances = 0L;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			filter.iteration++;
+			FilterTask task = new FilterTask(filter, 0, candidates, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			numSkippedDistances += Math.max(0L, (long)numRows * numCentroids - assignment.numDistances);
+			
+			//update the statistics with the rows that moved, 
+			//and recompute centroids
+			if(null != assignment.statistics)
+				statistics.merge(assignment.statistics);
+			System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+			centroidAnalyzer.recompute(statistics, centroids);
+			
+			//check the stopping rules
+			double maxShift = getMaxShift(previous, centroids, distanceMeasure);
+			convergence.update(assignment.numChanged, maxShift, statistics.getInertia());
+		}
+		
+		//the labels are in tree order
+		int[] rows = tree.getRows();
+		int[] labels = new int[numRows];
+		for(int i=0; i < numRows; i++) {
+			labels[rows[i]] = filter.labels[i];
+		}
+		
+		double[] distances = new double[numRows];
+		computeDistances(data, centroids, labels, distances, pool);
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		result.setNumOfSkippedDistances(numSkippedDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * Checks if a {@link DatasetDistanceMeasure} is the Euclidean distance.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 * @return boolean.
+	 */
+	private static boolean isEuclidean(DatasetDistanceMeasure distanceMeasure) {
+		return (distanceMeasure instanceof MinkowskiDistance) 
+				&& 2.0d == ((MinkowskiDistance)distanceMeasure).getP();
+	}
+	
+	/**
+	 * A {@link Dataset} for the runs of one call, which builds the
+	 * {@link KdTree} of its rows for the first run that needs it, 
+	 * so that restarts share it.
+	 */
+	private static class TreeDataset implements Dataset {
+		private Dataset data;
+		private KdTree tree;
+		
+		private TreeDataset(Dataset data) {
+			this.data = data;
+		}
+		
+		private synchronized KdTree getTree() {
+			if(null == tree)
+				tree = new KdTree(data, LEAF_SIZE);
+			return tree;
+		}
+
+		@Override
+		public int size() {
+			return data.size();
+		}
+
+		@Override
+		public int getDimension() {
+			return data.getDimension();
+		}
+
+		@Override
+		public void getRow(int row, double[] buffer) {
+			data.getRow(row, buffer);
+		}
+	}
+	
+	/**
+	 * The state shared by the assignment tasks of one run. 
+	 * The tasks only write the entries of their own nodes and rows.
+	 */
+	private static class Filter {
+		private KdTree tree;
+		private DenseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		//shifts of the statistics, the seeds
+		private double[] shifts;
+		private int blockSize;
+		//labels of the rows, in tree order
+		private int[] labels;
+		//the iteration in which each node was last assigned as a whole, 
+		//and the centroid it was assigned to
+		private int[] iterations;
+		private int[] owners;
+		private int iteration;
+	}
+	
+	/**
+	 * Assigns the rows of a node, filtering the candidate centroids
+	 * on the way down. Nodes larger than the block size are split 
+	 * into two tasks (forking the left one if running in a 
+	 * {@link ForkJoinPool}), whose {@link Assignment}s are merged left
+	 * to right, so the result is the same whether or not the tasks
+	 * run concurrently.
+	 */
+	private static class FilterTask extends RecursiveTask<Assignment> {
+		private static final long serialVersionUID = 1L;
+		
+		private Filter filter;
+		private int node;
+		private int[] candidates;
+		private boolean fork;
+		
+		private FilterTask(Filter filter, int node, int[] candidates, boolean fork) {
+			this.filter = filter;
+			this.node = node;
+			this.candidates = candidates;
+			this.fork = fork;
+		}
+
+		@Override
+		protected Assignment compute() {
+			Assignment assignment = new Assignment();
+			KdTree tree = filter.tree;
+			int[] candidates = filter(node, this.candidates, assignment);
+			int left = tree.getLeft(node);
+			
+			if(1 == candidates.length || left < 0 || tree.getEnd(node) - tree.getStart(node) <= filter.blockSize) {
+				assign(node, candidates, assignment, false);
+				return assignment;
+			}
+			
+			FilterTask leftTask = new FilterTask(filter, left, candidates, fork);
+			FilterTask rightTask = new FilterTask(filter, tree.getRight(node), candidates, fork);
+			Assignment leftAssignment;
+			Assignment rightAssignment;
+			if(fork) {
+				leftTask.fork();
+				rightAssignment = rightTask.compute();
+				leftAssignment = leftTask.join();
+			} else {
+				leftAssignment = leftTask.compute();
+				rightAssignment = rightTask.compute();
+			}
+			
+			assignment.merge(leftAssignment);
+			assignment.merge(rightAssignment);
+			return assignment;
+		}
+		
+		/**
+		 * Assigns the rows of a node, within one task.
+		 * @param node Node.
+		 * @param candidates Candidate centroids.
+		 * @param assignment {@link Assignment}.
+		 * @param filter Whether to filter the candidates first.
+		 */
+		private void assign(int node, int[] candidates, Assignment assignment, boolean filter) {
+			if(filter)
+				candidates = filter(node, candidates, assignment);
+			
+			KdTree tree = this.filter.tree;
+			if(1 == candidates.length) {
+				assignAll(node, candidates[0], assignment);
+			} else if(tree.getLeft(node) < 0) {
+				assignRows(node, candidates, assignment);
+			} else {
+				assign(tree.getLeft(node), candidates, assignment, true);
+				assign(tree.getRight(node), candidates, assignment, true);
+			}
+		}
+		
+		/**
+		 * Drops the candidates that are farther than the candidate closest
+		 * to the center of a node from every point of its bounding box. A
+		 * candidate that is as far is only dropped if its index is greater,
+		 * so that ties are broken as by the plain iteration.
+		 * @param node Node.
+		 * @param candidates Candidate centroids (in increasing order).
+		 * @param assignment {@link Assignment}.
+		 * @return The remaining candidates (in increasing order).
+		 */
+		private int[] filter(int node, int[] candidates, Assignment assignment) {
+			KdTree tree = filter.tree;
+			int dimension = tree.getDimension();
+			int offset = node * dimension;
+			double[] lowers = tree.getLowers();
+			double[] uppers = tree.getUppers();
+			double[] values = filter.centroids.getValues();
+			
+			//the candidate closest to the center of the node
+			int closest = candidates[0];
+			double min = 0.0d;
+			for(int i=0; i < candidates.length; i++) {
+				int c = candidates[i];
+				double dist = 0.0d;
+				for(int j=0; j < dimension; j++) {
+					double d = 0.5d * (lowers[offset + j] + uppers[offset + j]) - values[c * dimension + j];
+					dist += d * d;
+				}
+				if(0 == i || dist < min) {
+					min = dist;
+					closest = c;
+				}
+			}
+			assignment.numDistances += candidates.length;
+			
+			int[] remaining = new int[candidates.length];
+			int numRemaining = 0;
+			for(int i=0; i < candidates.length; i++) {
+				int c = candidates[i];
+				if(c != closest) {
+					//the corner of the box farthest in the direction from 
+					//the closest candidate to this candidate
+					double dist = 0.0d;
+					double closestDist = 0.0d;
+					for(int j=0; j < dimension; j++) {
+						double value = values[c * dimension + j];
+						double closestValue = values[closest * dimension + j];
+						double corner = (value > closestValue) ? uppers[offset + j] : lowers[offset + j];
+						double d = corner - value;
+						dist += d * d;
+						d = corner - closestValue;
+						closestDist += d * d;
+					}
+					assignment.numDistances += 2;
+					if(dist > closestDist || (dist == closestDist && c > closest))
+						continue;
+				}
+				remaining[numRemaining++] = c;
+			}
+			
+			return (numRemaining == candidates.length) ? candidates : Arrays.copyOf(remaining, numRemaining);
+		}
+		
+		/**
+		 * Assigns all the rows of a node to a centroid.
+		 * @param node Node.
+		 * @param label Centroid.
+		 * @param assignment {@link Assignment}.
+		 */
+		private void assignAll(int node, int label, Assignment assignment) {
+			KdTree tree = filter.tree;
+			int[] labels = filter.labels;
+			int from = tree.getStart(node);
+			int to = tree.getEnd(node);
+			int dimension = tree.getDimension();
+			
+			if(filter.iterations[node] == filter.iteration - 1) {
+				//all the rows had the same centroid
+				int owner = filter.owners[node];
+				if(owner != label) {
+					assignment.move(owner, label, tree.getSums(), node * dimension, to - from, 
+							tree.getSquaredNorm(node), tree.getCenter(), filter.shifts);
+					Arrays.fill(labels, from, to, label);
+				}
+			} else {
+				double[] points = tree.getPoints();
+				double[] buffer = new double[dimension];
+				for(int i=from; i < to; i++) {
+					if(labels[i] != label) {
+						System.arraycopy(points, i * dimension, buffer, 0, dimension);
+						assignment.move(labels[i], label, buffer, filter.shifts);
+						labels[i] = label;
+					}
+				}
+			}
+			
+			filter.iterations[node] = filter.iteration;
+			filter.owners[node] = label;
+		}
+		
+		/**
+		 * Assigns each row of a leaf to the closest of the candidates.
+		 * @param node Node.
+		 * @param candidates Candidate centroids.
+		 * @param assignment {@link Assignment}.
+		 */
+		private void assignRows(int node, int[] candidates, Assignment assignment) {
+			KdTree tree = filter.tree;
+			DatasetDistanceMeasure distanceMeasure = filter.distanceMeasure;
+			int[] labels = filter.labels;
+			int dimension = tree.getDimension();
+			double[] points = tree.getPoints();
+			double[] values = filter.centroids.getValues();
+			double[] buffer = new double[dimension];
+			
+			for(int i=tree.getStart(node); i < tree.getEnd(node); i++) {
+				int label = candidates[0];
+				double min = 0.0d;
+				for(int c=0; c < candidates.length; c++) {
+					double dist = distanceMeasure.getDistance(points, i * dimension, values, candidates[c] * dimension, dimension);
+					if(0 == c || dist < min) {
+						min = dist;
+						label = candidates[c];
+					}
+				}
+				
+				//check if membership has changed
+				if(labels[i] != label) {
+					System.arraycopy(points, i * dimension, buffer, 0, dimension);
+					assignment.move(labels[i], label, buffer, filter.shifts);
+					labels[i] = label;
+				}
+			}
+			assignment.numDistances += (long)candidates.length * (tree.getEnd(node) - tree.getStart(node));
+		}
+	}
+}
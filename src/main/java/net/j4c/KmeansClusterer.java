@@ -1,178 +1,1486 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import net.j4c.centroid.Centroid;
-import net.j4c.centroid.CentroidAnalyzer;
-import net.j4c.centroid.MeanCentroidAnalyzer;
-import net.j4c.distance.CosineDistance;
-import net.j4c.distance.DistanceMeasure;
-import net.j4c.seeding.KmppSeedInitializer;
-import net.j4c.seeding.SeedInitializer;
-
-/**
- * K-means clustering.
- * @author Jee Vang
- *
- */
-public class KmeansClusterer {
-
-	private DistanceMeasure distanceMeasure;
-	private SeedInitializer seedInitializer;
-	private CentroidAnalyzer centroidAnalyzer;
-	
-	/**
-	 * Gets a list of {@link Centroid}.
-	 * @param maxIterations Maximum number of iterations.
-	 * @param clusterItems {@link List} of {@link ClusterItem}.
-	 * @return {@link List} of {@link Centroid}.
-	 */
-	public List<Centroid> getClusters(int maxIterations, List<ClusterItem> clusterItems) {
-		int n = clusterItems.size();
-		double d = n / 2.0d;
-		d = Math.sqrt(d);
-		int k = (int)Math.ceil(d);
-		
-		return getClusters(k, maxIterations, clusterItems);
-	}
-	
-	/**
-	 * Gets a list of {@link Centroid}.
-	 * @param k Number of clusters.
-	 * @param maxIterations Maximum number of iterations.
-	 * @param clusterItems {@link List} of {@link ClusterItem}.
-	 * @return {@link List} of {@link Centroid}.
-	 */
-	public List<Centroid> getClusters(int k, int maxIterations, List<ClusterItem> clusterItems) {
-		int numClusterItems = clusterItems.size();
-		//adjust k max, in case it is greater than 
-		//the number of cluster items
-		int kMax = (k < numClusterItems) ? k : numClusterItems;
-		
-		//get the initial seeds
-		SeedInitializer seedInitializer = getSeedInitializer();
-		List<Centroid> centroids = seedInitializer.getSeeds(kMax, clusterItems);
-		int numCentroids = centroids.size(); //should be equal to kMax
-		
-		DistanceMeasure distanceMeasure = getDistanceMeasure();
-		CentroidAnalyzer centroidAnalyzer = getCentroidAnalyzer();
-		
-		Map<ClusterItem, Integer> membership = new HashMap<ClusterItem, Integer>();
-		
-		int iteration = 0;
-		boolean membershipChanged = false;
-		
-		//now iterate over assignment and recomputation of centroids
-		while(iteration < maxIterations) {
-			for(Centroid centroid : centroids)
-				centroid.clear();
-			
-			//assignment
-			for(ClusterItem clusterItem : clusterItems) {
-				double min = 0.0d;
-				int centroidIndex = 0;
-				
-				//find the closest centroid
-				for(int index=0; index < numCentroids; index++) {
-					Centroid centroid = centroids.get(index);
-					double dist = distanceMeasure.getDistance(centroid, clusterItem);
-					if(0 == index || dist < min) {
-						min = dist;
-						centroidIndex = index;
-					}
-				}
-				
-				Centroid centroid = centroids.get(centroidIndex);
-				centroid.add(clusterItem);
-				
-				//check if membership has changed
-				if(membership.containsKey(clusterItem)) {
-					Integer indexOfCentroid = membership.get(clusterItem);
-					if(indexOfCentroid.intValue() != centroidIndex) {
-						membershipChanged = true;
-						membership.put(clusterItem, new Integer(centroidIndex));
-					}
-				} else {
-					membership.put(clusterItem, new Integer(centroidIndex));
-					membershipChanged = true;
-				}
-			}
-			
-			//recompute centroid
-			for(Centroid centroid : centroids) {
-				centroidAnalyzer.recompute(centroid);
-			}
-			
-			//increment iteration
-			iteration++;
-			
-			//if no membership has changed, then convergence, STOP
-			if(!membershipChanged) {
-				break;
-			} else {
-				membershipChanged = false;
-			}
-		}
-		
-		return centroids;
-	}
-
-	/**
-	 * Gets the {@link DistanceMeasure}.
-	 * @return {@link DistanceMeasure}.
-	 */
-	public DistanceMeasure getDistanceMeasure() {
-		if(null == distanceMeasure)
-			distanceMeasure = new CosineDistance();
-		return distanceMeasure;
-	}
-
-	public void setDistanceMeasure(DistanceMeasure distanceMeasure) {
-		this.distanceMeasure = distanceMeasure;
-	}
-
-	/**
-	 * Gets the {@link SeedInitializer}.
-	 * @return {@link SeedInitializer}.
-	 */
-	public SeedInitializer getSeedInitializer() {
-		if(null == seedInitializer)
-			seedInitializer = new KmppSeedInitializer();
-		return seedInitializer;
-	}
-
-	public void setSeedInitializer(SeedInitializer seedInitializer) {
-		this.seedInitializer = seedInitializer;
-	}
-
-	/**
-	 * Gets the {@link CentroidAnalyzer}.
-	 * @return {@link CentroidAnalyzer}.
-	 */
-	public CentroidAnalyzer getCentroidAnalyzer() {
-		if(null == centroidAnalyzer)
-			centroidAnalyzer = new MeanCentroidAnalyzer();
-		return centroidAnalyzer;
-	}
-
-	public void setCentroidAnalyzer(CentroidAnalyzer centroidAnalyzer) {
-		this.centroidAnalyzer = centroidAnalyzer;
-	}
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import net.j4c.centroid.Centroid;
+import net.j4c.centroid.CentroidAnalyzer;
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.centroid.MeanCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.BlockDistanceMeasure;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.distance.DistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+import net.j4c.seeding.KmppSeedInitializer;
+import net.j4c.seeding.SeedInitializer;
+import net.j4c.seeding.WarmStartSeedInitializer;
+
+/**
+ * K-means clustering.
+ * @author Jee Vang
+ *
+ */
+public class KmeansClusterer {
+
+	private static final int MIN_BLOCK_SIZE = 1024;
+	private static final int MAX_BLOCKS = 256;
+	//at most how many statistics values the blocks of an assignment 
+	//allocate together, since each block keeps its own k x d statistics
+	private static final long MAX_STATISTICS_VALUES = 1L << 23;
+	//rows (and at most how many of their values) whose distances
+	//to the centroids are expanded together
+	private static final int CHUNK_ROWS = 64;
+	private static final int CHUNK_VALUES = 65536;
+	//below this fraction of the squared norm of a centroid, what is 
+	//left of it where a sparse row has no values is added up exactly
+	private static final double UNCOVERED_PRECISION = 1e-6d;
+	//below this, a distance costs less than its expansion
+	private static final int MIN_EXPANDED_DIMENSION = 8;
+	
+	private DistanceMeasure distanceMeasure;
+	private SeedInitializer seedInitializer;
+	private CentroidAnalyzer centroidAnalyzer;
+	private double shiftTolerance = 0.0d;
+	private double inertiaTolerance = 0.0d;
+	private double reassignmentTolerance = 0.0d;
+	private int numOfRestarts = 1;
+	private double abandonRatio = 0.0d;
+	private Random random;
+	private KmeansListener listener;
+	private CancellationToken cancellationToken;
+	private long deadline = 0L;
+	private boolean collectingMetrics = false;
+	private int parallelism = 1;
+	private ForkJoinPool forkJoinPool;
+	
+	/**
+	 * Gets a list of {@link Centroid}.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	public List<Centroid> getClusters(int maxIterations, List<ClusterItem> clusterItems) {
+		int n = clusterItems.size();
+		double d = n / 2.0d;
+		d = Math.sqrt(d);
+		int k = (int)Math.ceil(d);
+		
+		return getClusters(k, maxIterations, clusterItems);
+	}
+	
+	/**
+	 * Gets a list of {@link Centroid}. The {@link ClusterItem}s are
+	 * clustered as a {@link DenseDataset}, or as a {@link SparseDataset}
+	 * if most of their values are missing (0).
+	 * <p>
+	 * If the {@link DistanceMeasure}, {@link SeedInitializer} or 
+	 * {@link CentroidAnalyzer} cannot handle datasets (i.e. it is not a
+	 * {@link DatasetDistanceMeasure}, {@link DatasetSeedInitializer} or
+	 * {@link DatasetCentroidAnalyzer}), the {@link ClusterItem}s are 
+	 * clustered one by one with the {@link ClusterItem} methods instead.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	public List<Centroid> getClusters(int k, int maxIterations, List<ClusterItem> clusterItems) {
+		if(!isClusteringDatasets())
+			return getClusterItemClusters(k, maxIterations, clusterItems);
+		
+		KmeansResult<? extends Dataset> result = getResult(k, maxIterations, clusterItems);
+		if(result.getCentroids() instanceof SparseDataset)
+			return getCentroids((SparseDataset)result.getCentroids(), result.getLabels(), clusterItems);
+		return getCentroids((DenseDataset)result.getCentroids(), result.getLabels(), clusterItems);
+	}
+	
+	/**
+	 * Clusters a list of {@link ClusterItem}, without building
+	 * {@link Centroid}s. The i-th label (and distance) of the 
+	 * {@link KmeansResult} is the one of the i-th {@link ClusterItem}.
+	 * The centroids are a {@link DenseDataset}, or a {@link SparseDataset} 
+	 * if most of the values are missing (0).
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link KmeansResult}.
+	 * @throws IllegalStateException If the {@link DistanceMeasure}, 
+	 * {@link SeedInitializer} or {@link CentroidAnalyzer} cannot 
+	 * handle datasets.
+	 */
+	public KmeansResult<? extends Dataset> getResult(int k, int maxIterations, List<ClusterItem> clusterItems) {
+		if(isSparse(clusterItems))
+			return getClusters(k, maxIterations, SparseDataset.fromClusterItems(clusterItems));
+		return getClusters(k, maxIterations, DenseDataset.fromClusterItems(clusterItems));
+	}
+	
+	/**
+	 * Checks if the {@link DistanceMeasure}, {@link SeedInitializer}
+	 * and {@link CentroidAnalyzer} can all handle datasets.
+	 * @return boolean.
+	 */
+	private boolean isClusteringDatasets() {
+		return (getDistanceMeasure() instanceof DatasetDistanceMeasure)
+				&& (getSeedInitializer() instanceof DatasetSeedInitializer)
+				&& (getCentroidAnalyzer() instanceof DatasetCentroidAnalyzer);
+	}
+	
+	/**
+	 * Gets a list of {@link Centroid} by assigning and recomputing
+	 * the {@link ClusterItem}s one by one. This only uses the
+	 * {@link ClusterItem} methods of the {@link DistanceMeasure},
+	 * {@link SeedInitializer} and {@link CentroidAnalyzer}.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	private List<Centroid> getClusterItemClusters(int k, int maxIterations, List<ClusterItem> clusterItems) {
+		int numClusterItems = clusterItems.size();
+		//adjust k max, in case it is greater than 
+		//the number of cluster items
+		int kMax = (k < numClusterItems) ? k : numClusterItems;
+		
+		//get the initial seeds
+		SeedInitializer seedInitializer = getSeedInitializer();
+		List<Centroid> centroids = seedInitializer.getSeeds(kMax, clusterItems);
+		int numCentroids = centroids.size(); //should be equal to kMax
+		
+		DistanceMeasure distanceMeasure = getDistanceMeasure();
+		CentroidAnalyzer centroidAnalyzer = getCentroidAnalyzer();
+		
+		//label of each cluster item, by its position in the list
+		int[] labels = new int[numClusterItems];
+		Arrays.fill(labels, -1);
+		
+		int iteration = 0;
+		boolean membershipChanged = false;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(iteration < maxIterations) {
+			for(Centroid centroid : centroids)
+				centroid.clear();
+			
+			//assignment
+			int row = 0;
+			for(ClusterItem clusterItem : clusterItems) {
+				double min = 0.0d;
+				int centroidIndex = 0;
+				
+				//find the closest centroid
+				for(int index=0; index < numCentroids; index++) {
+					Centroid centroid = centroids.get(index);
+					double dist = distanceMeasure.getDistance(centroid, clusterItem);
+					if(0 == index || dist < min) {
+						min = dist;
+						centroidIndex = index;
+					}
+				}
+				
+				Centroid centroid = centroids.get(centroidIndex);
+				centroid.add(clusterItem);
+				
+				//check if membership has changed
+				if(labels[row] != centroidIndex) {
+					labels[row] = centroidIndex;
+					membershipChanged = true;
+				}
+				row++;
+			}
+			
+			//recompute centroid
+			for(Centroid centroid : centroids) {
+				centroidAnalyzer.recompute(centroid);
+			}
+			
+			//increment iteration
+			iteration++;
+			
+			//if no membership has changed, then convergence, STOP
+			if(!membershipChanged) {
+				break;
+			} else {
+				membershipChanged = false;
+			}
+		}
+		
+		return centroids;
+	}
+	
+	/**
+	 * Checks if less than a third of the values of the
+	 * {@link ClusterItem}s are present.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return boolean.
+	 */
+	private static boolean isSparse(List<ClusterItem> clusterItems) {
+		long numValues = 0L;
+		int dimension = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			numValues += clusterItem.size();
+			for(Integer index : clusterItem.getIndexes()) {
+				if(index.intValue() >= dimension)
+					dimension = index.intValue() + 1;
+			}
+		}
+		return 3L * numValues < (long)clusterItems.size() * dimension;
+	}
+	
+	/**
+	 * Converts centroids and labels to a {@link List} of {@link Centroid}.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @param labels Labels.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	static List<Centroid> getCentroids(DenseDataset centroids, int[] labels, List<ClusterItem> clusterItems) {
+		int dimension = centroids.getDimension();
+		List<Centroid> results = new ArrayList<Centroid>();
+		for(int index=0; index < centroids.size(); index++) {
+			Centroid centroid = new Centroid(""+index);
+			for(int i=0; i < dimension; i++) {
+				centroid.add(new IndexValue(i, centroids.getValue(index, i)));
+			}
+			results.add(centroid);
+		}
+		
+		addClusterItems(results, labels, clusterItems);
+		return results;
+	}
+	
+	/**
+	 * Converts centroids and labels to a {@link List} of {@link Centroid}.
+	 * @param centroids {@link SparseDataset} where each row is a centroid.
+	 * @param labels Labels.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	private static List<Centroid> getCentroids(SparseDataset centroids, int[] labels, List<ClusterItem> clusterItems) {
+		int[] indices = centroids.getIndices();
+		double[] values = centroids.getValues();
+		List<Centroid> results = new ArrayList<Centroid>();
+		for(int index=0; index < centroids.size(); index++) {
+			Centroid centroid = new Centroid(""+index);
+			for(int i=centroids.getRowStart(index); i < centroids.getRowEnd(index); i++) {
+				centroid.add(new IndexValue(indices[i], values[i]));
+			}
+			results.add(centroid);
+		}
+		
+		addClusterItems(results, labels, clusterItems);
+		return results;
+	}
+	
+	private static void addClusterItems(List<Centroid> centroids, int[] labels, List<ClusterItem> clusterItems) {
+		int row = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			int label = labels[row++];
+			if(label >= 0)
+				centroids.get(label).add(clusterItem);
+		}
+	}
+	
+	/**
+	 * Gets the clusters of a {@link Dataset}. Use
+	 * {@link DenseDataset#fromClusterItems(List)} to cluster
+	 * a {@link List} of {@link ClusterItem} this way.
+	 * <p>
+	 * Clustering stops once no row changes its cluster, after the
+	 * maximum number of iterations, or earlier by one of the stopping
+	 * rules that are set (see {@link #getShiftTolerance()}, 
+	 * {@link #getInertiaTolerance()} and {@link #getReassignmentTolerance()}).
+	 * The {@link KmeansResult} has the number of iterations, the 
+	 * {@link StopReason} and the inertia after each iteration.
+	 * </p>
+	 * <p>
+	 * The {@link ClusterStatistics} of the clusters are kept from one
+	 * iteration to the next, and only updated for the rows that moved 
+	 * to another cluster, so recomputing the centroids costs in 
+	 * proportion to the number of rows that moved rather than to the
+	 * number of rows.
+	 * </p>
+	 * <p>
+	 * If the parallelism is greater than 1 (or a {@link ForkJoinPool}
+	 * is set), the rows are split into blocks that are assigned 
+	 * concurrently, each block computing the change of the 
+	 * {@link ClusterStatistics} due to its rows. The blocks depend only 
+	 * on the number of rows, and their changes are always merged in the 
+	 * same order, so the result is the same for any number of threads. 
+	 * The {@link DistanceMeasure} and {@link Dataset} must then be safe
+	 * to use from multiple threads.
+	 * </p>
+	 * <p>
+	 * If the number of restarts is greater than 1, k-means is run that
+	 * many times, each run with its own seeds (from its own 
+	 * {@link Random}, see {@link DatasetSeedInitializer#newInstance(Random)}), 
+	 * and the run with the lowest inertia is kept. The runs share the 
+	 * {@link ForkJoinPool}, so they run concurrently. A run whose inertia 
+	 * is worse than the abandon ratio times the best inertia of the runs 
+	 * that have finished is abandoned (see {@link #getAbandonRatio()}).
+	 * </p>
+	 * <p>
+	 * A {@link KmeansListener} is told about the seeds and each iteration.
+	 * Once the {@link CancellationToken} is cancelled or the deadline 
+	 * passes, a run stops after its current iteration with the clusters 
+	 * it has so far, and restarts that have not started yet are skipped.
+	 * </p>
+	 * <p>
+	 * The {@link DistanceMeasure}, {@link SeedInitializer} and 
+	 * {@link CentroidAnalyzer} must be a {@link DatasetDistanceMeasure}, 
+	 * {@link DatasetSeedInitializer} and {@link DatasetCentroidAnalyzer}
+	 * (as the default ones are).
+	 * </p>
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link Dataset}.
+	 * @return {@link KmeansResult}.
+	 * @throws IllegalStateException If a strategy cannot cluster a {@link Dataset}.
+	 * @throws IllegalArgumentException If the {@link Dataset} is a 
+	 * {@link SparseDataset}, which {@link #getClusters(int, int, SparseDataset)}
+	 * clusters without making the centroids dense.
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, Dataset data) {
+		checkDense(data);
+		ForkJoinPool pool = openPool();
+		try {
+			if(numOfRestarts <= 1)
+				return cluster(k, data, getDatasetSeedInitializer(), getConvergence(maxIterations, data.size(), null), pool);
+			return restart(k, maxIterations, data, pool);
+		} finally {
+			closePool(pool);
+		}
+	}
+	
+	/**
+	 * Gets the clusters of a {@link Dataset}, starting from the centroids
+	 * of a previous run instead of the {@link SeedInitializer}, e.g. to 
+	 * re-cluster data that has only changed a little. If k differs from 
+	 * the number of centroids, the closest centroids are merged or new 
+	 * seeds are picked from the data (see {@link WarmStartSeedInitializer}).
+	 * The run is not restarted, since it starts from the same seeds.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link Dataset}.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @return {@link KmeansResult}.
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, Dataset data, DenseDataset centroids) {
+		return warmStart(k, maxIterations, data, new WarmStartSeedInitializer(centroids));
+	}
+	
+	/**
+	 * Gets the clusters of a {@link Dataset}, starting from the centroids
+	 * of a {@link KmeansModel} (e.g. one read with {@link KmeansModelReader}),
+	 * as {@link #getClusters(int, int, Dataset, DenseDataset)} does. The 
+	 * counts of the {@link KmeansModel}, if it has them, weigh the centroids 
+	 * that are merged.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link Dataset}.
+	 * @param model {@link KmeansModel}.
+	 * @return {@link KmeansResult}.
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, Dataset data, KmeansModel model) {
+		return warmStart(k, maxIterations, data, new WarmStartSeedInitializer(model));
+	}
+	
+	private KmeansResult<DenseDataset> warmStart(int k, int maxIterations, Dataset data, WarmStartSeedInitializer seedInitializer) {
+		checkDense(data);
+		seedInitializer.setRandom(getRandom());
+		seedInitializer.setDistanceMeasure(getDatasetDistanceMeasure());
+		ForkJoinPool pool = openPool();
+		try {
+			return cluster(k, data, seedInitializer, getConvergence(maxIterations, data.size(), null), pool);
+		} finally {
+			closePool(pool);
+		}
+	}
+	
+	/**
+	 * Runs k-means over a {@link Dataset} once.
+	 * @param k Number of clusters.
+	 * @param data {@link Dataset}.
+	 * @param seedInitializer {@link SeedInitializer}.
+	 * @param convergence {@link Convergence} of the run.
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 * @return {@link KmeansResult}.
+	 */
+	KmeansResult<DenseDataset> cluster(int k, Dataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		
+		//get the initial seeds
+		DenseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		int[] labels = new int[numRows];
+		Arrays.fill(labels, -1);
+		double[] distances = new double[numRows];
+		//the statistics are relative to the seeds, which are 
+		//closer to the means than the origin
+		double[] shifts = Arrays.copyOf(centroids.getValues(), centroids.getValues().length);
+		ClusterStatistics statistics = new ClusterStatistics(centroids.size(), data.getDimension(), shifts);
+		double[] previous = new double[centroids.getValues().length];
+		int blockSize = getBlockSize(numRows, centroids.size(), data.getDimension());
+		long numDistances = 0L;
+		
+		//if the distances can be expanded, the norms of the rows 
+		//are kept for the run and those of the centroids for an iteration
+		boolean expanded = data.getDimension() >= MIN_EXPANDED_DIMENSION && isExpandable(distanceMeasure);
+		double[] rowNorms = expanded ? new double[numRows] : null;
+		double[] centroidNorms = expanded ? new double[centroids.size()] : null;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			if(expanded)
+				computeNorms((BlockDistanceMeasure)distanceMeasure, centroids, centroidNorms);
+			BlockTask task = new AssignmentTask(data, centroids, distanceMeasure, rowNorms, centroidNorms, 
+					labels, distances, shifts, 0, numRows, blockSize, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			
+			//update the statistics with the rows that moved, 
+			//and recompute centroids
+			if(null != assignment.statistics)
+				statistics.merge(assignment.statistics);
+			System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+			centroidAnalyzer.recompute(statistics, centroids);
+			
+			//check the stopping rules
+			double maxShift = getMaxShift(previous, centroids, distanceMeasure);
+			convergence.update(assignment.numChanged, maxShift, statistics.getInertia());
+		}
+		
+		//the distances are to the centroids before the last 
+		//recomputation, which only moved them if not converged
+		if(StopReason.CONVERGED != convergence.getStopReason())
+			computeDistances(data, centroids, labels, distances, pool);
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * Gets the clusters of a {@link SparseDataset}. The centroids
+	 * are kept sparse as well, so that high-dimensional data (e.g.
+	 * TF-IDF vectors) never has to be densified. As with 
+	 * {@link #getClusters(int, int, Dataset)}, the assignment
+	 * is done concurrently if the parallelism is greater than 1, and 
+	 * the clustering is restarted and monitored the same way.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link SparseDataset}.
+	 * @return {@link KmeansResult}.
+	 */
+	public KmeansResult<SparseDataset> getClusters(int k, int maxIterations, SparseDataset data) {
+		ForkJoinPool pool = openPool();
+		try {
+			if(numOfRestarts <= 1)
+				return cluster(k, data, getDatasetSeedInitializer(), getConvergence(maxIterations, data.size(), null), pool);
+			return restart(k, maxIterations, data, pool);
+		} finally {
+			closePool(pool);
+		}
+	}
+	
+	/**
+	 * Runs k-means over a {@link SparseDataset} once.
+	 * @param k Number of clusters.
+	 * @param data {@link SparseDataset}.
+	 * @param seedInitializer {@link SeedInitializer}.
+	 * @param convergence {@link Convergence} of the run.
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 * @return {@link KmeansResult}.
+	 */
+	private KmeansResult<SparseDataset> cluster(int k, SparseDataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		
+		//get the initial seeds
+		SparseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		int[] labels = new int[numRows];
+		Arrays.fill(labels, -1);
+		double[] distances = new double[numRows];
+		int blockSize = getBlockSize(numRows);
+		long numDistances = 0L;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			BlockTask task = new SparseAssignmentTask(data, centroids, distanceMeasure, labels, distances, 0, numRows, blockSize, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			
+			//recompute centroids
+			SparseDataset previous = centroids;
+			centroids = centroidAnalyzer.recompute(data, labels, centroids);
+			
+			//check the stopping rules
+			double maxShift = 0.0d;
+			for(int index=0; index < centroids.size(); index++) {
+				maxShift = Math.max(maxShift, distanceMeasure.getDistance(previous, index, centroids, index));
+			}
+			convergence.update(assignment.numChanged, maxShift, getInertia(data, labels, centroids));
+		}
+		
+		//the distances are to the centroids before the last 
+		//recomputation, which only moved them if not converged
+		if(StopReason.CONVERGED != convergence.getStopReason())
+			computeDistances(data, centroids, labels, distances, pool);
+		
+		KmeansResult<SparseDataset> result = new KmeansResult<SparseDataset>(centroids, labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * Gets the inertia of a {@link SparseDataset}: the sum over all 
+	 * rows of the squared (Euclidean) distance of the row to its 
+	 * centroid, whatever the centroids are. The differences are taken
+	 * value by value where the row has values; where it has none, the
+	 * squared values of the centroid are the squared norm of the 
+	 * centroid minus those where the row has values (or, if that 
+	 * leaves too little to be accurate, are added up one by one). 
+	 * The rows are gone over by centroid, so that each centroid is 
+	 * spread into dense values only once.
+	 * @param data {@link SparseDataset}.
+	 * @param labels Labels.
+	 * @param centroids {@link SparseDataset} of the centroids.
+	 * @return double.
+	 */
+	double getInertia(SparseDataset data, int[] labels, SparseDataset centroids) {
+		int numCentroids = centroids.size();
+		int[] rowIndices = data.getIndices();
+		double[] rowValues = data.getValues();
+		int[] centroidIndices = centroids.getIndices();
+		double[] centroidValues = centroids.getValues();
+		
+		//order the rows by centroid (counting sort)
+		int[] starts = new int[numCentroids + 1];
+		for(int label : labels) {
+			if(label >= 0)
+				starts[label + 1]++;
+		}
+		for(int index=0; index < numCentroids; index++) {
+			starts[index + 1] += starts[index];
+		}
+		int[] rows = new int[starts[numCentroids]];
+		int[] next = Arrays.copyOf(starts, numCentroids);
+		for(int row=0; row < labels.length; row++) {
+			if(labels[row] >= 0)
+				rows[next[labels[row]]++] = row;
+		}
+		
+		double inertia = 0.0d;
+		double[] centroid = new double[data.getDimension()];
+		//the last row (plus 1) that has a value in each column
+		int[] marks = new int[data.getDimension()];
+		for(int index=0; index < numCentroids; index++) {
+			if(starts[index] == starts[index + 1])
+				continue;
+			
+			int centroidStart = centroids.getRowStart(index);
+			int centroidEnd = centroids.getRowEnd(index);
+			for(int i=centroidStart; i < centroidEnd; i++) {
+				centroid[centroidIndices[i]] = centroidValues[i];
+			}
+			
+			double squaredNorm = centroids.getSquaredNorm(index);
+			for(int r=starts[index]; r < starts[index + 1]; r++) {
+				int row = rows[r];
+				double rowInertia = 0.0d;
+				double covered = 0.0d;
+				for(int i=data.getRowStart(row); i < data.getRowEnd(row); i++) {
+					double value = centroid[rowIndices[i]];
+					double diff = rowValues[i] - value;
+					rowInertia += diff * diff;
+					covered += value * value;
+					marks[rowIndices[i]] = row + 1;
+				}
+				
+				//the values of the centroid where the row has none
+				double uncovered = squaredNorm - covered;
+				if(uncovered <= UNCOVERED_PRECISION * squaredNorm) {
+					uncovered = 0.0d;
+					for(int i=centroidStart; i < centroidEnd; i++) {
+						if(marks[centroidIndices[i]] != row + 1)
+							uncovered += centroidValues[i] * centroidValues[i];
+					}
+				}
+				inertia += rowInertia + uncovered;
+			}
+			
+			for(int i=centroidStart; i < centroidEnd; i++) {
+				centroid[centroidIndices[i]] = 0.0d;
+			}
+		}
+		return inertia;
+	}
+	
+	/**
+	 * Gets the largest distance between the previous and the 
+	 * recomputed values of a centroid.
+	 * @param previous Values of the centroids before recomputation.
+	 * @param centroids {@link DenseDataset} of the recomputed centroids.
+	 * @param distanceMeasure {@link DistanceMeasure}.
+	 * @return double.
+	 */
+	static double getMaxShift(double[] previous, DenseDataset centroids, DatasetDistanceMeasure distanceMeasure) {
+		int dimension = centroids.getDimension();
+		double[] values = centroids.getValues();
+		double maxShift = 0.0d;
+		for(int index=0; index < centroids.size(); index++) {
+			double shift = distanceMeasure.getDistance(previous, index * dimension, values, index * dimension, dimension);
+			if(shift > maxShift)
+				maxShift = shift;
+		}
+		return maxShift;
+	}
+	
+	/**
+	 * Creates the {@link Convergence} of one clustering run, with
+	 * the stopping rules of this clusterer.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param numRows Number of rows.
+	 * @param restarts {@link Restarts} (null if the run is not restarted).
+	 * @return {@link Convergence}.
+	 */
+	Convergence getConvergence(int maxIterations, int numRows, Restarts restarts) {
+		Convergence convergence = new Convergence(maxIterations, shiftTolerance, inertiaTolerance, reassignmentTolerance, numRows, restarts);
+		convergence.setMonitors(listener, cancellationToken, deadline);
+		convergence.setCollectingMetrics(collectingMetrics);
+		return convergence;
+	}
+	
+	/**
+	 * Checks if the {@link CancellationToken} is cancelled or 
+	 * the deadline has passed.
+	 * @return boolean.
+	 */
+	boolean isStopRequested() {
+		return (null != cancellationToken && cancellationToken.isCancelled()) 
+				|| (deadline > 0L && System.currentTimeMillis() >= deadline);
+	}
+	
+	/**
+	 * Runs k-means over a {@link Dataset} a number of times, each
+	 * run with its own seeds, and keeps the run with the lowest
+	 * inertia (the first one, if there are ties).
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link Dataset}.
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 * @return {@link KmeansResult}.
+	 */
+	private KmeansResult<DenseDataset> restart(final int k, int maxIterations, final Dataset data, final ForkJoinPool pool) {
+		Restarts restarts = new Restarts(abandonRatio);
+		List<RestartTask<DenseDataset>> tasks = new ArrayList<RestartTask<DenseDataset>>();
+		for(final DatasetSeedInitializer seedInitializer : getRestartSeedInitializers()) {
+			tasks.add(new RestartTask<DenseDataset>(getConvergence(maxIterations, data.size(), restarts), restarts) {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				KmeansResult<DenseDataset> cluster(Convergence convergence) {
+					return KmeansClusterer.this.cluster(k, data, seedInitializer, convergence, pool);
+				}
+			});
+		}
+		return getBest(tasks, pool);
+	}
+	
+	/**
+	 * Runs k-means over a {@link SparseDataset} a number of times, 
+	 * as {@link #restart(int, int, Dataset, ForkJoinPool)} does.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param data {@link SparseDataset}.
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 * @return {@link KmeansResult}.
+	 */
+	private KmeansResult<SparseDataset> restart(final int k, int maxIterations, final SparseDataset data, final ForkJoinPool pool) {
+		Restarts restarts = new Restarts(abandonRatio);
+		List<RestartTask<SparseDataset>> tasks = new ArrayList<RestartTask<SparseDataset>>();
+		for(final DatasetSeedInitializer seedInitializer : getRestartSeedInitializers()) {
+			tasks.add(new RestartTask<SparseDataset>(getConvergence(maxIterations, data.size(), restarts), restarts) {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				KmeansResult<SparseDataset> cluster(Convergence convergence) {
+					return KmeansClusterer.this.cluster(k, data, seedInitializer, convergence, pool);
+				}
+			});
+		}
+		return getBest(tasks, pool);
+	}
+	
+	/**
+	 * Gets the {@link SeedInitializer} of each restarted run. They are
+	 * all created first, so the seeds of each run do not depend on
+	 * the order in which the runs are executed.
+	 * @return {@link List} of {@link DatasetSeedInitializer}.
+	 */
+	private List<DatasetSeedInitializer> getRestartSeedInitializers() {
+		DatasetSeedInitializer seedInitializer = getDatasetSeedInitializer();
+		Random random = getRandom();
+		List<DatasetSeedInitializer> seedInitializers = new ArrayList<DatasetSeedInitializer>();
+		for(int run=0; run < numOfRestarts; run++) {
+			seedInitializers.add(seedInitializer.newInstance(new Random(random.nextLong())));
+		}
+		return seedInitializers;
+	}
+	
+	/**
+	 * Runs the restarted runs and gets the one with the lowest inertia.
+	 * @param tasks {@link List} of {@link RestartTask}.
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 * @return {@link KmeansResult}.
+	 */
+	private static <T extends Dataset> KmeansResult<T> getBest(List<RestartTask<T>> tasks, ForkJoinPool pool) {
+		//the runs run concurrently; each run then splits its own 
+		//assignment across the same pool
+		if(null != pool) {
+			for(RestartTask<T> task : tasks) {
+				pool.execute(task);
+			}
+		}
+		
+		KmeansResult<T> best = null;
+		for(RestartTask<T> task : tasks) {
+			KmeansResult<T> result = (null == pool) ? task.compute() : task.join();
+			if(null == result || StopReason.ABANDONED == result.getStopReason())
+				continue;
+			if(null == best || result.getInertia() < best.getInertia())
+				best = result;
+		}
+		return best;
+	}
+	
+	/**
+	 * One run of a restarted clustering.
+	 */
+	private abstract class RestartTask<T extends Dataset> extends RecursiveTask<KmeansResult<T>> {
+		private static final long serialVersionUID = 1L;
+		
+		private Convergence convergence;
+		private Restarts restarts;
+		
+		private RestartTask(Convergence convergence, Restarts restarts) {
+			this.convergence = convergence;
+			this.restarts = restarts;
+		}
+
+		@Override
+		protected KmeansResult<T> compute() {
+			//once stopped, a run that has not started is skipped, 
+			//as long as another run has clusters to return
+			if(restarts.hasFinished() && isStopRequested())
+				return null;
+			
+			//the runs were all created up front
+			convergence.start();
+			KmeansResult<T> result = cluster(convergence);
+			if(StopReason.ABANDONED != result.getStopReason())
+				restarts.finish(result.getInertia());
+			return result;
+		}
+		
+		/**
+		 * Runs k-means once.
+		 * @param convergence {@link Convergence} of the run.
+		 * @return {@link KmeansResult}.
+		 */
+		abstract KmeansResult<T> cluster(Convergence convergence);
+	}
+	
+	/**
+	 * Checks if the distances of the assignment can be expanded
+	 * into norms and dot-products (see {@link BlockDistanceMeasure}).
+	 * @param distanceMeasure {@link DistanceMeasure}.
+	 * @return boolean.
+	 */
+	static boolean isExpandable(DistanceMeasure distanceMeasure) {
+		return distanceMeasure instanceof BlockDistanceMeasure 
+				&& ((BlockDistanceMeasure)distanceMeasure).isExpandable();
+	}
+	
+	/**
+	 * Computes the norms of the centroids.
+	 * @param distanceMeasure {@link BlockDistanceMeasure}.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @param norms Norms (output).
+	 */
+	static void computeNorms(BlockDistanceMeasure distanceMeasure, DenseDataset centroids, double[] norms) {
+		int dimension = centroids.getDimension();
+		double[] values = centroids.getValues();
+		for(int index=0; index < norms.length; index++) {
+			norms[index] = distanceMeasure.getNorm(values, index * dimension, dimension);
+		}
+	}
+	
+	/**
+	 * Gets the number of rows per block of the assignment. This
+	 * only depends on the number of rows, not on the parallelism.
+	 * @param numRows Number of rows.
+	 * @return int.
+	 */
+	static int getBlockSize(int numRows) {
+		int blockSize = (numRows + MAX_BLOCKS - 1) / MAX_BLOCKS;
+		return (blockSize < MIN_BLOCK_SIZE) ? MIN_BLOCK_SIZE : blockSize;
+	}
+	
+	/**
+	 * Gets the number of rows per block of an assignment that keeps
+	 * {@link ClusterStatistics} per block. Blocks are made larger when
+	 * there are many centroids or columns, so that all the statistics
+	 * together stay bounded. As with {@link #getBlockSize(int)}, this
+	 * does not depend on the parallelism.
+	 * @param numRows Number of rows.
+	 * @param numCentroids Number of centroids.
+	 * @param dimension Number of columns.
+	 * @return int.
+	 */
+	static int getBlockSize(int numRows, int numCentroids, int dimension) {
+		int blockSize = getBlockSize(numRows);
+		long maxBlocks = MAX_STATISTICS_VALUES / Math.max(1L, (long)numCentroids * dimension);
+		if(maxBlocks < 1L)
+			maxBlocks = 1L;
+		long minBlockSize = (numRows + maxBlocks - 1L) / maxBlocks;
+		return (blockSize < minBlockSize) ? (int)minBlockSize : blockSize;
+	}
+	
+	/**
+	 * Gets the {@link ForkJoinPool} for one clustering run: the one
+	 * that is set, a new one if the parallelism is greater than 1, 
+	 * or null to run in the calling thread. Must be followed by
+	 * {@link #closePool(ForkJoinPool)}.
+	 * @return {@link ForkJoinPool}.
+	 */
+	ForkJoinPool openPool() {
+		if(null != forkJoinPool)
+			return forkJoinPool;
+		if(parallelism > 1)
+			return new ForkJoinPool(parallelism);
+		return null;
+	}
+	
+	/**
+	 * Shuts down the pool, if it was created by {@link #openPool()}.
+	 * @param pool {@link ForkJoinPool}.
+	 */
+	void closePool(ForkJoinPool pool) {
+		if(null != pool && pool != forkJoinPool)
+			pool.shutdown();
+	}
+	
+	/**
+	 * Runs an assignment task in the pool, or in the calling thread
+	 * if there is no pool. A task that is run from within the pool 
+	 * (e.g. by a restart) is run by the current worker.
+	 * @param task Assignment task (e.g. a {@link BlockTask}).
+	 * @param pool {@link ForkJoinPool}.
+	 * @return {@link Assignment}.
+	 */
+	static Assignment invoke(ForkJoinTask<Assignment> task, ForkJoinPool pool) {
+		if(null == pool || ForkJoinTask.inForkJoinPool())
+			return task.invoke();
+		return pool.invoke(task);
+	}
+	
+	/**
+	 * Computes the distance of each row to the centroid it is
+	 * assigned to.
+	 * @param data {@link Dataset}.
+	 * @param centroids {@link DenseDataset} or {@link SparseDataset} 
+	 * (if the data is a {@link SparseDataset}) where each row is a centroid.
+	 * @param labels Labels.
+	 * @param distances Distances (output).
+	 * @param pool {@link ForkJoinPool} (may be null).
+	 */
+	void computeDistances(Dataset data, Dataset centroids, int[] labels, double[] distances, ForkJoinPool pool) {
+		int numRows = data.size();
+		invoke(new DistanceTask(data, centroids, getDatasetDistanceMeasure(), labels, distances, 0, numRows, getBlockSize(numRows), null != pool), pool);
+	}
+	
+	/**
+	 * Assigns rows of a {@link Dataset} to their closest centroids,
+	 * and computes the change of the {@link ClusterStatistics} due
+	 * to the rows that moved (relative to the shifts). If the norms
+	 * are given, the distances are expanded (see 
+	 * {@link BlockDistanceMeasure}).
+	 */
+	private static class AssignmentTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private Dataset data;
+		private DenseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private double[] rowNorms;
+		private double[] centroidNorms;
+		private int[] labels;
+		private double[] distances;
+		private double[] shifts;
+		
+		private AssignmentTask(Dataset data, DenseDataset centroids, DatasetDistanceMeasure distanceMeasure, 
+				double[] rowNorms, double[] centroidNorms, int[] labels, double[] distances, double[] shifts, 
+				int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.data = data;
+			this.centroids = centroids;
+			this.distanceMeasure = distanceMeasure;
+			this.rowNorms = rowNorms;
+			this.centroidNorms = centroidNorms;
+			this.labels = labels;
+			this.distances = distances;
+			this.shifts = shifts;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new AssignmentTask(data, centroids, distanceMeasure, rowNorms, centroidNorms, 
+					labels, distances, shifts, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			if(null != centroidNorms)
+				return computeExpandedBlock(from, to);
+			
+			int dimension = data.getDimension();
+			int numCentroids = centroids.size();
+			double[] centroidValues = centroids.getValues();
+			double[] buffer = new double[dimension];
+			
+			Assignment assignment = new Assignment();
+			
+			for(int row=from; row < to; row++) {
+				data.getRow(row, buffer);
+				double min = 0.0d;
+				int centroidIndex = 0;
+				
+				//find the closest centroid
+				for(int index=0; index < numCentroids; index++) {
+					double dist = distanceMeasure.getDistance(buffer, 0, centroidValues, index * dimension, dimension);
+					if(0 == index || dist < min) {
+						min = dist;
+						centroidIndex = index;
+					}
+				}
+				
+				distances[row] = min;
+				
+				//check if membership has changed
+				if(labels[row] != centroidIndex) {
+					assignment.move(labels[row], centroidIndex, buffer, shifts);
+					labels[row] = centroidIndex;
+				}
+			}
+			
+			assignment.numDistances = (long)(to - from) * numCentroids;
+			return assignment;
+		}
+		
+		/**
+		 * Assigns the rows of a block a chunk at a time. The expanded
+		 * distances from a chunk to all centroids only narrow down
+		 * the closest centroid of each row, to those within twice 
+		 * the error of the smallest one; the exact distances to these
+		 * are checked in the same order as without the expansion, so
+		 * the labels and distances (ties included) are the same.
+		 * @param from First row (inclusive).
+		 * @param to Last row (exclusive).
+		 * @return {@link Assignment}.
+		 */
+		private Assignment computeExpandedBlock(int from, int to) {
+			BlockDistanceMeasure blockDistanceMeasure = (BlockDistanceMeasure)distanceMeasure;
+			int dimension = data.getDimension();
+			int numCentroids = centroids.size();
+			double[] centroidValues = centroids.getValues();
+			int chunkSize = Math.max(1, Math.min(CHUNK_ROWS, CHUNK_VALUES / Math.max(1, dimension)));
+			double[] rows = new double[chunkSize * dimension];
+			double[] norms = new double[chunkSize];
+			double[] expansions = new double[chunkSize * numCentroids];
+			double[] buffer = new double[dimension];
+			
+			//the error only grows with the norms, so the largest 
+			//norm of the centroids bounds it for all of them
+			double maxNorm = 0.0d;
+			for(int index=0; index < numCentroids; index++) {
+				maxNorm = Math.max(maxNorm, centroidNorms[index]);
+			}
+			
+			Assignment assignment = new Assignment();
+			
+			for(int start=from; start < to; start += chunkSize) {
+				int size = Math.min(chunkSize, to - start);
+				for(int i=0; i < size; i++) {
+					int row = start + i;
+					data.getRow(row, buffer);
+					System.arraycopy(buffer, 0, rows, i * dimension, dimension);
+					//no row has a label before the first assignment,
+					//which is when the norms of the rows are computed
+					if(labels[row] < 0)
+						rowNorms[row] = blockDistanceMeasure.getNorm(buffer, 0, dimension);
+					norms[i] = rowNorms[row];
+				}
+				
+				blockDistanceMeasure.getDistances(rows, norms, size, centroidValues, centroidNorms, numCentroids, dimension, expansions);
+				
+				for(int i=0; i < size; i++) {
+					int row = start + i;
+					int offset = i * numCentroids;
+					double threshold = expansions[offset];
+					for(int index=1; index < numCentroids; index++) {
+						threshold = Math.min(threshold, expansions[offset + index]);
+					}
+					threshold += 2.0d * blockDistanceMeasure.getError(norms[i], maxNorm, dimension);
+					
+					//find the closest centroid among those that may be
+					double min = 0.0d;
+					int centroidIndex = -1;
+					for(int index=0; index < numCentroids; index++) {
+						if(expansions[offset + index] > threshold)
+							continue;
+						double dist = distanceMeasure.getDistance(rows, i * dimension, centroidValues, index * dimension, dimension);
+						if(centroidIndex < 0 || dist < min) {
+							min = dist;
+							centroidIndex = index;
+						}
+					}
+					
+					distances[row] = min;
+					
+					//check if membership has changed
+					if(labels[row] != centroidIndex) {
+						System.arraycopy(rows, i * dimension, buffer, 0, dimension);
+						assignment.move(labels[row], centroidIndex, buffer, shifts);
+						labels[row] = centroidIndex;
+					}
+				}
+			}
+			
+			assignment.numDistances = (long)(to - from) * numCentroids;
+			return assignment;
+		}
+	}
+	
+	/**
+	 * Assigns rows of a {@link SparseDataset} to their closest 
+	 * centroids.
+	 */
+	private static class SparseAssignmentTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private SparseDataset data;
+		private SparseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private int[] labels;
+		private double[] distances;
+		
+		private SparseAssignmentTask(SparseDataset data, SparseDataset centroids, DatasetDistanceMeasure distanceMeasure, 
+				int[] labels, double[] distances, int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.data = data;
+			this.centroids = centroids;
+			this.distanceMeasure = distanceMeasure;
+			this.labels = labels;
+			this.distances = distances;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new SparseAssignmentTask(data, centroids, distanceMeasure, labels, distances, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			int numCentroids = centroids.size();
+			Assignment assignment = new Assignment();
+			
+			for(int row=from; row < to; row++) {
+				double min = 0.0d;
+				int centroidIndex = 0;
+				
+				//find the closest centroid
+				for(int index=0; index < numCentroids; index++) {
+					double dist = distanceMeasure.getDistance(data, row, centroids, index);
+					if(0 == index || dist < min) {
+						min = dist;
+						centroidIndex = index;
+					}
+				}
+				
+				distances[row] = min;
+				
+				//check if membership has changed
+				if(labels[row] != centroidIndex) {
+					labels[row] = centroidIndex;
+					assignment.numChanged++;
+				}
+			}
+			
+			assignment.numDistances = (long)(to - from) * numCentroids;
+			return assignment;
+		}
+	}
+
+	/**
+	 * Computes the distance of rows to the centroids they are 
+	 * assigned to.
+	 */
+	private static class DistanceTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private Dataset data;
+		private Dataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private int[] labels;
+		private double[] distances;
+		
+		private DistanceTask(Dataset data, Dataset centroids, DatasetDistanceMeasure distanceMeasure, 
+				int[] labels, double[] distances, int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.data = data;
+			this.centroids = centroids;
+			this.distanceMeasure = distanceMeasure;
+			this.labels = labels;
+			this.distances = distances;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new DistanceTask(data, centroids, distanceMeasure, labels, distances, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			Assignment assignment = new Assignment();
+			if(data instanceof SparseDataset) {
+				SparseDataset sparseData = (SparseDataset)data;
+				SparseDataset sparseCentroids = (SparseDataset)centroids;
+				for(int row=from; row < to; row++) {
+					if(labels[row] >= 0)
+						distances[row] = distanceMeasure.getDistance(sparseData, row, sparseCentroids, labels[row]);
+				}
+				return assignment;
+			}
+			
+			int dimension = data.getDimension();
+			double[] centroidValues = ((DenseDataset)centroids).getValues();
+			double[] buffer = new double[dimension];
+			for(int row=from; row < to; row++) {
+				if(labels[row] < 0)
+					continue;
+				data.getRow(row, buffer);
+				distances[row] = distanceMeasure.getDistance(buffer, 0, centroidValues, labels[row] * dimension, dimension);
+			}
+			return assignment;
+		}
+	}
+
+	/**
+	 * Gets the {@link DistanceMeasure}.
+	 * @return {@link DistanceMeasure}.
+	 */
+	public DistanceMeasure getDistanceMeasure() {
+		if(null == distanceMeasure)
+			distanceMeasure = new CosineDistance();
+		return distanceMeasure;
+	}
+
+	public void setDistanceMeasure(DistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+
+	/**
+	 * Gets the {@link SeedInitializer}.
+	 * @return {@link SeedInitializer}.
+	 */
+	public SeedInitializer getSeedInitializer() {
+		if(null == seedInitializer)
+			seedInitializer = new KmppSeedInitializer();
+		return seedInitializer;
+	}
+
+	public void setSeedInitializer(SeedInitializer seedInitializer) {
+		this.seedInitializer = seedInitializer;
+	}
+
+	/**
+	 * Gets the {@link CentroidAnalyzer}.
+	 * @return {@link CentroidAnalyzer}.
+	 */
+	public CentroidAnalyzer getCentroidAnalyzer() {
+		if(null == centroidAnalyzer)
+			centroidAnalyzer = new MeanCentroidAnalyzer();
+		return centroidAnalyzer;
+	}
+
+	public void setCentroidAnalyzer(CentroidAnalyzer centroidAnalyzer) {
+		this.centroidAnalyzer = centroidAnalyzer;
+	}
+	
+	/**
+	 * Checks that a {@link Dataset} is not a {@link SparseDataset}, 
+	 * whose rows the dense paths would cluster around k x d dense 
+	 * centroids.
+	 * @param data {@link Dataset}.
+	 * @throws IllegalArgumentException If the {@link Dataset} is a {@link SparseDataset}.
+	 */
+	static void checkDense(Dataset data) {
+		if(data instanceof SparseDataset)
+			throw new IllegalArgumentException("a SparseDataset is clustered by getClusters(int, int, SparseDataset)");
+	}
+	
+	/**
+	 * Gets the {@link DistanceMeasure}, to cluster a {@link Dataset}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 * @throws IllegalStateException If the {@link DistanceMeasure} 
+	 * only measures {@link ClusterItem}s.
+	 */
+	DatasetDistanceMeasure getDatasetDistanceMeasure() {
+		DistanceMeasure distanceMeasure = getDistanceMeasure();
+		if(!(distanceMeasure instanceof DatasetDistanceMeasure))
+			throw new IllegalStateException("clustering a dataset needs a DatasetDistanceMeasure but got " + distanceMeasure.getClass().getName());
+		return (DatasetDistanceMeasure)distanceMeasure;
+	}
+	
+	/**
+	 * Gets the {@link SeedInitializer}, to cluster a {@link Dataset}.
+	 * @return {@link DatasetSeedInitializer}.
+	 * @throws IllegalStateException If the {@link SeedInitializer} 
+	 * only seeds {@link ClusterItem}s.
+	 */
+	DatasetSeedInitializer getDatasetSeedInitializer() {
+		SeedInitializer seedInitializer = getSeedInitializer();
+		if(!(seedInitializer instanceof DatasetSeedInitializer))
+			throw new IllegalStateException("clustering a dataset needs a DatasetSeedInitializer but got " + seedInitializer.getClass().getName());
+		return (DatasetSeedInitializer)seedInitializer;
+	}
+	
+	/**
+	 * Gets the {@link CentroidAnalyzer}, to cluster a {@link Dataset}.
+	 * @return {@link DatasetCentroidAnalyzer}.
+	 * @throws IllegalStateException If the {@link CentroidAnalyzer} 
+	 * only recomputes {@link Centroid}s.
+	 */
+	DatasetCentroidAnalyzer getDatasetCentroidAnalyzer() {
+		CentroidAnalyzer centroidAnalyzer = getCentroidAnalyzer();
+		if(!(centroidAnalyzer instanceof DatasetCentroidAnalyzer))
+			throw new IllegalStateException("clustering a dataset needs a DatasetCentroidAnalyzer but got " + centroidAnalyzer.getClass().getName());
+		return (DatasetCentroidAnalyzer)centroidAnalyzer;
+	}
+
+	/**
+	 * Gets the shift tolerance: clustering stops once no centroid
+	 * moves farther than this (0 to not check it).
+	 * @return double.
+	 */
+	public double getShiftTolerance() {
+		return shiftTolerance;
+	}
+
+	public void setShiftTolerance(double shiftTolerance) {
+		this.shiftTolerance = shiftTolerance;
+	}
+
+	/**
+	 * Gets the inertia tolerance: clustering stops once the inertia
+	 * improves by less than this fraction of the previous inertia
+	 * (0 to not check it).
+	 * @return double.
+	 */
+	public double getInertiaTolerance() {
+		return inertiaTolerance;
+	}
+
+	public void setInertiaTolerance(double inertiaTolerance) {
+		this.inertiaTolerance = inertiaTolerance;
+	}
+
+	/**
+	 * Gets the reassignment tolerance: clustering stops once less
+	 * than this fraction of the rows changes its cluster (0 to not
+	 * check it).
+	 * @return double.
+	 */
+	public double getReassignmentTolerance() {
+		return reassignmentTolerance;
+	}
+
+	public void setReassignmentTolerance(double reassignmentTolerance) {
+		this.reassignmentTolerance = reassignmentTolerance;
+	}
+
+	/**
+	 * Gets the number of restarts: the number of times k-means is
+	 * run over a {@link Dataset}, keeping the run with the lowest
+	 * inertia. {@link SparseDataset}s are clustered once.
+	 * @return int.
+	 */
+	public int getNumOfRestarts() {
+		return numOfRestarts;
+	}
+
+	public void setNumOfRestarts(int numOfRestarts) {
+		this.numOfRestarts = numOfRestarts;
+	}
+
+	/**
+	 * Gets the abandon ratio: a restart is abandoned once its inertia
+	 * is greater than this ratio times the best inertia of the restarts
+	 * that have finished (0 to not abandon restarts, e.g. 1.5 to
+	 * abandon restarts that are 50% worse). Which runs have finished
+	 * depends on how the threads are scheduled, so with abandonment 
+	 * the result may differ from one call to the next.
+	 * @return double.
+	 */
+	public double getAbandonRatio() {
+		return abandonRatio;
+	}
+
+	public void setAbandonRatio(double abandonRatio) {
+		this.abandonRatio = abandonRatio;
+	}
+
+	/**
+	 * Gets the {@link Random} that the seeds of each restart 
+	 * are drawn from.
+	 * @return {@link Random}.
+	 */
+	public Random getRandom() {
+		if(null == random)
+			random = new Random(37L);
+		return random;
+	}
+
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * Gets the {@link KmeansListener} that is told about the
+	 * progress of each run.
+	 * @return {@link KmeansListener} (null if none).
+	 */
+	public KmeansListener getListener() {
+		return listener;
+	}
+
+	public void setListener(KmeansListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Gets the {@link CancellationToken} that the runs check
+	 * after each iteration.
+	 * @return {@link CancellationToken} (null if none).
+	 */
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * Gets the deadline, in milliseconds since the epoch (as 
+	 * {@link System#currentTimeMillis()}): a run that is still going 
+	 * at the deadline stops after its current iteration with 
+	 * {@link StopReason#DEADLINE} (0 for no deadline). Every run 
+	 * does at least one iteration, so that it has clusters to return.
+	 * @return long.
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Checks if {@link KmeansMetrics} are collected for each run 
+	 * (see {@link KmeansResult#getMetrics()}). Collecting them reads
+	 * the clock a few times per iteration.
+	 * @return boolean.
+	 */
+	public boolean isCollectingMetrics() {
+		return collectingMetrics;
+	}
+
+	public void setCollectingMetrics(boolean collectingMetrics) {
+		this.collectingMetrics = collectingMetrics;
+	}
+
+	/**
+	 * Gets the number of threads used for the assignment, if
+	 * no {@link ForkJoinPool} is set.
+	 * @return int.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = (parallelism < 1) ? 1 : parallelism;
+	}
+
+	/**
+	 * Gets the {@link ForkJoinPool} used for the assignment. If
+	 * none is set, a pool with the parallelism is created for
+	 * each call when the parallelism is greater than 1.
+	 * @return {@link ForkJoinPool}.
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+}
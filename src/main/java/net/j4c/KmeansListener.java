@@ -0,0 +1,45 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+/**
+ * Listens to the progress of a clustering run. The elapsed times 
+ * are in nanoseconds since the run started. If a clustering is 
+ * restarted (see {@link KmeansClusterer#getNumOfRestarts()}), every
+ * run reports to the same listener, possibly from several threads
+ * at once. A listener should return quickly, since the run waits 
+ * for it.
+ * @author Jee Vang
+ *
+ */
+public interface KmeansListener {
+
+	/**
+	 * Called once the seeds of a run are picked.
+	 * @param numOfSeeds Number of seeds.
+	 * @param elapsedTime Elapsed time in nanoseconds.
+	 */
+	public void seeded(int numOfSeeds, long elapsedTime);
+	
+	/**
+	 * Called after each iteration of a run.
+	 * @param iteration Number of the iteration (starting at 1).
+	 * @param numOfChanges Number of rows that changed their cluster.
+	 * @param inertia Inertia after the iteration.
+	 * @param elapsedTime Elapsed time in nanoseconds.
+	 */
+	public void iterated(int iteration, int numOfChanges, double inertia, long elapsedTime);
+}
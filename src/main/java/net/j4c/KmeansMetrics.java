@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+/**
+ * Where the time of a clustering run went: seeding, and the
+ * assignment and recomputation of each iteration, in nanoseconds,
+ * together with the number of rows that changed their cluster in
+ * each iteration. The number of distances computed is given by
+ * {@link KmeansResult#getNumOfDistances()}; to also count those of
+ * seeding, wrap the distance measures in a 
+ * {@link net.j4c.distance.CountingDistanceMeasure}.
+ * <p>
+ * The time of an assignment includes waiting for all the blocks 
+ * of the assignment, and the time of a recomputation includes 
+ * checking the stopping rules (and calling the {@link KmeansListener}).
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class KmeansMetrics {
+
+	private long seedingTime;
+	private long[] assignmentTimes;
+	private long[] recomputationTimes;
+	private int[] numOfChanges;
+	
+	/**
+	 * Constructor.
+	 * @param seedingTime Time to pick the seeds.
+	 * @param assignmentTimes Time of the assignment of each iteration.
+	 * @param recomputationTimes Time of the recomputation of each iteration.
+	 * @param numOfChanges Number of rows that changed their cluster in each iteration.
+	 */
+	public KmeansMetrics(long seedingTime, long[] assignmentTimes, long[] recomputationTimes, int[] numOfChanges) {
+		this.seedingTime = seedingTime;
+		this.assignmentTimes = assignmentTimes;
+		this.recomputationTimes = recomputationTimes;
+		this.numOfChanges = numOfChanges;
+	}
+	
+	/**
+	 * Gets the time to pick the seeds, in nanoseconds.
+	 * @return long.
+	 */
+	public long getSeedingTime() {
+		return seedingTime;
+	}
+	
+	/**
+	 * Gets the time of the assignment of each iteration, in nanoseconds.
+	 * @return Times.
+	 */
+	public long[] getAssignmentTimes() {
+		return assignmentTimes;
+	}
+	
+	/**
+	 * Gets the time of the recomputation of each iteration, in nanoseconds.
+	 * @return Times.
+	 */
+	public long[] getRecomputationTimes() {
+		return recomputationTimes;
+	}
+	
+	/**
+	 * Gets the number of rows that changed their cluster in each iteration.
+	 * @return Numbers of changes.
+	 */
+	public int[] getNumOfChanges() {
+		return numOfChanges;
+	}
+	
+	/**
+	 * Gets the total time of the assignments, in nanoseconds.
+	 * @return long.
+	 */
+	public long getAssignmentTime() {
+		long total = 0L;
+		for(long time : assignmentTimes) {
+			total += time;
+		}
+		return total;
+	}
+	
+	/**
+	 * Gets the total time of the recomputations, in nanoseconds.
+	 * @return long.
+	 */
+	public long getRecomputationTime() {
+		long total = 0L;
+		for(long time : recomputationTimes) {
+			total += time;
+		}
+		return total;
+	}
+	
+	public String toString() {
+		return (new StringBuilder())
+			.append("[seeding=")
+			.append(seedingTime)
+			.append("ns,assignment=")
+			.append(getAssignmentTime())
+			.append("ns,recomputation=")
+			.append(getRecomputationTime())
+			.append("ns,iterations=")
+			.append(numOfChanges.length)
+			.append("]")
+			.toString();
+	}
+}
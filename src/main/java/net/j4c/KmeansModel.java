@@ -0,0 +1,348 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import net.j4c.centroid.Centroid;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+
+/**
+ * A trained k-means model: the centroids (a k x d matrix) and the
+ * {@link DatasetDistanceMeasure}, without the rows they were trained on. 
+ * New rows are assigned to their closest centroid (the first one, 
+ * if there are ties), as during training.
+ * <p>
+ * A model is immutable (the centroids are copied), and predicting 
+ * does not allocate, so one model can serve any number of threads,
+ * as long as the {@link DatasetDistanceMeasure} is safe to use from multiple
+ * threads (as {@link net.j4c.distance.MinkowskiDistance} and 
+ * {@link net.j4c.distance.CosineDistance} are). A batch of rows can
+ * also be split into blocks over a {@link ForkJoinPool}.
+ * </p>
+ * <p>
+ * A model may also have the number of training rows of each cluster
+ * and their variance; these are kept when the model is saved with 
+ * {@link KmeansModelWriter}.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class KmeansModel {
+
+	private static final int BLOCK_SIZE = 4096;
+	
+	private final int k;
+	private final int dimension;
+	private final double[] centroids;
+	private final int[] counts;
+	private final double[] variances;
+	private final DatasetDistanceMeasure distanceMeasure;
+	
+	/**
+	 * Constructor.
+	 * @param centroids {@link DenseDataset} where each row is a centroid (copied).
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 */
+	public KmeansModel(DenseDataset centroids, DatasetDistanceMeasure distanceMeasure) {
+		this(centroids.size(), centroids.getDimension(), 
+				Arrays.copyOf(centroids.getValues(), centroids.size() * centroids.getDimension()), 
+				null, null, distanceMeasure);
+	}
+	
+	/**
+	 * Constructor, without copying the values.
+	 * @param k Number of centroids.
+	 * @param dimension Number of columns.
+	 * @param centroids Row-major values of the centroids.
+	 * @param counts Number of rows of each cluster (may be null).
+	 * @param variances Variance of each cluster (may be null).
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 */
+	KmeansModel(int k, int dimension, double[] centroids, int[] counts, double[] variances, DatasetDistanceMeasure distanceMeasure) {
+		if(k < 1)
+			throw new IllegalArgumentException("a model needs at least one centroid");
+		if(null == distanceMeasure)
+			throw new IllegalArgumentException("a model needs a distance measure");
+		if((null != counts && counts.length != k) || (null != variances && variances.length != k))
+			throw new IllegalArgumentException("expected one count and variance per centroid");
+		
+		this.k = k;
+		this.dimension = dimension;
+		this.centroids = centroids;
+		this.counts = counts;
+		this.variances = variances;
+		this.distanceMeasure = distanceMeasure;
+	}
+	
+	/**
+	 * Creates a {@link KmeansModel} from the centroids of a {@link KmeansResult}.
+	 * @param result {@link KmeansResult}.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure} the result was clustered with.
+	 * @return {@link KmeansModel}.
+	 */
+	public static KmeansModel fromResult(KmeansResult<DenseDataset> result, DatasetDistanceMeasure distanceMeasure) {
+		return new KmeansModel(result.getCentroids(), distanceMeasure);
+	}
+	
+	/**
+	 * Creates a {@link KmeansModel} from the centroids of a {@link KmeansResult},
+	 * with the number of rows of each cluster and their variance: the mean 
+	 * squared (Euclidean) distance of the rows to their centroid.
+	 * @param result {@link KmeansResult}.
+	 * @param data {@link Dataset} the result was clustered from.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure} the result was clustered with.
+	 * @return {@link KmeansModel}.
+	 */
+	public static KmeansModel fromResult(KmeansResult<DenseDataset> result, Dataset data, DatasetDistanceMeasure distanceMeasure) {
+		DenseDataset centroids = result.getCentroids();
+		int k = centroids.size();
+		int dimension = centroids.getDimension();
+		double[] values = Arrays.copyOf(centroids.getValues(), k * dimension);
+		int[] labels = result.getLabels();
+		int[] counts = new int[k];
+		double[] variances = new double[k];
+		
+		double[] buffer = new double[dimension];
+		for(int row=0; row < labels.length; row++) {
+			int label = labels[row];
+			data.getRow(row, buffer);
+			int offset = label * dimension;
+			double sum = 0.0d;
+			for(int i=0; i < dimension; i++) {
+				double d = buffer[i] - values[offset + i];
+				sum += d * d;
+			}
+			variances[label] += sum;
+			counts[label]++;
+		}
+		for(int label=0; label < k; label++) {
+			if(counts[label] > 0)
+				variances[label] /= counts[label];
+		}
+		
+		return new KmeansModel(k, dimension, values, counts, variances, distanceMeasure);
+	}
+	
+	/**
+	 * Creates a {@link KmeansModel} from a {@link List} of {@link Centroid}
+	 * (without their {@link ClusterItem}s). Missing indexes are 0.
+	 * @param centroids {@link List} of {@link Centroid}.
+	 * @param dimension Number of columns.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 * @return {@link KmeansModel}.
+	 */
+	public static KmeansModel fromCentroids(List<Centroid> centroids, int dimension, DatasetDistanceMeasure distanceMeasure) {
+		double[] values = new double[centroids.size() * dimension];
+		int offset = 0;
+		for(Centroid centroid : centroids) {
+			for(Integer index : centroid.getIndexes()) {
+				if(index.intValue() >= dimension)
+					throw new IllegalArgumentException("index " + index + " of centroid " + centroid.getId() + " is out of range");
+				values[offset + index.intValue()] = centroid.getValue(index);
+			}
+			offset += dimension;
+		}
+		return new KmeansModel(centroids.size(), dimension, values, null, null, distanceMeasure);
+	}
+	
+	/**
+	 * Gets the index of the closest centroid of a row.
+	 * @param row Values of the row.
+	 * @return int.
+	 */
+	public int predict(double[] row) {
+		return predict(row, 0);
+	}
+	
+	/**
+	 * Gets the index of the closest centroid of a row.
+	 * @param values Values.
+	 * @param offset Offset of the row in the values.
+	 * @return int.
+	 */
+	public int predict(double[] values, int offset) {
+		double min = 0.0d;
+		int closest = 0;
+		for(int c=0; c < k; c++) {
+			double dist = distanceMeasure.getDistance(values, offset, centroids, c * dimension, dimension);
+			if(0 == c || dist < min) {
+				min = dist;
+				closest = c;
+			}
+		}
+		return closest;
+	}
+	
+	/**
+	 * Gets the index of the closest centroid of each row.
+	 * @param rows Row-major values of the rows (labels.length rows).
+	 * @param labels Index of the closest centroid of each row (output).
+	 */
+	public void predict(double[] rows, int[] labels) {
+		predict(rows, labels, null, 0, labels.length);
+	}
+	
+	/**
+	 * Gets the index of, and the distance to, the closest centroid 
+	 * of each row.
+	 * @param rows Row-major values of the rows (labels.length rows).
+	 * @param labels Index of the closest centroid of each row (output).
+	 * @param distances Distance of each row to its closest centroid 
+	 * (output, may be null).
+	 */
+	public void predict(double[] rows, int[] labels, double[] distances) {
+		predict(rows, labels, distances, 0, labels.length);
+	}
+	
+	/**
+	 * Gets the index of, and the distance to, the closest centroid 
+	 * of each row, splitting the rows into blocks that are predicted
+	 * concurrently.
+	 * @param rows Row-major values of the rows (labels.length rows).
+	 * @param labels Index of the closest centroid of each row (output).
+	 * @param distances Distance of each row to its closest centroid 
+	 * (output, may be null).
+	 * @param pool {@link ForkJoinPool}.
+	 */
+	public void predict(double[] rows, int[] labels, double[] distances, ForkJoinPool pool) {
+		pool.invoke(new PredictTask(rows, labels, distances, 0, labels.length));
+	}
+	
+	/**
+	 * Predicts a range of rows.
+	 * @param rows Row-major values of the rows.
+	 * @param labels Labels (output).
+	 * @param distances Distances (output, may be null).
+	 * @param from First row (inclusive).
+	 * @param to Last row (exclusive).
+	 */
+	private void predict(double[] rows, int[] labels, double[] distances, int from, int to) {
+		for(int row=from; row < to; row++) {
+			int offset = row * dimension;
+			double min = 0.0d;
+			int closest = 0;
+			for(int c=0; c < k; c++) {
+				double dist = distanceMeasure.getDistance(rows, offset, centroids, c * dimension, dimension);
+				if(0 == c || dist < min) {
+					min = dist;
+					closest = c;
+				}
+			}
+			labels[row] = closest;
+			if(null != distances)
+				distances[row] = min;
+		}
+	}
+	
+	/**
+	 * Predicts a range of rows, splitting it in half while it is
+	 * larger than a block.
+	 */
+	private class PredictTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private double[] rows;
+		private int[] labels;
+		private double[] distances;
+		private int from;
+		private int to;
+		
+		private PredictTask(double[] rows, int[] labels, double[] distances, int from, int to) {
+			this.rows = rows;
+			this.labels = labels;
+			this.distances = distances;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= BLOCK_SIZE) {
+				predict(rows, labels, distances, from, to);
+				return;
+			}
+			
+			int mid = (from + to) >>> 1;
+			invokeAll(new PredictTask(rows, labels, distances, from, mid), 
+					new PredictTask(rows, labels, distances, mid, to));
+		}
+	}
+	
+	/**
+	 * Gets the number of centroids.
+	 * @return int.
+	 */
+	public int getK() {
+		return k;
+	}
+	
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+	
+	/**
+	 * Gets the {@link DatasetDistanceMeasure}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure getDistanceMeasure() {
+		return distanceMeasure;
+	}
+	
+	/**
+	 * Gets the value of a centroid in a column.
+	 * @param label Index of the centroid.
+	 * @param col Column.
+	 * @return double.
+	 */
+	public double getValue(int label, int col) {
+		return centroids[label * dimension + col];
+	}
+	
+	/**
+	 * Gets a copy of the number of training rows of each cluster.
+	 * @return Counts, or null if the model does not have them.
+	 */
+	public int[] getCounts() {
+		return (null == counts) ? null : counts.clone();
+	}
+	
+	/**
+	 * Gets a copy of the variance of each cluster: the mean squared 
+	 * (Euclidean) distance of its training rows to the centroid.
+	 * @return Variances, or null if the model does not have them.
+	 */
+	public double[] getVariances() {
+		return (null == variances) ? null : variances.clone();
+	}
+	
+	/**
+	 * Gets a copy of the centroids.
+	 * @return {@link DenseDataset} where each row is a centroid.
+	 */
+	public DenseDataset getCentroids() {
+		return new DenseDataset(k, dimension, centroids.clone());
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import net.j4c.distance.DistanceMeasureType;
+
+/**
+ * Reads a binary model file written by {@link KmeansModelWriter}.
+ * The file is memory-mapped and the centroids are copied onto the
+ * heap with a single bulk read, so a model loads about as fast as 
+ * the OS can page in the file (which is usually already cached); 
+ * nothing is parsed.
+ * @author Jee Vang
+ *
+ */
+public class KmeansModelReader {
+
+	private KmeansModelReader() { }
+	
+	/**
+	 * Reads a {@link KmeansModel} from a file.
+	 * @param file {@link File}.
+	 * @return {@link KmeansModel}.
+	 * @throws IOException
+	 */
+	public static KmeansModel read(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			long length = channel.size();
+			if(length < KmeansModelWriter.HEADER_SIZE)
+				throw new IOException("file is too short to have a header");
+			if(length > Integer.MAX_VALUE)
+				throw new IOException("file is too large = " + length + " bytes");
+			
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if(KmeansModelWriter.MAGIC != buffer.getInt())
+				throw new IOException("not a binary model file");
+			int version = buffer.getInt();
+			if(KmeansModelWriter.VERSION != version)
+				throw new IOException("unsupported version = " + version);
+			
+			int k = buffer.getInt();
+			int dimension = buffer.getInt();
+			DistanceMeasureType type = DistanceMeasureType.fromId(buffer.getInt());
+			int flags = buffer.getInt();
+			double parameter = buffer.getDouble();
+			if(k < 1 || dimension < 0)
+				throw new IOException("unsupported k = " + k + " and dimension = " + dimension);
+			
+			long expected = KmeansModelWriter.HEADER_SIZE + (long)k * dimension * 8L;
+			if(0 != (flags & KmeansModelWriter.FLAG_VARIANCES))
+				expected += k * 8L;
+			if(0 != (flags & KmeansModelWriter.FLAG_COUNTS))
+				expected += k * 4L;
+			if(length < expected)
+				throw new IOException("expected at least " + expected + " bytes but file has " + length);
+			
+			double[] centroids = new double[k * dimension];
+			buffer.asDoubleBuffer().get(centroids);
+			buffer.position(buffer.position() + centroids.length * 8);
+			
+			double[] variances = null;
+			if(0 != (flags & KmeansModelWriter.FLAG_VARIANCES)) {
+				variances = new double[k];
+				buffer.asDoubleBuffer().get(variances);
+				buffer.position(buffer.position() + k * 8);
+			}
+			
+			int[] counts = null;
+			if(0 != (flags & KmeansModelWriter.FLAG_COUNTS)) {
+				counts = new int[k];
+				buffer.asIntBuffer().get(counts);
+			}
+			
+			return new KmeansModel(k, dimension, centroids, counts, variances, type.newInstance(parameter));
+		} finally {
+			in.close();
+		}
+	}
+}
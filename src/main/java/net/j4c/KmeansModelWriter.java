@@ -0,0 +1,138 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import net.j4c.distance.DistanceMeasure;
+import net.j4c.distance.DistanceMeasureType;
+
+/**
+ * Writes a binary model file that can be read with
+ * {@link KmeansModelReader}. The file is a 32 byte header 
+ * followed by the row-major values of the centroids (doubles), 
+ * the variances (k doubles, optional) and the counts (k ints, 
+ * optional), all little-endian.
+ * <ul>
+ *  <li>magic (int)</li>
+ *  <li>version (int)</li>
+ *  <li>number of centroids k (int)</li>
+ *  <li>dimension (int)</li>
+ *  <li>distance measure id (int), see {@link DistanceMeasureType}</li>
+ *  <li>flags (int): 1 if there are counts, 2 if there are variances</li>
+ *  <li>distance measure parameter (double), e.g. the order of 
+ *  {@link net.j4c.distance.MinkowskiDistance}</li>
+ * </ul>
+ * Only the {@link DistanceMeasure}s of {@link DistanceMeasureType}
+ * can be written.
+ * @author Jee Vang
+ *
+ */
+public class KmeansModelWriter {
+
+	/**
+	 * Magic number at the start of the file ("J4CM").
+	 */
+	public static final int MAGIC = 0x4A34434D;
+	/**
+	 * Version of the file format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * Size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+	/**
+	 * Flag for a file with the number of rows of each cluster.
+	 */
+	public static final int FLAG_COUNTS = 1;
+	/**
+	 * Flag for a file with the variance of each cluster.
+	 */
+	public static final int FLAG_VARIANCES = 2;
+	
+	private KmeansModelWriter() { }
+	
+	/**
+	 * Writes a {@link KmeansModel} to a file.
+	 * @param model {@link KmeansModel}.
+	 * @param file {@link File}.
+	 * @throws IOException
+	 */
+	public static void write(KmeansModel model, File file) throws IOException {
+		DistanceMeasure distanceMeasure = model.getDistanceMeasure();
+		DistanceMeasureType type = DistanceMeasureType.of(distanceMeasure);
+		int k = model.getK();
+		int dimension = model.getDimension();
+		int[] counts = model.getCounts();
+		double[] variances = model.getVariances();
+		
+		int flags = 0;
+		long length = HEADER_SIZE + (long)k * dimension * 8L;
+		if(null != variances) {
+			flags |= FLAG_VARIANCES;
+			length += k * 8L;
+		}
+		if(null != counts) {
+			flags |= FLAG_COUNTS;
+			length += k * 4L;
+		}
+		if(length > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("model is too large = " + length + " bytes");
+		
+		//the model is small enough to be written in one go
+		ByteBuffer buffer = ByteBuffer.allocate((int)length).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(k);
+		buffer.putInt(dimension);
+		buffer.putInt(type.getId());
+		buffer.putInt(flags);
+		buffer.putDouble(type.getParameter(distanceMeasure));
+		for(int label=0; label < k; label++) {
+			for(int col=0; col < dimension; col++) {
+				buffer.putDouble(model.getValue(label, col));
+			}
+		}
+		if(null != variances) {
+			for(int label=0; label < k; label++) {
+				buffer.putDouble(variances[label]);
+			}
+		}
+		if(null != counts) {
+			for(int label=0; label < k; label++) {
+				buffer.putInt(counts[label]);
+			}
+		}
+		buffer.flip();
+		
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(0L);
+			FileChannel channel = out.getChannel();
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
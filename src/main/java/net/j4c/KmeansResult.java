@@ -0,0 +1,176 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import net.j4c.data.Dataset;
+
+/**
+ * Result of k-means clustering over a {@link Dataset}.
+ * @author Jee Vang
+ *
+ * @param <T> Type of {@link Dataset} holding the centroids.
+ */
+public class KmeansResult<T extends Dataset> {
+
+	private T centroids;
+	private int[] labels;
+	private double[] distances;
+	private int numOfIterations;
+	private double[] inertias;
+	private StopReason stopReason;
+	private long numOfDistances;
+	private long numOfSkippedDistances;
+	private KmeansMetrics metrics;
+	
+	/**
+	 * Constructor.
+	 * @param centroids {@link Dataset} where each row is a centroid.
+	 * @param labels Index of the centroid each row is assigned to.
+	 */
+	public KmeansResult(T centroids, int[] labels) {
+		this.centroids = centroids;
+		this.labels = labels;
+	}
+
+	/**
+	 * Gets the centroids.
+	 * @return {@link Dataset} where each row is a centroid.
+	 */
+	public T getCentroids() {
+		return centroids;
+	}
+
+	/**
+	 * Gets the labels. The i-th label is the index of
+	 * the centroid the i-th row is assigned to.
+	 * @return Labels.
+	 */
+	public int[] getLabels() {
+		return labels;
+	}
+
+	public void setLabels(int[] labels) {
+		this.labels = labels;
+	}
+	
+	/**
+	 * Gets the number of clusters.
+	 * @return int.
+	 */
+	public int getK() {
+		return centroids.size();
+	}
+
+	/**
+	 * Gets the distances. The i-th distance is the distance of
+	 * the i-th row to the centroid it is assigned to.
+	 * @return Distances.
+	 */
+	public double[] getDistances() {
+		return distances;
+	}
+
+	public void setDistances(double[] distances) {
+		this.distances = distances;
+	}
+
+	/**
+	 * Gets the number of iterations.
+	 * @return int.
+	 */
+	public int getNumOfIterations() {
+		return numOfIterations;
+	}
+
+	public void setNumOfIterations(int numOfIterations) {
+		this.numOfIterations = numOfIterations;
+	}
+
+	/**
+	 * Gets the inertia after each iteration (see 
+	 * {@link net.j4c.centroid.ClusterStatistics#getInertia()}).
+	 * @return Inertias.
+	 */
+	public double[] getInertias() {
+		return inertias;
+	}
+
+	public void setInertias(double[] inertias) {
+		this.inertias = inertias;
+	}
+	
+	/**
+	 * Gets the inertia after the last iteration.
+	 * @return double (NaN if there was no iteration).
+	 */
+	public double getInertia() {
+		if(null == inertias || 0 == inertias.length)
+			return Double.NaN;
+		return inertias[inertias.length - 1];
+	}
+
+	/**
+	 * Gets the {@link StopReason}.
+	 * @return {@link StopReason}.
+	 */
+	public StopReason getStopReason() {
+		return stopReason;
+	}
+
+	public void setStopReason(StopReason stopReason) {
+		this.stopReason = stopReason;
+	}
+
+	/**
+	 * Gets the number of distances computed between rows and
+	 * centroids.
+	 * @return long.
+	 */
+	public long getNumOfDistances() {
+		return numOfDistances;
+	}
+
+	public void setNumOfDistances(long numOfDistances) {
+		this.numOfDistances = numOfDistances;
+	}
+
+	/**
+	 * Gets the number of distances between rows and centroids
+	 * that a plain (Lloyd) iteration would have computed, but 
+	 * that were skipped because they could not change the result.
+	 * @return long.
+	 */
+	public long getNumOfSkippedDistances() {
+		return numOfSkippedDistances;
+	}
+
+	public void setNumOfSkippedDistances(long numOfSkippedDistances) {
+		this.numOfSkippedDistances = numOfSkippedDistances;
+	}
+
+	/**
+	 * Gets the {@link KmeansMetrics} of the run.
+	 * @return {@link KmeansMetrics} (null if not collected, see
+	 * {@link KmeansClusterer#isCollectingMetrics()}).
+	 */
+	public KmeansMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(KmeansMetrics metrics) {
+		this.metrics = metrics;
+	}
+}
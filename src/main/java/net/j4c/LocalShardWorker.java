@@ -0,0 +1,170 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.PointSource;
+import net.j4c.distance.DatasetDistanceMeasure;
+
+/**
+ * A {@link ShardWorker} in this process, over a {@link PointSource} 
+ * (e.g. a file opened with {@link net.j4c.data.CsvLoader#open(java.io.File)})
+ * or a {@link Dataset} (e.g. a {@link net.j4c.data.MappedDataset}). 
+ * Each iteration reads the rows from the first to the last, one 
+ * buffer at a time, so only the buffer is kept in memory.
+ * @author Jee Vang
+ *
+ */
+public class LocalShardWorker implements ShardWorker, Closeable {
+
+	private PointSource source;
+	private Dataset data;
+	private int bufferSize = 1024;
+	//next row of the dataset
+	private int position;
+	//shifts of the statistics, the first centroids
+	private double[] shifts;
+	
+	/**
+	 * Constructor.
+	 * @param source {@link PointSource}, read in order and reset 
+	 * for every iteration.
+	 */
+	public LocalShardWorker(PointSource source) {
+		this.source = source;
+	}
+	
+	/**
+	 * Constructor.
+	 * @param data {@link Dataset}, read in order for every iteration.
+	 */
+	public LocalShardWorker(Dataset data) {
+		this.data = data;
+	}
+	
+	@Override
+	public int getDimension() throws IOException {
+		return (null == source) ? data.getDimension() : source.getDimension();
+	}
+
+	@Override
+	public DenseDataset sample(int maxRows) throws IOException {
+		int dimension = getDimension();
+		double[] values = new double[maxRows * dimension];
+		reset();
+		int numRows = 0;
+		while(numRows < maxRows) {
+			int read = read(values, numRows * dimension, maxRows - numRows);
+			if(0 == read)
+				break;
+			numRows += read;
+		}
+		return new DenseDataset(numRows, dimension, values);
+	}
+
+	@Override
+	public ClusterStatistics assign(DenseDataset centroids, DatasetDistanceMeasure distanceMeasure) throws IOException {
+		int dimension = getDimension();
+		int numCentroids = centroids.size();
+		double[] centroidValues = centroids.getValues();
+		double[] buffer = new double[bufferSize * dimension];
+		double[] row = new double[dimension];
+		//the statistics are relative to the first centroids (the 
+		//seeds), which are closer to the means than the origin; they
+		//are kept so that the same rows give the same statistics
+		if(null == shifts || shifts.length != centroidValues.length)
+			shifts = Arrays.copyOf(centroidValues, centroidValues.length);
+		ClusterStatistics statistics = new ClusterStatistics(numCentroids, dimension, shifts);
+		
+		reset();
+		int read;
+		while((read = read(buffer, 0, bufferSize)) > 0) {
+			for(int i=0; i < read; i++) {
+				int offset = i * dimension;
+				double min = 0.0d;
+				int label = 0;
+				for(int c=0; c < numCentroids; c++) {
+					double dist = distanceMeasure.getDistance(buffer, offset, centroidValues, c * dimension, dimension);
+					if(0 == c || dist < min) {
+						min = dist;
+						label = c;
+					}
+				}
+				
+				System.arraycopy(buffer, offset, row, 0, dimension);
+				statistics.add(label, row);
+			}
+		}
+		return statistics;
+	}
+	
+	/**
+	 * Starts reading again from the first row.
+	 * @throws IOException
+	 */
+	private void reset() throws IOException {
+		if(null == source)
+			position = 0;
+		else
+			source.reset();
+	}
+	
+	/**
+	 * Reads the next rows into the buffer.
+	 * @param values Buffer.
+	 * @param offset Index in the buffer of the first value.
+	 * @param maxRows Maximum number of rows to read.
+	 * @return Number of rows read, 0 if there are no more rows.
+	 * @throws IOException
+	 */
+	private int read(double[] values, int offset, int maxRows) throws IOException {
+		if(null != source)
+			return source.read(values, offset, maxRows);
+		
+		int dimension = data.getDimension();
+		int numRows = Math.min(maxRows, data.size() - position);
+		double[] row = new double[dimension];
+		for(int i=0; i < numRows; i++) {
+			data.getRow(position++, row);
+			System.arraycopy(row, 0, values, offset + i * dimension, dimension);
+		}
+		return numRows;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(null != source)
+			source.close();
+	}
+	
+	/**
+	 * Gets the number of rows read at a time.
+	 * @return int.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+}
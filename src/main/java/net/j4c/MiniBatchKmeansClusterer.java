@@ -0,0 +1,352 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.j4c.centroid.Centroid;
+import net.j4c.data.Dataset;
+import net.j4c.data.DatasetPointSource;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.PointSource;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+import net.j4c.seeding.KmppSeedInitializer;
+
+/**
+ * Mini-batch k-means clustering 
+ * (Sculley, "Web-Scale K-Means Clustering", 2010).
+ * <p>
+ * Instead of a pass over all rows, each iteration reads a batch
+ * of rows from a {@link PointSource}, assigns them to their closest
+ * centroids, and moves each centroid towards its rows with a 
+ * learning rate of 1 / (number of rows the centroid has been 
+ * assigned so far). The seeds are picked from the first rows that 
+ * are read (see {@link #getSampleSize(int)}).
+ * </p>
+ * <p>
+ * Clustering stops after the maximum number of batches, or earlier 
+ * if the smoothed inertia (the mean squared distance of the rows of
+ * a batch to their centroids, as an exponentially weighted average) 
+ * improves by less than the tolerance, or has not reached a new 
+ * minimum for patience batches.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class MiniBatchKmeansClusterer {
+
+	//weight of each batch in the smoothed inertia
+	private static final double SMOOTHING = 0.1d;
+	
+	private DatasetDistanceMeasure distanceMeasure;
+	private DatasetSeedInitializer seedInitializer;
+	private Random random;
+	private int batchSize = 1024;
+	private double tolerance = 0.0d;
+	private int patience = 10;
+	
+	/**
+	 * Gets a list of {@link Centroid}.
+	 * @param k Number of clusters.
+	 * @param maxBatches Maximum number of batches.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link List} of {@link Centroid}.
+	 */
+	public List<Centroid> getClusters(int k, int maxBatches, List<ClusterItem> clusterItems) {
+		KmeansResult<DenseDataset> result = getClusters(k, maxBatches, DenseDataset.fromClusterItems(clusterItems));
+		return KmeansClusterer.getCentroids(result.getCentroids(), result.getLabels(), clusterItems);
+	}
+	
+	/**
+	 * Gets the clusters of a {@link Dataset}. The batches are sampled
+	 * at random (see {@link DatasetPointSource}); once the centroids
+	 * are final, every row is labeled with its closest centroid 
+	 * (and the distance to it).
+	 * @param k Number of clusters.
+	 * @param maxBatches Maximum number of batches.
+	 * @param data {@link Dataset}.
+	 * @return {@link KmeansResult}.
+	 * @throws IllegalArgumentException If the {@link Dataset} is a 
+	 * {@link net.j4c.data.SparseDataset}.
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxBatches, Dataset data) {
+		KmeansClusterer.checkDense(data);
+		KmeansResult<DenseDataset> result;
+		try {
+			result = getClusters(k, maxBatches, new DatasetPointSource(data, getRandom()));
+		} catch(IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		
+		DenseDataset centroids = result.getCentroids();
+		DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		int numRows = data.size();
+		int dimension = centroids.getDimension();
+		int[] labels = new int[numRows];
+		double[] distances = new double[numRows];
+		double[] buffer = new double[dimension];
+		for(int row=0; row < numRows; row++) {
+			data.getRow(row, buffer);
+			int label = getClosest(buffer, 0, centroids, distanceMeasure);
+			labels[row] = label;
+			distances[row] = distanceMeasure.getDistance(buffer, 0, centroids.getValues(), label * dimension, dimension);
+		}
+		
+		result.setLabels(labels);
+		result.setDistances(distances);
+		return result;
+	}
+	
+	/**
+	 * Gets the clusters of the rows of a {@link PointSource}. The batches
+	 * are read in order, starting over at the end of the rows, so the
+	 * rows should be in random order (e.g. a shuffled file). The rows
+	 * are not kept, so the result has no labels. Each batch counts 
+	 * as an iteration, and its inertia is the smoothed inertia.
+	 * @param k Number of clusters.
+	 * @param maxBatches Maximum number of batches.
+	 * @param source {@link PointSource}.
+	 * @return {@link KmeansResult} (with null labels and distances).
+	 * @throws IOException
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxBatches, PointSource source) throws IOException {
+		int dimension = source.getDimension();
+		
+		//get the initial seeds from the first rows
+		int sampleSize = getSampleSize(k);
+		double[] sample = new double[sampleSize * dimension];
+		int numSamples = readBatch(source, sample, sampleSize);
+		DenseDataset centroids = getSeedInitializer().getSeeds(k, new DenseDataset(numSamples, dimension, sample));
+		
+		DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		int numCentroids = centroids.size();
+		double[] centroidValues = centroids.getValues();
+		long[] counts = new long[numCentroids];
+		
+		double[] batch = new double[batchSize * dimension];
+		int[] labels = new int[batchSize];
+		double[] inertias = new double[16];
+		double minInertia = Double.POSITIVE_INFINITY;
+		int numNoImprovement = 0;
+		int iteration = 0;
+		StopReason stopReason = StopReason.MAX_ITERATIONS;
+		
+		while(iteration < maxBatches && numCentroids > 0) {
+			int numRows = readBatch(source, batch, batchSize);
+			if(0 == numRows)
+				break;
+			
+			//assignment
+			double inertia = 0.0d;
+			for(int i=0; i < numRows; i++) {
+				int label = getClosest(batch, i * dimension, centroids, distanceMeasure);
+				double dist = distanceMeasure.getDistance(batch, i * dimension, centroidValues, label * dimension, dimension);
+				labels[i] = label;
+				inertia += dist * dist;
+			}
+			inertia /= numRows;
+			
+			//move the centroids with their own learning rates
+			for(int i=0; i < numRows; i++) {
+				int label = labels[i];
+				counts[label]++;
+				double rate = 1.0d / counts[label];
+				int offset = label * dimension;
+				int rowOffset = i * dimension;
+				for(int j=0; j < dimension; j++) {
+					centroidValues[offset + j] += rate * (batch[rowOffset + j] - centroidValues[offset + j]);
+				}
+			}
+			
+			//smooth the inertia
+			if(iteration == inertias.length)
+				inertias = Arrays.copyOf(inertias, 2 * inertias.length);
+			if(iteration > 0)
+				inertia = (1.0d - SMOOTHING) * inertias[iteration-1] + SMOOTHING * inertia;
+			inertias[iteration++] = inertia;
+			
+			//check the stopping criteria
+			if(iteration > 1 && tolerance > 0.0d) {
+				double previous = inertias[iteration-2];
+				if(Math.abs(previous - inertia) <= tolerance * previous) {
+					stopReason = StopReason.INERTIA;
+					break;
+				}
+			}
+			
+			if(inertia < minInertia) {
+				minInertia = inertia;
+				numNoImprovement = 0;
+			} else if(patience > 0 && ++numNoImprovement >= patience) {
+				stopReason = StopReason.NO_IMPROVEMENT;
+				break;
+			}
+		}
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, null);
+		result.setNumOfIterations(iteration);
+		result.setInertias(Arrays.copyOf(inertias, iteration));
+		result.setStopReason(stopReason);
+		return result;
+	}
+	
+	/**
+	 * Reads a batch of rows, starting over at the end of the rows.
+	 * @param source {@link PointSource}.
+	 * @param values Buffer.
+	 * @param maxRows Number of rows to read.
+	 * @return Number of rows read (less than maxRows only if 
+	 * the source has fewer rows).
+	 * @throws IOException
+	 */
+	private static int readBatch(PointSource source, double[] values, int maxRows) throws IOException {
+		int dimension = source.getDimension();
+		int numRows = 0;
+		boolean reset = false;
+		while(numRows < maxRows) {
+			int read = source.read(values, numRows * dimension, maxRows - numRows);
+			if(read > 0) {
+				numRows += read;
+				reset = false;
+			} else if(!reset) {
+				source.reset();
+				reset = true;
+			} else {
+				break;
+			}
+		}
+		return numRows;
+	}
+	
+	/**
+	 * Gets the index of the closest centroid (the first one, if
+	 * there are ties).
+	 * @param values Values.
+	 * @param offset Offset of the row in the values.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 * @return int.
+	 */
+	private static int getClosest(double[] values, int offset, DenseDataset centroids, DatasetDistanceMeasure distanceMeasure) {
+		int dimension = centroids.getDimension();
+		double[] centroidValues = centroids.getValues();
+		double min = 0.0d;
+		int closest = 0;
+		for(int index=0; index < centroids.size(); index++) {
+			double dist = distanceMeasure.getDistance(values, offset, centroidValues, index * dimension, dimension);
+			if(0 == index || dist < min) {
+				min = dist;
+				closest = index;
+			}
+		}
+		return closest;
+	}
+	
+	/**
+	 * Gets the number of rows the seeds are picked from: three 
+	 * times k, but at least one batch.
+	 * @param k Number of clusters.
+	 * @return int.
+	 */
+	public int getSampleSize(int k) {
+		return Math.max(3 * k, batchSize);
+	}
+	
+	/**
+	 * Gets the {@link DatasetDistanceMeasure}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure getDistanceMeasure() {
+		if(null == distanceMeasure)
+			distanceMeasure = new CosineDistance();
+		return distanceMeasure;
+	}
+
+	public void setDistanceMeasure(DatasetDistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+
+	/**
+	 * Gets the {@link DatasetSeedInitializer}.
+	 * @return {@link DatasetSeedInitializer}.
+	 */
+	public DatasetSeedInitializer getSeedInitializer() {
+		if(null == seedInitializer)
+			seedInitializer = new KmppSeedInitializer();
+		return seedInitializer;
+	}
+
+	public void setSeedInitializer(DatasetSeedInitializer seedInitializer) {
+		this.seedInitializer = seedInitializer;
+	}
+
+	/**
+	 * Gets the {@link Random} used to sample the rows of a {@link Dataset}.
+	 * @return {@link Random}.
+	 */
+	public Random getRandom() {
+		if(null == random)
+			random = new Random(37L);
+		return random;
+	}
+
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * Gets the number of rows per batch.
+	 * @return int.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the tolerance: the smallest relative improvement of the
+	 * smoothed inertia to keep going (0 to not check it).
+	 * @return double.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Gets the patience: the number of batches without a new minimum
+	 * of the smoothed inertia after which to stop (0 to not check it).
+	 * @return int.
+	 */
+	public int getPatience() {
+		return patience;
+	}
+
+	public void setPatience(int patience) {
+		this.patience = patience;
+	}
+}
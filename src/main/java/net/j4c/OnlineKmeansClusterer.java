@@ -0,0 +1,326 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+
+/**
+ * Online (sequential) k-means over an unbounded stream of rows
+ * (MacQueen, "Some Methods for Classification and Analysis of 
+ * Multivariate Observations", 1967).
+ * <p>
+ * The first k rows become the centroids. Every later row is assigned
+ * to its closest centroid (the first one, if there are ties), which
+ * moves towards the row by 1 / (weight of the centroid), so that each
+ * centroid is the (weighted) mean of the rows assigned to it. Each 
+ * row costs k distances and one centroid update, and nothing is kept
+ * per row (except in the sliding window, see below).
+ * </p>
+ * <p>
+ * Old rows can be aged out in two ways, which may be combined:
+ * with a decay, the weight of all previous rows is multiplied by
+ * (1 - decay) with every new row, so that the centroids follow an 
+ * exponentially weighted mean; with a window, the rows are kept in a
+ * ring buffer of window rows (allocated once), and the oldest row is 
+ * taken out of its centroid when a new row comes in. A centroid that
+ * has no weight left keeps its values.
+ * </p>
+ * <p>
+ * Rows may be added from multiple threads, and the centroids may be
+ * read at any time without waiting for the rows being added: each 
+ * centroid is copied when it is updated, so every centroid that is
+ * read is whole, but two centroids may be one row apart.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class OnlineKmeansClusterer {
+
+	//a centroid with less weight than this fraction of the row taken 
+	//out of it is left with rounding errors only, and is empty
+	private static final double EMPTY_PRECISION = 1e-9;
+
+	private int k;
+	private int dimension;
+	private DatasetDistanceMeasure distanceMeasure;
+	private double decay = 0.0d;
+	private int window = 0;
+	
+	private int numCentroids;
+	private double[] centroids;
+	private double[] weights;
+	private long numItems;
+	private double[] buffer;
+	//the rows of the sliding window, and their labels
+	private double[] windowValues;
+	private int[] windowLabels;
+	//copies of the centroids, for the readers
+	private AtomicReferenceArray<double[]> published;
+	private volatile int numPublished;
+	
+	/**
+	 * Constructor.
+	 * @param k Number of clusters.
+	 * @param dimension Number of columns.
+	 */
+	public OnlineKmeansClusterer(int k, int dimension) {
+		if(k < 1 || dimension < 0)
+			throw new IllegalArgumentException("k must be >= 1 and dimension must be >= 0");
+		
+		this.k = k;
+		this.dimension = dimension;
+		this.centroids = new double[k * dimension];
+		this.weights = new double[k];
+		this.buffer = new double[dimension];
+		this.published = new AtomicReferenceArray<double[]>(k);
+	}
+	
+	/**
+	 * Adds a row.
+	 * @param values Values.
+	 * @param offset Offset of the row in the values.
+	 * @return Index of the centroid the row is assigned to.
+	 */
+	public synchronized int add(double[] values, int offset) {
+		if(0L == numItems && window > 0) {
+			windowValues = new double[window * dimension];
+			windowLabels = new int[window];
+		}
+		
+		//age out the previous rows
+		double retention = 1.0d - decay;
+		if(decay > 0.0d) {
+			for(int c=0; c < numCentroids; c++) {
+				weights[c] *= retention;
+			}
+		}
+		if(window > 0 && numItems >= window) {
+			int position = (int)(numItems % window);
+			//the weight the oldest row has left after the decay
+			double weight = (decay > 0.0d) ? Math.pow(retention, window) : 1.0d;
+			remove(windowLabels[position], windowValues, position * dimension, weight);
+		}
+		
+		int label;
+		if(numCentroids < k) {
+			//the first k rows are the initial centroids
+			label = numCentroids++;
+			System.arraycopy(values, offset, centroids, label * dimension, dimension);
+			weights[label] = 1.0d;
+			publish(label);
+			numPublished = numCentroids;
+		} else {
+			label = getClosest(values, offset);
+			weights[label] += 1.0d;
+			double rate = 1.0d / weights[label];
+			int centroidOffset = label * dimension;
+			for(int j=0; j < dimension; j++) {
+				centroids[centroidOffset + j] += rate * (values[offset + j] - centroids[centroidOffset + j]);
+			}
+			publish(label);
+		}
+		
+		if(window > 0) {
+			int position = (int)(numItems % window);
+			System.arraycopy(values, offset, windowValues, position * dimension, dimension);
+			windowLabels[position] = label;
+		}
+		numItems++;
+		return label;
+	}
+	
+	/**
+	 * Adds a {@link ClusterItem}. Missing indexes are 0.
+	 * @param clusterItem {@link ClusterItem}.
+	 * @return Index of the centroid the {@link ClusterItem} is assigned to.
+	 */
+	public synchronized int add(ClusterItem clusterItem) {
+		Arrays.fill(buffer, 0.0d);
+		for(Integer index : clusterItem.getIndexes()) {
+			if(index.intValue() >= dimension)
+				throw new IllegalArgumentException("index " + index + " of " + clusterItem.getId() + " is out of range");
+			buffer[index.intValue()] = clusterItem.getValue(index);
+		}
+		return add(buffer, 0);
+	}
+	
+	/**
+	 * Adds {@link ClusterItem}s, in order.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return Index of the centroid each {@link ClusterItem} is assigned to.
+	 */
+	public int[] addAll(List<ClusterItem> clusterItems) {
+		int[] labels = new int[clusterItems.size()];
+		int i = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			labels[i++] = add(clusterItem);
+		}
+		return labels;
+	}
+	
+	/**
+	 * Takes a row, with the weight it has left, out of a centroid.
+	 * @param label Index of the centroid.
+	 * @param values Values.
+	 * @param offset Offset of the row in the values.
+	 * @param weight Weight of the row.
+	 */
+	private void remove(int label, double[] values, int offset, double weight) {
+		double remaining = weights[label] - weight;
+		if(remaining <= weight * EMPTY_PRECISION) {
+			//keep the values of a centroid without weight
+			weights[label] = 0.0d;
+			return;
+		}
+		
+		double rate = weight / remaining;
+		int centroidOffset = label * dimension;
+		for(int j=0; j < dimension; j++) {
+			centroids[centroidOffset + j] += rate * (centroids[centroidOffset + j] - values[offset + j]);
+		}
+		weights[label] = remaining;
+		publish(label);
+	}
+	
+	/**
+	 * Publishes a copy of a centroid for the readers.
+	 * @param label Index of the centroid.
+	 */
+	private void publish(int label) {
+		int centroidOffset = label * dimension;
+		published.set(label, Arrays.copyOfRange(centroids, centroidOffset, centroidOffset + dimension));
+	}
+	
+	/**
+	 * Gets the index of the closest centroid (the first one, if
+	 * there are ties).
+	 * @param values Values.
+	 * @param offset Offset of the row in the values.
+	 * @return int.
+	 */
+	private int getClosest(double[] values, int offset) {
+		DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		double min = 0.0d;
+		int closest = 0;
+		for(int c=0; c < numCentroids; c++) {
+			double dist = distanceMeasure.getDistance(values, offset, centroids, c * dimension, dimension);
+			if(0 == c || dist < min) {
+				min = dist;
+				closest = c;
+			}
+		}
+		return closest;
+	}
+	
+	/**
+	 * Gets a copy of the current centroids (fewer than k until 
+	 * k rows have been added).
+	 * @return {@link DenseDataset} where each row is a centroid.
+	 */
+	public DenseDataset getCentroids() {
+		int numCentroids = numPublished;
+		double[] values = new double[numCentroids * dimension];
+		for(int c=0; c < numCentroids; c++) {
+			System.arraycopy(published.get(c), 0, values, c * dimension, dimension);
+		}
+		return new DenseDataset(numCentroids, dimension, values);
+	}
+	
+	/**
+	 * Gets the current weight of a centroid: the number of rows 
+	 * assigned to it, less what has been aged out.
+	 * @param label Index of the centroid.
+	 * @return double.
+	 */
+	public synchronized double getWeight(int label) {
+		return weights[label];
+	}
+	
+	/**
+	 * Gets the number of rows that have been added.
+	 * @return long.
+	 */
+	public synchronized long getNumOfItems() {
+		return numItems;
+	}
+	
+	/**
+	 * Gets the number of clusters.
+	 * @return int.
+	 */
+	public int getK() {
+		return k;
+	}
+	
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+	
+	/**
+	 * Gets the {@link DatasetDistanceMeasure}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public synchronized DatasetDistanceMeasure getDistanceMeasure() {
+		if(null == distanceMeasure)
+			distanceMeasure = new CosineDistance();
+		return distanceMeasure;
+	}
+
+	public synchronized void setDistanceMeasure(DatasetDistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+
+	/**
+	 * Gets the decay: the fraction of the weight of the previous 
+	 * rows that is lost with every new row (0 to not decay).
+	 * @return double.
+	 */
+	public synchronized double getDecay() {
+		return decay;
+	}
+
+	public synchronized void setDecay(double decay) {
+		if(decay < 0.0d || decay >= 1.0d)
+			throw new IllegalArgumentException("decay must be in [0, 1)");
+		this.decay = decay;
+	}
+
+	/**
+	 * Gets the window: the number of most recent rows the centroids
+	 * are the means of (0 for all rows). It can only be set before 
+	 * the first row is added.
+	 * @return int.
+	 */
+	public synchronized int getWindow() {
+		return window;
+	}
+
+	public synchronized void setWindow(int window) {
+		if(numItems > 0L)
+			throw new IllegalStateException("the window must be set before the first row");
+		this.window = window;
+	}
+}
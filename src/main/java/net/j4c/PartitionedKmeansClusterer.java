@@ -0,0 +1,302 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.centroid.MeanCentroidAnalyzer;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+import net.j4c.seeding.KmppSeedInitializer;
+
+/**
+ * K-means clustering over rows that are split into shards, which
+ * together need not fit in memory. 
+ * <p>
+ * The seeds are picked from the first rows of the shards (see 
+ * {@link #getSampleSize(int)}). Every iteration then sends the centroids
+ * to the {@link ShardWorker} of each shard, which reads its rows and
+ * sends back their {@link ClusterStatistics}; the statistics are 
+ * merged (always in the order of the shards, so the result does not 
+ * depend on the number of threads) and the centroids are recomputed 
+ * from them. Only the centroids, the statistics and the buffers of 
+ * the workers are kept in memory. Up to parallelism shards are 
+ * processed at the same time.
+ * </p>
+ * <p>
+ * The rows are not kept, so the result has no labels, and clustering
+ * has converged once an iteration leaves the centroids where they were.
+ * The shift and inertia tolerances stop clustering earlier, as for 
+ * {@link KmeansClusterer}.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class PartitionedKmeansClusterer {
+
+	private static final int MIN_SAMPLE_SIZE = 1024;
+	
+	private DatasetDistanceMeasure distanceMeasure;
+	private DatasetSeedInitializer seedInitializer;
+	private DatasetCentroidAnalyzer centroidAnalyzer;
+	private double shiftTolerance = 0.0d;
+	private double inertiaTolerance = 0.0d;
+	private int parallelism = 1;
+	
+	/**
+	 * Gets the clusters of the rows of all shards.
+	 * @param k Number of clusters.
+	 * @param maxIterations Maximum number of iterations.
+	 * @param workers {@link List} of {@link ShardWorker}, one per shard.
+	 * @return {@link KmeansResult} (with null labels and distances).
+	 * @throws IOException
+	 */
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, List<ShardWorker> workers) throws IOException {
+		int numShards = workers.size();
+		ExecutorService executor = (parallelism > 1 && numShards > 1) ? 
+				Executors.newFixedThreadPool(Math.min(parallelism, numShards)) : null;
+		try {
+			//get the initial seeds from the first rows of each shard
+			DenseDataset centroids = getSeedInitializer().getSeeds(k, sample(k, workers));
+			
+			DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+			DatasetCentroidAnalyzer centroidAnalyzer = getCentroidAnalyzer();
+			double[] previous = new double[centroids.getValues().length];
+			//the statistics are relative to the seeds, which are 
+			//closer to the means than the origin
+			double[] shifts = Arrays.copyOf(centroids.getValues(), previous.length);
+			//the number of rows is only needed for the reassignment 
+			//tolerance, which does not apply without labels
+			Convergence convergence = new Convergence(maxIterations, shiftTolerance, inertiaTolerance, 0.0d, 0, null);
+			long numDistances = 0L;
+			
+			//now iterate over assignment and recomputation of centroids
+			while(!convergence.isStopped()) {
+				//assignment
+				ClusterStatistics statistics = assign(centroids, shifts, workers, executor);
+				int numRows = 0;
+				for(int count : statistics.getCounts()) {
+					numRows += count;
+				}
+				numDistances += (long)numRows * centroids.size();
+				
+				//recompute centroids
+				System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+				centroidAnalyzer.recompute(statistics, centroids);
+				
+				//check the stopping rules; without labels, the run has 
+				//converged once the centroids stay exactly the same (the
+				//shift need not be 0 then, e.g. a cosine distance is not)
+				boolean converged = Arrays.equals(previous, centroids.getValues());
+				double maxShift = KmeansClusterer.getMaxShift(previous, centroids, distanceMeasure);
+				convergence.update(converged, maxShift, statistics.getInertia());
+			}
+			
+			KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, null);
+			result.setNumOfDistances(numDistances);
+			convergence.setResult(result);
+			return result;
+		} finally {
+			if(null != executor)
+				executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Gets the rows to pick the seeds from: the first rows of each
+	 * shard, the sample size in total.
+	 * @param k Number of clusters.
+	 * @param workers {@link List} of {@link ShardWorker}.
+	 * @return {@link DenseDataset}.
+	 * @throws IOException
+	 */
+	private DenseDataset sample(int k, List<ShardWorker> workers) throws IOException {
+		int numShards = workers.size();
+		int sampleSize = getSampleSize(k);
+		int rowsPerShard = (sampleSize + numShards - 1) / numShards;
+		
+		List<DenseDataset> samples = new ArrayList<DenseDataset>();
+		int numRows = 0;
+		int dimension = 0;
+		for(ShardWorker worker : workers) {
+			DenseDataset sample = worker.sample(rowsPerShard);
+			samples.add(sample);
+			numRows += sample.size();
+			dimension = sample.getDimension();
+		}
+		
+		double[] values = new double[numRows * dimension];
+		int offset = 0;
+		for(DenseDataset sample : samples) {
+			int length = sample.size() * dimension;
+			System.arraycopy(sample.getValues(), 0, values, offset, length);
+			offset += length;
+		}
+		return new DenseDataset(numRows, dimension, values);
+	}
+	
+	/**
+	 * Sends the centroids to every worker, and merges the 
+	 * {@link ClusterStatistics} they send back, in order.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @param shifts Shifts of the {@link ClusterStatistics}.
+	 * @param workers {@link List} of {@link ShardWorker}.
+	 * @param executor {@link ExecutorService} (null to process the
+	 * shards one after the other).
+	 * @return {@link ClusterStatistics} of all rows.
+	 * @throws IOException
+	 */
+	private ClusterStatistics assign(final DenseDataset centroids, double[] shifts, List<ShardWorker> workers, ExecutorService executor) throws IOException {
+		final DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		ClusterStatistics statistics = new ClusterStatistics(centroids.size(), centroids.getDimension(), shifts);
+		if(null == executor) {
+			for(ShardWorker worker : workers) {
+				statistics.merge(worker.assign(centroids, distanceMeasure));
+			}
+			return statistics;
+		}
+		
+		List<Future<ClusterStatistics>> futures = new ArrayList<Future<ClusterStatistics>>();
+		for(final ShardWorker worker : workers) {
+			futures.add(executor.submit(new Callable<ClusterStatistics>() {
+				@Override
+				public ClusterStatistics call() throws Exception {
+					return worker.assign(centroids, distanceMeasure);
+				}
+			}));
+		}
+		
+		try {
+			for(Future<ClusterStatistics> future : futures) {
+				statistics.merge(future.get());
+			}
+			return statistics;
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while assigning the shards");
+		} catch(ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if(cause instanceof IOException)
+				throw (IOException)cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			throw new RuntimeException(cause);
+		}
+	}
+	
+	/**
+	 * Gets the number of rows the seeds are picked from: ten 
+	 * times k, but at least 1024.
+	 * @param k Number of clusters.
+	 * @return int.
+	 */
+	public int getSampleSize(int k) {
+		return Math.max(10 * k, MIN_SAMPLE_SIZE);
+	}
+	
+	/**
+	 * Gets the {@link DatasetDistanceMeasure}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure getDistanceMeasure() {
+		if(null == distanceMeasure)
+			distanceMeasure = new CosineDistance();
+		return distanceMeasure;
+	}
+
+	public void setDistanceMeasure(DatasetDistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+
+	/**
+	 * Gets the {@link DatasetSeedInitializer}.
+	 * @return {@link DatasetSeedInitializer}.
+	 */
+	public DatasetSeedInitializer getSeedInitializer() {
+		if(null == seedInitializer)
+			seedInitializer = new KmppSeedInitializer();
+		return seedInitializer;
+	}
+
+	public void setSeedInitializer(DatasetSeedInitializer seedInitializer) {
+		this.seedInitializer = seedInitializer;
+	}
+
+	/**
+	 * Gets the {@link DatasetCentroidAnalyzer}.
+	 * @return {@link DatasetCentroidAnalyzer}.
+	 */
+	public DatasetCentroidAnalyzer getCentroidAnalyzer() {
+		if(null == centroidAnalyzer)
+			centroidAnalyzer = new MeanCentroidAnalyzer();
+		return centroidAnalyzer;
+	}
+
+	public void setCentroidAnalyzer(DatasetCentroidAnalyzer centroidAnalyzer) {
+		this.centroidAnalyzer = centroidAnalyzer;
+	}
+
+	/**
+	 * Gets the shift tolerance: clustering stops once no centroid
+	 * moves farther than this (0 to not check it).
+	 * @return double.
+	 */
+	public double getShiftTolerance() {
+		return shiftTolerance;
+	}
+
+	public void setShiftTolerance(double shiftTolerance) {
+		this.shiftTolerance = shiftTolerance;
+	}
+
+	/**
+	 * Gets the inertia tolerance: clustering stops once the inertia
+	 * improves by less than this fraction of the previous inertia
+	 * (0 to not check it).
+	 * @return double.
+	 */
+	public double getInertiaTolerance() {
+		return inertiaTolerance;
+	}
+
+	public void setInertiaTolerance(double inertiaTolerance) {
+		this.inertiaTolerance = inertiaTolerance;
+	}
+
+	/**
+	 * Gets the number of shards that are processed at the same time.
+	 * @return int.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state shared by the runs of a restarted clustering: the
+ * lowest inertia of the runs that have finished, against which
+ * the other runs check whether they fall behind.
+ * @author Jee Vang
+ *
+ */
+class Restarts {
+
+	private double abandonRatio;
+	private AtomicLong bestInertia = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+	
+	/**
+	 * Constructor.
+	 * @param abandonRatio Ratio to the best inertia above which a 
+	 * run is abandoned (0 to never abandon a run).
+	 */
+	Restarts(double abandonRatio) {
+		this.abandonRatio = abandonRatio;
+	}
+	
+	/**
+	 * Records the inertia of a finished run.
+	 * @param inertia Inertia.
+	 */
+	void finish(double inertia) {
+		while(true) {
+			long current = bestInertia.get();
+			if(!(inertia < Double.longBitsToDouble(current)))
+				return;
+			if(bestInertia.compareAndSet(current, Double.doubleToLongBits(inertia)))
+				return;
+		}
+	}
+	
+	/**
+	 * Checks if any run has finished.
+	 * @return boolean.
+	 */
+	boolean hasFinished() {
+		return Double.longBitsToDouble(bestInertia.get()) < Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Checks if a run with the inertia is clearly behind the
+	 * best finished run.
+	 * @param inertia Inertia.
+	 * @return boolean.
+	 */
+	boolean isBehind(double inertia) {
+		return abandonRatio > 0.0d && inertia > abandonRatio * Double.longBitsToDouble(bestInertia.get());
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.IOException;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+
+/**
+ * A worker over one shard of the rows, for 
+ * {@link PartitionedKmeansClusterer}. In every iteration the 
+ * centroids are sent to every worker, and each worker sends back
+ * the {@link ClusterStatistics} of its rows (the number of rows 
+ * assigned to each centroid, their per-column sums and the sum of 
+ * their squared norms), which are merged into the new centroids. 
+ * The rows never leave the worker, so a worker may run in another
+ * process (the {@link ClusterStatistics} are {@link java.io.Serializable}).
+ * @author Jee Vang
+ *
+ */
+public interface ShardWorker {
+
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 * @throws IOException
+	 */
+	public int getDimension() throws IOException;
+	
+	/**
+	 * Gets (up to) a number of rows of the shard, to pick the
+	 * initial seeds from.
+	 * @param maxRows Maximum number of rows.
+	 * @return {@link DenseDataset}.
+	 * @throws IOException
+	 */
+	public DenseDataset sample(int maxRows) throws IOException;
+	
+	/**
+	 * Assigns every row of the shard to its closest centroid (the
+	 * first one, if there are ties). The statistics may be relative
+	 * to any shifts; shifting by the centroids keeps the inertia 
+	 * accurate for rows far from the origin.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure}.
+	 * @return {@link ClusterStatistics} of the rows of the shard.
+	 * @throws IOException
+	 */
+	public ClusterStatistics assign(DenseDataset centroids, DatasetDistanceMeasure distanceMeasure) throws IOException;
+}
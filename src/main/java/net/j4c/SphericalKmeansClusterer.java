@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import net.j4c.centroid.SphericalCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.NormalizedCosineDistance;
+
+/**
+ * Spherical k-means: k-means with the cosine distance over rows
+ * and centroids that are unit length (Dhillon and Modha, "Concept 
+ * Decompositions for Large Sparse Text Data Using Clustering", 2001).
+ * <p>
+ * The rows are normalized once, before clustering (unless they
+ * already are, see {@link #isNormalized()}), and the centroids are 
+ * normalized after every recomputation (see 
+ * {@link SphericalCentroidAnalyzer}). The cosine distance then is
+ * 1 minus a single dot-product (see {@link NormalizedCosineDistance}),
+ * without the norms and square roots of 
+ * {@link net.j4c.distance.CosineDistance}, so the closest centroid 
+ * is the one with the largest dot-product. This suits text (e.g. 
+ * TF-IDF vectors in a {@link SparseDataset}).
+ * </p>
+ * <p>
+ * The distance measure and centroid analyzer are set by the 
+ * constructor; replacing them with ones that do not keep the 
+ * centroids unit length gives wrong distances. The inertia is
+ * the one of the normalized rows around the means of the clusters.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class SphericalKmeansClusterer extends KmeansClusterer {
+
+	private NormalizedCosineDistance cosineDistance = new NormalizedCosineDistance();
+	private boolean normalized = false;
+	
+	/**
+	 * Constructor.
+	 */
+	public SphericalKmeansClusterer() {
+		setDistanceMeasure(cosineDistance);
+		setCentroidAnalyzer(new SphericalCentroidAnalyzer());
+	}
+	
+	@Override
+	public KmeansResult<DenseDataset> getClusters(int k, int maxIterations, Dataset data) {
+		checkDense(data);
+		return super.getClusters(k, maxIterations, normalized ? data : DenseDataset.normalize(data));
+	}
+	
+	@Override
+	public KmeansResult<SparseDataset> getClusters(int k, int maxIterations, SparseDataset data) {
+		return super.getClusters(k, maxIterations, normalized ? data : data.normalize());
+	}
+	
+	/**
+	 * Gets the inertia of a {@link SparseDataset} around the means of
+	 * the clusters, from the normalized centroids: the dot-products of
+	 * the rows of a cluster with its normalized mean add up to the norm 
+	 * of the sum of those rows.
+	 */
+	@Override
+	double getInertia(SparseDataset data, int[] labels, SparseDataset centroids) {
+		int numCentroids = centroids.size();
+		int[] counts = new int[numCentroids];
+		double[] sumNorms = new double[numCentroids];
+		double squaredNorm = 0.0d;
+		for(int row=0; row < labels.length; row++) {
+			int label = labels[row];
+			if(label < 0)
+				continue;
+			counts[label]++;
+			sumNorms[label] += cosineDistance.getDotProduct(data, row, centroids, label);
+			squaredNorm += data.getSquaredNorm(row);
+		}
+		
+		double inertia = squaredNorm;
+		for(int index=0; index < numCentroids; index++) {
+			if(counts[index] > 0)
+				inertia -= sumNorms[index] * sumNorms[index] / counts[index];
+		}
+		return (inertia > 0.0d) ? inertia : 0.0d;
+	}
+	
+	/**
+	 * Gets whether the rows are already unit length (e.g. normalized
+	 * when loaded, with {@link DenseDataset#normalize(Dataset)} or
+	 * {@link SparseDataset#normalize()}), so that they are clustered
+	 * as they are instead of as a normalized copy.
+	 * @return boolean.
+	 */
+	public boolean isNormalized() {
+		return normalized;
+	}
+
+	public void setNormalized(boolean normalized) {
+		this.normalized = normalized;
+	}
+}
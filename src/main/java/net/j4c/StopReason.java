@@ -0,0 +1,64 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+/**
+ * Why clustering stopped.
+ * @author Jee Vang
+ *
+ */
+public enum StopReason {
+	/**
+	 * No row changed its cluster.
+	 */
+	CONVERGED,
+	/**
+	 * The maximum number of iterations was reached.
+	 */
+	MAX_ITERATIONS,
+	/**
+	 * No centroid moved more than the shift tolerance.
+	 */
+	CENTROID_SHIFT,
+	/**
+	 * The inertia improved by less than the inertia tolerance
+	 * (relative to the previous inertia).
+	 */
+	INERTIA,
+	/**
+	 * The fraction of rows that changed their cluster was below
+	 * the reassignment tolerance.
+	 */
+	REASSIGNMENTS,
+	/**
+	 * The inertia did not reach a new minimum for a number of 
+	 * iterations (see {@link MiniBatchKmeansClusterer#getPatience()}).
+	 */
+	NO_IMPROVEMENT,
+	/**
+	 * The run fell clearly behind another run of a restarted 
+	 * clustering (see {@link KmeansClusterer#getAbandonRatio()}).
+	 */
+	ABANDONED,
+	/**
+	 * The run was cancelled (see {@link CancellationToken}).
+	 */
+	CANCELLED,
+	/**
+	 * The deadline passed (see {@link KmeansClusterer#getDeadline()}).
+	 */
+	DEADLINE
+}
@@ -0,0 +1,450 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import net.j4c.centroid.ClusterStatistics;
+import net.j4c.centroid.DatasetCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.seeding.DatasetSeedInitializer;
+
+/**
+ * K-means clustering accelerated with the triangle inequality over
+ * groups of centroids
+ * (Ding et al., "Yinyang K-Means: A Drop-In Replacement of the Classic
+ * K-Means with Consistent Speedup", 2015).
+ * <p>
+ * The initial centroids are put into groups (by clustering the 
+ * centroids themselves), and every row keeps an upper bound on the
+ * distance to its centroid and one lower bound per group on the 
+ * distance to the centroids of that group. After the centroids move,
+ * the lower bound of a group is loosened by how far the centroids of
+ * the group moved at most. A row is skipped if its upper bound is below
+ * all of its lower bounds; otherwise only the groups whose lower bound
+ * is not above the upper bound are visited, and within those groups
+ * a centroid is skipped if the lower bound of the group, loosened by 
+ * how far that centroid moved, is above the closest distance so far.
+ * The clusters are the same as those of {@link KmeansClusterer}, 
+ * including how ties are broken. A row for which no distance is 
+ * computed is not read from the {@link Dataset} at all.
+ * </p>
+ * <p>
+ * The bounds take one double per row and group, and there is one group
+ * per group size of centroids (see {@link #getGroupSize()}), so this 
+ * suits a large number of clusters, where the k bounds per row of 
+ * {@link ElkanKmeansClusterer} take too much memory. The bounds are 
+ * only valid for a {@link DatasetDistanceMeasure} that is a metric 
+ * (see {@link DatasetDistanceMeasure#isMetric()}); any other distance measure
+ * is clustered without acceleration. {@link net.j4c.data.SparseDataset}s
+ * are also clustered without acceleration.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class YinyangKmeansClusterer extends KmeansClusterer {
+
+	//iterations of clustering the centroids into groups
+	private static final int GROUP_ITERATIONS = 5;
+	
+	private int groupSize = 10;
+	
+	@Override
+	KmeansResult<DenseDataset> cluster(int k, Dataset data, DatasetSeedInitializer seedInitializer, Convergence convergence, ForkJoinPool pool) {
+		DatasetDistanceMeasure distanceMeasure = getDatasetDistanceMeasure();
+		if(!distanceMeasure.isMetric())
+			return super.cluster(k, data, seedInitializer, convergence, pool);
+		
+		int numRows = data.size();
+		//adjust k max, in case it is greater than 
+		//the number of rows
+		int kMax = (k < numRows) ? k : numRows;
+		
+		//get the initial seeds
+		DenseDataset centroids = seedInitializer.getSeeds(kMax, data);
+		convergence.seeded(centroids.size());
+		int numCentroids = centroids.size();
+		
+		DatasetCentroidAnalyzer centroidAnalyzer = getDatasetCentroidAnalyzer();
+		
+		Bounds bounds = new Bounds();
+		bounds.data = data;
+		bounds.centroids = centroids;
+		bounds.distanceMeasure = distanceMeasure;
+		bounds.group(getNumOfGroups(numCentroids));
+		int numGroups = bounds.groupStarts.length - 1;
+		if((long)numRows * numGroups > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many rows and groups for the lower bounds: " + numRows + " x " + numGroups);
+		bounds.labels = new int[numRows];
+		Arrays.fill(bounds.labels, -1);
+		bounds.upper = new double[numRows];
+		bounds.lower = new double[numRows * numGroups];
+		bounds.drifts = new double[numCentroids];
+		bounds.groupDrifts = new double[numGroups];
+		
+		double[] distances = new double[numRows];
+		bounds.shifts = Arrays.copyOf(centroids.getValues(), centroids.getValues().length);
+		ClusterStatistics statistics = new ClusterStatistics(numCentroids, data.getDimension(), bounds.shifts);
+		double[] previous = new double[centroids.getValues().length];
+		int blockSize = getBlockSize(numRows, numCentroids, data.getDimension());
+		long numDistances = 0L;
+		long numSkippedDistances = 0L;
+		
+		//now iterate over assignment and recomputation of centroids
+		while(!convergence.isStopped()) {
+			//assignment
+			BlockTask task = new YinyangTask(bounds, 0, numRows, blockSize, null != pool);
+			Assignment assignment = invoke(task, pool);
+			convergence.assigned();
+			numDistances += assignment.numDistances;
+			numSkippedDistances += (long)numRows * numCentroids - assignment.numDistances;
+			
+			//update the statistics with the rows that moved, 
+			//and recompute centroids
+			if(null != assignment.statistics)
+				statistics.merge(assignment.statistics);
+			System.arraycopy(centroids.getValues(), 0, previous, 0, previous.length);
+			centroidAnalyzer.recompute(statistics, centroids);
+			
+			//check the stopping rules
+			double maxShift = getMaxShift(previous, centroids, distanceMeasure);
+			if(convergence.update(assignment.numChanged, maxShift, statistics.getInertia()))
+				break;
+			
+			bounds.update(previous);
+		}
+		
+		//the bounds are not exact distances
+		computeDistances(data, centroids, bounds.labels, distances, pool);
+		
+		KmeansResult<DenseDataset> result = new KmeansResult<DenseDataset>(centroids, bounds.labels);
+		result.setDistances(distances);
+		result.setNumOfDistances(numDistances);
+		result.setNumOfSkippedDistances(numSkippedDistances);
+		convergence.setResult(result);
+		return result;
+	}
+	
+	/**
+	 * Gets the number of groups of a number of centroids.
+	 * @param numCentroids Number of centroids.
+	 * @return int.
+	 */
+	private int getNumOfGroups(int numCentroids) {
+		int size = (groupSize < 1) ? 1 : groupSize;
+		int numGroups = (numCentroids + size - 1) / size;
+		return (numGroups < 1) ? 1 : numGroups;
+	}
+	
+	/**
+	 * The state shared by the assignment tasks of one run. 
+	 * The tasks only write the entries of their own rows.
+	 */
+	private static class Bounds {
+		private Dataset data;
+		private DenseDataset centroids;
+		private DatasetDistanceMeasure distanceMeasure;
+		private int[] labels;
+		//shifts of the statistics, the seeds
+		private double[] shifts;
+		//the centroids, ordered by group, and where each group starts
+		private int[] members;
+		private int[] groupStarts;
+		private int[] groups;
+		//upper bound per row on the distance to its centroid
+		private double[] upper;
+		//lower bounds per row on the distances to the centroids of 
+		//each group (other than the centroid of the row)
+		private double[] lower;
+		//how far each centroid moved in the last recomputation
+		private double[] drifts;
+		//how far the centroids of each group moved at most
+		private double[] groupDrifts;
+		
+		/**
+		 * Puts the centroids into groups, by a few iterations of 
+		 * k-means over the centroids, starting from evenly spaced
+		 * centroids. Groups that end up empty are dropped.
+		 * @param numGroups Number of groups.
+		 */
+		private void group(int numGroups) {
+			int numCentroids = centroids.size();
+			int dimension = centroids.getDimension();
+			double[] values = centroids.getValues();
+			
+			if(numGroups > numCentroids)
+				numGroups = (numCentroids > 0) ? numCentroids : 1;
+			double[] centers = new double[numGroups * dimension];
+			for(int g=0; g < numGroups && numCentroids > 0; g++) {
+				int c = (int)((long)g * numCentroids / numGroups);
+				System.arraycopy(values, c * dimension, centers, g * dimension, dimension);
+			}
+			
+			groups = new int[numCentroids];
+			int[] counts = new int[numGroups];
+			for(int iteration=0; iteration < GROUP_ITERATIONS; iteration++) {
+				for(int c=0; c < numCentroids; c++) {
+					double min = 0.0d;
+					for(int g=0; g < numGroups; g++) {
+						double dist = distanceMeasure.getDistance(values, c * dimension, centers, g * dimension, dimension);
+						if(0 == g || dist < min) {
+							min = dist;
+							groups[c] = g;
+						}
+					}
+				}
+				
+				Arrays.fill(counts, 0);
+				Arrays.fill(centers, 0.0d);
+				for(int c=0; c < numCentroids; c++) {
+					int g = groups[c];
+					counts[g]++;
+					for(int j=0; j < dimension; j++) {
+						centers[g * dimension + j] += values[c * dimension + j];
+					}
+				}
+				for(int g=0; g < numGroups; g++) {
+					for(int j=0; j < dimension && counts[g] > 0; j++) {
+						centers[g * dimension + j] /= counts[g];
+					}
+				}
+			}
+			
+			//drop the empty groups, and order the centroids by group
+			int[] ids = new int[numGroups];
+			int numNonEmpty = 0;
+			for(int g=0; g < numGroups; g++) {
+				ids[g] = (counts[g] > 0) ? numNonEmpty++ : -1;
+			}
+			groupStarts = new int[Math.max(1, numNonEmpty) + 1];
+			for(int c=0; c < numCentroids; c++) {
+				groups[c] = ids[groups[c]];
+				groupStarts[groups[c] + 1]++;
+			}
+			for(int g=0; g < groupStarts.length - 1; g++) {
+				groupStarts[g + 1] += groupStarts[g];
+			}
+			members = new int[numCentroids];
+			int[] next = Arrays.copyOf(groupStarts, groupStarts.length - 1);
+			for(int c=0; c < numCentroids; c++) {
+				members[next[groups[c]]++] = c;
+			}
+		}
+		
+		/**
+		 * Computes how far the centroids, and the groups, moved.
+		 * @param previous Values of the centroids before recomputation.
+		 */
+		private void update(double[] previous) {
+			int numCentroids = centroids.size();
+			int dimension = centroids.getDimension();
+			double[] values = centroids.getValues();
+			
+			Arrays.fill(groupDrifts, 0.0d);
+			for(int c=0; c < numCentroids; c++) {
+				double drift = distanceMeasure.getDistance(previous, c * dimension, values, c * dimension, dimension);
+				drifts[c] = drift;
+				if(drift > groupDrifts[groups[c]])
+					groupDrifts[groups[c]] = drift;
+			}
+		}
+	}
+	
+	/**
+	 * Assigns rows to their closest centroids, skipping the groups
+	 * and centroids that the bounds rule out.
+	 */
+	private static class YinyangTask extends BlockTask {
+		private static final long serialVersionUID = 1L;
+		
+		private Bounds bounds;
+		
+		private YinyangTask(Bounds bounds, int from, int to, int blockSize, boolean fork) {
+			super(from, to, blockSize, fork);
+			this.bounds = bounds;
+		}
+		
+		@Override
+		protected BlockTask createTask(int from, int to) {
+			return new YinyangTask(bounds, from, to, blockSize, fork);
+		}
+
+		@Override
+		protected Assignment computeBlock(int from, int to) {
+			Dataset data = bounds.data;
+			DatasetDistanceMeasure distanceMeasure = bounds.distanceMeasure;
+			int[] labels = bounds.labels;
+			int[] members = bounds.members;
+			int[] groupStarts = bounds.groupStarts;
+			int[] groups = bounds.groups;
+			double[] upper = bounds.upper;
+			double[] lower = bounds.lower;
+			double[] drifts = bounds.drifts;
+			double[] groupDrifts = bounds.groupDrifts;
+			
+			int dimension = data.getDimension();
+			int numCentroids = bounds.centroids.size();
+			int numGroups = groupStarts.length - 1;
+			double[] centroidValues = bounds.centroids.getValues();
+			double[] buffer = new double[dimension];
+			//distances (or lower bounds) to each centroid
+			double[] values = new double[numCentroids];
+			double[] previousLower = new double[numGroups];
+			boolean[] visited = new boolean[numGroups];
+			
+			Assignment assignment = new Assignment();
+			
+			for(int row=from; row < to; row++) {
+				int offset = row * numGroups;
+				int label = labels[row];
+				double u;
+				
+				if(label < 0) {
+					//first assignment, compute all distances
+					data.getRow(row, buffer);
+					u = 0.0d;
+					for(int c=0; c < numCentroids; c++) {
+						double dist = distanceMeasure.getDistance(buffer, 0, centroidValues, c * dimension, dimension);
+						values[c] = dist;
+						if(0 == c || dist < u) {
+							u = dist;
+							label = c;
+						}
+					}
+					assignment.numDistances += numCentroids;
+					Arrays.fill(visited, true);
+					setLower(offset, label, values, visited);
+				} else {
+					//loosen the bounds by how far the centroids moved
+					u = upper[row] + drifts[label];
+					double globalLower = Double.POSITIVE_INFINITY;
+					for(int g=0; g < numGroups; g++) {
+						double l = lower[offset + g];
+						previousLower[g] = l;
+						l -= groupDrifts[g];
+						if(l < 0.0d)
+							l = 0.0d;
+						lower[offset + g] = l;
+						if(l < globalLower)
+							globalLower = l;
+					}
+					
+					//the comparisons are strict so that ties are broken 
+					//as by the plain iteration
+					if(!(u < globalLower)) {
+						//only now read the row, and tighten the upper bound
+						data.getRow(row, buffer);
+						u = distanceMeasure.getDistance(buffer, 0, centroidValues, label * dimension, dimension);
+						assignment.numDistances++;
+						
+						if(!(u < globalLower)) {
+							int closest = label;
+							double min = u;
+							for(int g=0; g < numGroups; g++) {
+								visited[g] = !(lower[offset + g] > min);
+								if(!visited[g])
+									continue;
+								
+								for(int i=groupStarts[g]; i < groupStarts[g + 1]; i++) {
+									int c = members[i];
+									if(c == label) {
+										values[c] = u;
+										continue;
+									}
+									
+									double bound = previousLower[g] - drifts[c];
+									if(bound > min) {
+										values[c] = bound;
+										continue;
+									}
+									
+									double dist = distanceMeasure.getDistance(buffer, 0, centroidValues, c * dimension, dimension);
+									values[c] = dist;
+									assignment.numDistances++;
+									if(dist < min || (dist == min && c < closest)) {
+										min = dist;
+										closest = c;
+									}
+								}
+							}
+							
+							setLower(offset, closest, values, visited);
+							//the previous centroid is now one of the others
+							int group = groups[label];
+							if(closest != label && !visited[group] && u < lower[offset + group])
+								lower[offset + group] = u;
+							label = closest;
+							u = min;
+						}
+					}
+				}
+				upper[row] = u;
+				
+				//check if membership has changed
+				if(labels[row] != label) {
+					assignment.move(labels[row], label, buffer, bounds.shifts);
+					labels[row] = label;
+				}
+			}
+			
+			return assignment;
+		}
+		
+		/**
+		 * Sets the lower bounds of a row for the visited groups, to the
+		 * smallest distance (or lower bound) to a centroid of the group
+		 * other than the centroid of the row.
+		 * @param offset Offset of the lower bounds of the row.
+		 * @param label Centroid of the row.
+		 * @param values Distances (or lower bounds) to the centroids.
+		 * @param visited Whether each group was visited.
+		 */
+		private void setLower(int offset, int label, double[] values, boolean[] visited) {
+			int[] members = bounds.members;
+			int[] groupStarts = bounds.groupStarts;
+			double[] lower = bounds.lower;
+			for(int g=0; g < groupStarts.length - 1; g++) {
+				if(!visited[g])
+					continue;
+				
+				double l = Double.POSITIVE_INFINITY;
+				for(int i=groupStarts[g]; i < groupStarts[g + 1]; i++) {
+					int c = members[i];
+					if(c != label && values[c] < l)
+						l = values[c];
+				}
+				lower[offset + g] = (l > 0.0d) ? l : 0.0d;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the group size: the number of centroids per group of 
+	 * lower bounds (the number of groups is k divided by the group
+	 * size, rounded up).
+	 * @return int.
+	 */
+	public int getGroupSize() {
+		return groupSize;
+	}
+
+	public void setGroupSize(int groupSize) {
+		this.groupSize = groupSize;
+	}
+}
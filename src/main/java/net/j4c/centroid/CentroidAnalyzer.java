@@ -1,30 +1,30 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c.centroid;
-
-/**
- * Centroid analyzer.
- * @author Jee Vang
- *
- */
-public interface CentroidAnalyzer {
-
-	/**
-	 * Recomputes the centroid.
-	 * @param centroid {@link Centroid}.
-	 */
-	public void recompute(Centroid centroid);
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.centroid;
+
+/**
+ * Centroid analyzer.
+ * @author Jee Vang
+ *
+ */
+public interface CentroidAnalyzer {
+
+	/**
+	 * Recomputes the centroid.
+	 * @param centroid {@link Centroid}.
+	 */
+	public void recompute(Centroid centroid);
+}
@@ -0,0 +1,309 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.centroid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Sufficient statistics of clusters: the number of rows 
+ * assigned to each cluster, the per-column sums of those
+ * rows and the sum of their squared norms. The rows may be
+ * taken relative to a shift per cluster (e.g. its seed), which 
+ * keeps the inertia accurate for rows far from the origin.
+ * Statistics computed over disjoint sets of rows can be 
+ * merged, so they can be computed in parallel (or in other
+ * processes, since they are serializable). Counts and
+ * sums may also be negative, for the change of statistics 
+ * due to rows moving between clusters.
+ * @author Jee Vang
+ *
+ */
+public class ClusterStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	private int k;
+	private int dimension;
+	private double[] shifts;
+	private double[] sums;
+	private double[] squaredNorms;
+	private int[] counts;
+	
+	/**
+	 * Constructor.
+	 * @param k Number of clusters.
+	 * @param dimension Number of columns.
+	 */
+	public ClusterStatistics(int k, int dimension) {
+		this(k, dimension, null);
+	}
+	
+	/**
+	 * Constructor, for the statistics of the rows minus the shift
+	 * of their cluster. The closer the shifts are to the means, the
+	 * more accurate the inertia. The shifts are not copied, so they
+	 * must not change while the statistics are in use.
+	 * @param k Number of clusters.
+	 * @param dimension Number of columns.
+	 * @param shifts Shifts, row-major by cluster (null for none).
+	 */
+	public ClusterStatistics(int k, int dimension, double[] shifts) {
+		this.k = k;
+		this.dimension = dimension;
+		this.shifts = shifts;
+		this.sums = new double[k * dimension];
+		this.squaredNorms = new double[k];
+		this.counts = new int[k];
+	}
+	
+	/**
+	 * Adds a row to a cluster.
+	 * @param label Index of the cluster.
+	 * @param row Values of the row.
+	 */
+	public void add(int label, double[] row) {
+		int offset = label * dimension;
+		double squaredNorm = 0.0d;
+		for(int i=0; i < dimension; i++) {
+			double value = (null == shifts) ? row[i] : row[i] - shifts[offset + i];
+			sums[offset + i] += value;
+			squaredNorm += value * value;
+		}
+		squaredNorms[label] += squaredNorm;
+		counts[label]++;
+	}
+	
+	/**
+	 * Removes a row from a cluster. Together with 
+	 * {@link #add(int, double[])}, this moves a row between
+	 * clusters without going over the other rows.
+	 * @param label Index of the cluster.
+	 * @param row Values of the row.
+	 */
+	public void remove(int label, double[] row) {
+		int offset = label * dimension;
+		double squaredNorm = 0.0d;
+		for(int i=0; i < dimension; i++) {
+			double value = (null == shifts) ? row[i] : row[i] - shifts[offset + i];
+			sums[offset + i] -= value;
+			squaredNorm += value * value;
+		}
+		squaredNorms[label] -= squaredNorm;
+		counts[label]--;
+	}
+	
+	/**
+	 * Adds a set of rows to a cluster, given their per-column
+	 * sums, the sum of their squared norms and their number, all
+	 * of the rows minus an origin.
+	 * @param label Index of the cluster.
+	 * @param rowSums Per-column sums of the rows.
+	 * @param offset Offset of the sums in rowSums.
+	 * @param count Number of rows.
+	 * @param squaredNorm Sum of the squared norms of the rows.
+	 * @param origin Origin of the rows (null for 0).
+	 */
+	public void add(int label, double[] rowSums, int offset, int count, double squaredNorm, double[] origin) {
+		add(label, rowSums, offset, count, squaredNorm, origin, 0, 1);
+	}
+	
+	/**
+	 * Removes a set of rows from a cluster, given their per-column
+	 * sums, the sum of their squared norms and their number, all
+	 * of the rows minus an origin.
+	 * @param label Index of the cluster.
+	 * @param rowSums Per-column sums of the rows.
+	 * @param offset Offset of the sums in rowSums.
+	 * @param count Number of rows.
+	 * @param squaredNorm Sum of the squared norms of the rows.
+	 * @param origin Origin of the rows (null for 0).
+	 */
+	public void remove(int label, double[] rowSums, int offset, int count, double squaredNorm, double[] origin) {
+		add(label, rowSums, offset, count, squaredNorm, origin, 0, -1);
+	}
+	
+	/**
+	 * Adds (or removes) a set of rows to a cluster, moving their
+	 * statistics from their origin to the shift of the cluster.
+	 * Since the rows minus the shift are the rows minus the origin
+	 * plus delta (the origin minus the shift), their sums grow by
+	 * count times delta and their squared norms by 2 delta . sums 
+	 * plus count times |delta|^2.
+	 * @param label Index of the cluster.
+	 * @param rowSums Per-column sums of the rows.
+	 * @param offset Offset of the sums in rowSums.
+	 * @param count Number of rows.
+	 * @param squaredNorm Sum of the squared norms of the rows.
+	 * @param origin Origin of the rows (null for 0).
+	 * @param originOffset Offset of the origin.
+	 * @param sign 1 to add, -1 to remove.
+	 */
+	private void add(int label, double[] rowSums, int offset, int count, double squaredNorm, 
+			double[] origin, int originOffset, int sign) {
+		int sumOffset = label * dimension;
+		double squared = squaredNorm;
+		if(origin != shifts || originOffset != sumOffset) {
+			for(int i=0; i < dimension; i++) {
+				double delta = ((null == origin) ? 0.0d : origin[originOffset + i]) 
+						- ((null == shifts) ? 0.0d : shifts[sumOffset + i]);
+				if(0.0d == delta)
+					continue;
+				squared += delta * (2.0d * rowSums[offset + i] + count * delta);
+				sums[sumOffset + i] += sign * count * delta;
+			}
+		}
+		for(int i=0; i < dimension; i++) {
+			sums[sumOffset + i] += sign * rowSums[offset + i];
+		}
+		squaredNorms[label] += sign * squared;
+		counts[label] += sign * count;
+	}
+	
+	/**
+	 * Merges the statistics of another (disjoint) set of rows
+	 * into these statistics. If the other statistics have other
+	 * shifts, they are moved to these shifts.
+	 * @param statistics {@link ClusterStatistics}.
+	 */
+	public void merge(ClusterStatistics statistics) {
+		if(statistics.shifts != shifts) {
+			for(int label=0; label < k; label++) {
+				int offset = label * dimension;
+				add(label, statistics.sums, offset, statistics.counts[label], statistics.squaredNorms[label], 
+						statistics.shifts, offset, 1);
+			}
+			return;
+		}
+		
+		double[] otherSums = statistics.sums;
+		double[] otherSquaredNorms = statistics.squaredNorms;
+		int[] otherCounts = statistics.counts;
+		for(int i=0; i < sums.length; i++) {
+			sums[i] += otherSums[i];
+		}
+		for(int i=0; i < k; i++) {
+			squaredNorms[i] += otherSquaredNorms[i];
+			counts[i] += otherCounts[i];
+		}
+	}
+	
+	/**
+	 * Resets all sums and counts to 0.
+	 */
+	public void clear() {
+		Arrays.fill(sums, 0.0d);
+		Arrays.fill(squaredNorms, 0.0d);
+		Arrays.fill(counts, 0);
+	}
+	
+	/**
+	 * Gets the number of clusters.
+	 * @return int.
+	 */
+	public int getK() {
+		return k;
+	}
+	
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+	
+	/**
+	 * Gets the number of rows in a cluster.
+	 * @param label Index of the cluster.
+	 * @return int.
+	 */
+	public int getCount(int label) {
+		return counts[label];
+	}
+	
+	/**
+	 * Gets the mean of the rows of a cluster: the shift of the
+	 * cluster plus the mean of the shifted rows. The cluster
+	 * must have rows.
+	 * @param label Index of the cluster.
+	 * @param mean Array to put the mean into.
+	 * @param offset Offset of the mean in the array.
+	 */
+	public void getMean(int label, double[] mean, int offset) {
+		int sumOffset = label * dimension;
+		double n = counts[label];
+		for(int i=0; i < dimension; i++) {
+			double shift = (null == shifts) ? 0.0d : shifts[sumOffset + i];
+			mean[offset + i] = shift + sums[sumOffset + i] / n;
+		}
+	}
+	
+	/**
+	 * Gets the inertia: the sum over all rows of the squared (Euclidean)
+	 * distance of the row to the mean of its cluster. It is computed 
+	 * from the sums, the sums of squared norms and the counts, without 
+	 * going over the rows. This subtracts the squared norm of the mean 
+	 * from that of the rows, so it loses precision as the shift of a 
+	 * cluster moves away from its mean, relative to the spread of its
+	 * rows.
+	 * @return double.
+	 */
+	public double getInertia() {
+		double inertia = 0.0d;
+		for(int label=0; label < k; label++) {
+			if(counts[label] <= 0)
+				continue;
+			
+			int offset = label * dimension;
+			double squaredSum = 0.0d;
+			for(int i=0; i < dimension; i++) {
+				squaredSum += sums[offset + i] * sums[offset + i];
+			}
+			double clusterInertia = squaredNorms[label] - squaredSum / counts[label];
+			if(clusterInertia > 0.0d)
+				inertia += clusterInertia;
+		}
+		return inertia;
+	}
+	
+	/**
+	 * Gets the shifts of the clusters, row-major by cluster. This
+	 * is the backing array, not a copy.
+	 * @return Shifts (null if none).
+	 */
+	public double[] getShifts() {
+		return shifts;
+	}
+	
+	/**
+	 * Gets the per-column sums of the shifted rows, row-major by
+	 * cluster. This is the backing array, not a copy.
+	 * @return Sums.
+	 */
+	public double[] getSums() {
+		return sums;
+	}
+	
+	/**
+	 * Gets the number of rows in each cluster. This is 
+	 * the backing array, not a copy.
+	 * @return Counts.
+	 */
+	public int[] getCounts() {
+		return counts;
+	}
+}
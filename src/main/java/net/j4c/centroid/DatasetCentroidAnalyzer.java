@@ -0,0 +1,58 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.centroid;
+
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+
+/**
+ * A {@link CentroidAnalyzer} that can also recompute the centroids
+ * of {@link Dataset}s, which is needed to cluster them (e.g. 
+ * {@link net.j4c.KmeansClusterer#getClusters(int, int, Dataset)}).
+ * @author Jee Vang
+ *
+ */
+public interface DatasetCentroidAnalyzer extends CentroidAnalyzer {
+
+	/**
+	 * Recomputes the centroids in place from the rows
+	 * assigned to them.
+	 * @param data {@link Dataset}.
+	 * @param labels Index of the centroid each row is assigned to (-1 if none).
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 */
+	public void recompute(Dataset data, int[] labels, DenseDataset centroids);
+	
+	/**
+	 * Recomputes the centroids in place from the sufficient
+	 * statistics of the rows assigned to them.
+	 * @param statistics {@link ClusterStatistics}.
+	 * @param centroids {@link DenseDataset} where each row is a centroid.
+	 */
+	public void recompute(ClusterStatistics statistics, DenseDataset centroids);
+	
+	/**
+	 * Recomputes the centroids from the rows of a {@link SparseDataset}
+	 * assigned to them. Since the number of non-zero values of 
+	 * each centroid may change, new centroids are returned.
+	 * @param data {@link SparseDataset}.
+	 * @param labels Index of the centroid each row is assigned to (-1 if none).
+	 * @param centroids {@link SparseDataset} where each row is a centroid.
+	 * @return {@link SparseDataset} where each row is a recomputed centroid.
+	 */
+	public SparseDataset recompute(SparseDataset data, int[] labels, SparseDataset centroids);
+}
@@ -1,61 +1,188 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c.centroid;
-
-import java.util.Iterator;
-import java.util.Set;
-
-import net.j4c.IndexValue;
-
-/**
- * Recomputes the centroid by adjusting to mean/average.
- * @author Jee Vang
- *
- */
-public class MeanCentroidAnalyzer implements CentroidAnalyzer {
-
-	@Override
-	public void recompute(Centroid centroid) {
-		Set<Integer> indexes = centroid.getIndexes();
-		int numIndexes = indexes.size();
-		double[] sums = new double[numIndexes];
-		
-		int i = 0;
-		int numClusterItems = centroid.getNumOfClusterItems();
-		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); i++) {
-			Integer index = it.next();
-			for(int j=0; j < numClusterItems; j++) {
-				sums[i] += centroid.getClusterItem(j).getValue(index);
-			}
-		}
-		
-		i = 0;
-		double[] means = new double[numIndexes];
-		double n = centroid.getNumOfClusterItems();
-		
-		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); i++) {
-			Integer index = it.next();
-			
-			if(n > 0) {
-				means[i] = sums[i] / n;
-			}
-			
-			IndexValue indexValue = new IndexValue(index.intValue(), means[i]);
-			centroid.add(indexValue);
-		}
-	}
-
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.centroid;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+import net.j4c.IndexValue;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Recomputes the centroid by adjusting to mean/average.
+ * @author Jee Vang
+ *
+ */
+public class MeanCentroidAnalyzer implements DatasetCentroidAnalyzer {
+
+	@Override
+	public void recompute(Centroid centroid) {
+		Set<Integer> indexes = centroid.getIndexes();
+		int numIndexes = indexes.size();
+		double[] sums = new double[numIndexes];
+		
+		int i = 0;
+		int numClusterItems = centroid.getNumOfClusterItems();
+		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); i++) {
+			Integer index = it.next();
+			for(int j=0; j < numClusterItems; j++) {
+				sums[i] += centroid.getClusterItem(j).getValue(index);
+			}
+		}
+		
+		i = 0;
+		double[] means = new double[numIndexes];
+		double n = centroid.getNumOfClusterItems();
+		
+		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); i++) {
+			Integer index = it.next();
+			
+			if(n > 0) {
+				means[i] = sums[i] / n;
+			}
+			
+			IndexValue indexValue = new IndexValue(index.intValue(), means[i]);
+			centroid.add(indexValue);
+		}
+	}
+	
+	@Override
+	public void recompute(Dataset data, int[] labels, DenseDataset centroids) {
+		int numRows = data.size();
+		ClusterStatistics statistics = new ClusterStatistics(centroids.size(), data.getDimension());
+		double[] buffer = new double[data.getDimension()];
+		
+		for(int row=0; row < numRows; row++) {
+			int label = labels[row];
+			if(label < 0)
+				continue;
+			
+			data.getRow(row, buffer);
+			statistics.add(label, buffer);
+		}
+		
+		recompute(statistics, centroids);
+	}
+	
+	@Override
+	public void recompute(ClusterStatistics statistics, DenseDataset centroids) {
+		int numCentroids = centroids.size();
+		int[] counts = statistics.getCounts();
+		
+		//centroids without any rows keep their values
+		double[] values = centroids.getValues();
+		for(int label=0; label < numCentroids; label++) {
+			if(0 == counts[label])
+				continue;
+			
+			statistics.getMean(label, values, centroids.getOffset(label));
+		}
+	}
+	
+	@Override
+	public SparseDataset recompute(SparseDataset data, int[] labels, SparseDataset centroids) {
+		int numRows = data.size();
+		int numCentroids = centroids.size();
+		int dimension = data.getDimension();
+		
+		//order the rows by centroid (counting sort), so that
+		//each centroid is summed up in one go
+		int[] starts = new int[numCentroids + 1];
+		for(int row=0; row < numRows; row++) {
+			if(labels[row] >= 0)
+				starts[labels[row] + 1]++;
+		}
+		for(int label=0; label < numCentroids; label++) {
+			starts[label + 1] += starts[label];
+		}
+		int[] members = new int[starts[numCentroids]];
+		int[] next = Arrays.copyOf(starts, numCentroids);
+		for(int row=0; row < numRows; row++) {
+			if(labels[row] >= 0)
+				members[next[labels[row]]++] = row;
+		}
+		
+		//a single dense accumulator is reused for all centroids, and only
+		//the indices touched by a centroid's rows are visited and reset
+		double[] sums = new double[dimension];
+		boolean[] touched = new boolean[dimension];
+		int[] touchedIndices = new int[16];
+		
+		int[] dataIndices = data.getIndices();
+		double[] dataValues = data.getValues();
+		
+		int[] pointers = new int[numCentroids + 1];
+		int[] indices = new int[16];
+		double[] values = new double[16];
+		
+		for(int label=0; label < numCentroids; label++) {
+			int numTouched = 0;
+			
+			if(starts[label] == starts[label + 1]) {
+				//centroids without any rows keep their values
+				int start = centroids.getRowStart(label);
+				int end = centroids.getRowEnd(label);
+				for(int i=start; i < end; i++) {
+					if(numTouched == touchedIndices.length)
+						touchedIndices = Arrays.copyOf(touchedIndices, 2 * numTouched);
+					touchedIndices[numTouched++] = centroids.getIndices()[i];
+					sums[centroids.getIndices()[i]] = centroids.getValues()[i];
+				}
+			} else {
+				for(int m=starts[label]; m < starts[label + 1]; m++) {
+					int row = members[m];
+					for(int i=data.getRowStart(row); i < data.getRowEnd(row); i++) {
+						int index = dataIndices[i];
+						if(!touched[index]) {
+							touched[index] = true;
+							if(numTouched == touchedIndices.length)
+								touchedIndices = Arrays.copyOf(touchedIndices, 2 * numTouched);
+							touchedIndices[numTouched++] = index;
+						}
+						sums[index] += dataValues[i];
+					}
+				}
+				
+				double n = starts[label + 1] - starts[label];
+				for(int t=0; t < numTouched; t++) {
+					int index = touchedIndices[t];
+					sums[index] = sums[index] / n;
+					touched[index] = false;
+				}
+				Arrays.sort(touchedIndices, 0, numTouched);
+			}
+			
+			int position = pointers[label];
+			pointers[label + 1] = position + numTouched;
+			if(pointers[label + 1] > indices.length) {
+				int capacity = Math.max(2 * indices.length, pointers[label + 1]);
+				indices = Arrays.copyOf(indices, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			for(int t=0; t < numTouched; t++) {
+				int index = touchedIndices[t];
+				indices[position + t] = index;
+				values[position + t] = sums[index];
+				sums[index] = 0.0d;
+			}
+		}
+		
+		return new SparseDataset(numCentroids, dimension, pointers, indices, values);
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.centroid;
+
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Recomputes the centroid as the mean, scaled to unit (Euclidean)
+ * length, as in spherical k-means (Dhillon and Modha, "Concept 
+ * Decompositions for Large Sparse Text Data Using Clustering", 2001).
+ * Centroids of all 0s stay 0.
+ * @author Jee Vang
+ *
+ */
+public class SphericalCentroidAnalyzer extends MeanCentroidAnalyzer {
+
+	@Override
+	public void recompute(ClusterStatistics statistics, DenseDataset centroids) {
+		super.recompute(statistics, centroids);
+		
+		int dimension = centroids.getDimension();
+		double[] values = centroids.getValues();
+		for(int label=0; label < centroids.size(); label++) {
+			int offset = centroids.getOffset(label);
+			double squaredNorm = 0.0d;
+			for(int i=0; i < dimension; i++) {
+				squaredNorm += values[offset + i] * values[offset + i];
+			}
+			if(0.0d == squaredNorm)
+				continue;
+			
+			double scale = 1.0d / Math.sqrt(squaredNorm);
+			for(int i=0; i < dimension; i++) {
+				values[offset + i] *= scale;
+			}
+		}
+	}
+	
+	@Override
+	public SparseDataset recompute(SparseDataset data, int[] labels, SparseDataset centroids) {
+		return super.recompute(data, labels, centroids).normalize();
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts a comma-separated file, such as the one written by
+ * {@link net.j4c.test.GenerateData}, into a binary dataset file
+ * that can be read by {@link MappedDataset}. The file is streamed
+ * through a {@link CsvLoader}, a buffer of rows at a time, so it
+ * does not have to fit in memory. By default, the first column
+ * is taken to be the id and is dropped, since rows are identified
+ * by their position; all remaining columns are values. The 
+ * delimiter and the id and class columns are those of the 
+ * {@link CsvLoader} (see {@link #getCsvLoader()}).
+ * @author Jee Vang
+ *
+ */
+public class BinaryDatasetConverter {
+
+	//number of values (512 KB) read from the file at a time
+	private static final int BUFFER_VALUES = 1 << 16;
+	
+	private DataType dataType = DataType.FLOAT64;
+	private CsvLoader csvLoader;
+	
+	/**
+	 * Constructor. The first column of the file is the id.
+	 */
+	public BinaryDatasetConverter() {
+		csvLoader = new CsvLoader();
+		csvLoader.setIdColumn(0);
+	}
+	
+	/**
+	 * Converts a comma-separated file into a binary dataset file.
+	 * @param csvFile Comma-separated {@link File}.
+	 * @param binaryFile Binary dataset {@link File}.
+	 * @return Number of rows converted.
+	 * @throws IOException
+	 */
+	public long convert(File csvFile, File binaryFile) throws IOException {
+		PointSource source = getCsvLoader().open(csvFile);
+		BinaryDatasetWriter writer = null;
+		try {
+			//an empty file still gets a valid (empty) dataset
+			int dimension = source.getDimension();
+			writer = new BinaryDatasetWriter(binaryFile, dimension, getDataType());
+			
+			int maxRows = Math.max(1, BUFFER_VALUES / Math.max(1, dimension));
+			double[] values = new double[maxRows * dimension];
+			int numRows = 0;
+			while((numRows = source.read(values, 0, maxRows)) > 0) {
+				writer.write(values, 0, numRows);
+			}
+			return writer.size();
+		} finally {
+			try { source.close(); }
+			catch(Exception ex) { }
+			if(null != writer)
+				writer.close();
+		}
+	}
+
+	/**
+	 * Gets the {@link DataType} of the values written.
+	 * @return {@link DataType}.
+	 */
+	public DataType getDataType() {
+		return dataType;
+	}
+
+	public void setDataType(DataType dataType) {
+		this.dataType = dataType;
+	}
+
+	/**
+	 * Gets the {@link CsvLoader} that parses the file.
+	 * @return {@link CsvLoader}.
+	 */
+	public CsvLoader getCsvLoader() {
+		return csvLoader;
+	}
+
+	public void setCsvLoader(CsvLoader csvLoader) {
+		this.csvLoader = csvLoader;
+	}
+}
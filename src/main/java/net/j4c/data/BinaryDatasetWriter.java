@@ -0,0 +1,201 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes a binary dataset file that can be read with
+ * {@link MappedDataset}. The file is a 32 byte header 
+ * followed by the row-major values, all little-endian.
+ * <ul>
+ *  <li>magic (int)</li>
+ *  <li>version (int)</li>
+ *  <li>number of rows (long)</li>
+ *  <li>dimension (int)</li>
+ *  <li>data type id (int), see {@link DataType}</li>
+ *  <li>reserved (8 bytes)</li>
+ * </ul>
+ * Rows are written one at a time, and the number of rows
+ * is filled in when the writer is closed, so the total does
+ * not have to be known up front.
+ * @author Jee Vang
+ *
+ */
+public class BinaryDatasetWriter implements Closeable {
+
+	/**
+	 * Magic number at the start of the file ("J4CD").
+	 */
+	public static final int MAGIC = 0x4A344344;
+	/**
+	 * Version of the file format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * Size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private int dimension;
+	private DataType dataType;
+	private long size;
+	
+	/**
+	 * Constructor. Values are written as {@link DataType#FLOAT64}.
+	 * @param file {@link File}.
+	 * @param dimension Number of columns.
+	 * @throws IOException
+	 */
+	public BinaryDatasetWriter(File file, int dimension) throws IOException {
+		this(file, dimension, DataType.FLOAT64);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param file {@link File}.
+	 * @param dimension Number of columns.
+	 * @param dataType {@link DataType}.
+	 * @throws IOException
+	 */
+	public BinaryDatasetWriter(File file, int dimension, DataType dataType) throws IOException {
+		this.dimension = dimension;
+		this.dataType = dataType;
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0L);
+		this.channel = this.file.getChannel();
+		
+		int capacity = Math.max(BUFFER_SIZE, dimension * dataType.getNumOfBytes());
+		this.buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+		
+		//the header is rewritten with the actual size on close
+		writeHeader();
+	}
+	
+	/**
+	 * Writes a {@link Dataset} to a file.
+	 * @param data {@link Dataset}.
+	 * @param file {@link File}.
+	 * @param dataType {@link DataType}.
+	 * @throws IOException
+	 */
+	public static void write(Dataset data, File file, DataType dataType) throws IOException {
+		BinaryDatasetWriter writer = new BinaryDatasetWriter(file, data.getDimension(), dataType);
+		try {
+			double[] row = new double[data.getDimension()];
+			int size = data.size();
+			for(int i=0; i < size; i++) {
+				data.getRow(i, row);
+				writer.write(row);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Writes a row.
+	 * @param row Values of the row (at least dimension values).
+	 * @throws IOException
+	 */
+	public void write(double[] row) throws IOException {
+		write(row, 0, 1);
+	}
+	
+	/**
+	 * Writes rows that follow each other in a buffer (e.g. as read
+	 * from a {@link PointSource}).
+	 * @param values Buffer.
+	 * @param offset Index in the buffer of the first value.
+	 * @param numRows Number of rows.
+	 * @throws IOException
+	 */
+	public void write(double[] values, int offset, int numRows) throws IOException {
+		int rowBytes = dimension * dataType.getNumOfBytes();
+		for(int row=0; row < numRows; row++) {
+			if(buffer.remaining() < rowBytes)
+				flush();
+			
+			int start = offset + row * dimension;
+			if(DataType.FLOAT32 == dataType) {
+				for(int i=0; i < dimension; i++) {
+					buffer.putFloat((float)values[start + i]);
+				}
+			} else {
+				for(int i=0; i < dimension; i++) {
+					buffer.putDouble(values[start + i]);
+				}
+			}
+		}
+		size += numRows;
+	}
+	
+	/**
+	 * Gets the number of rows written so far.
+	 * @return long.
+	 */
+	public long size() {
+		return size;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if(null == channel)
+			return;
+		
+		try {
+			flush();
+			channel.position(0L);
+			writeHeader();
+		} finally {
+			channel = null;
+			file.close();
+		}
+	}
+	
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(size);
+		header.putInt(dimension);
+		header.putInt(dataType.getId());
+		header.putLong(0L);
+		header.flip();
+		while(header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
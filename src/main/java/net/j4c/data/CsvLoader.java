@@ -0,0 +1,526 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.j4c.ClusterItem;
+import net.j4c.ClusterItemClass;
+import net.j4c.IndexValue;
+
+/**
+ * Loads delimited text files (e.g. comma-separated). The bytes 
+ * of the file are parsed straight into a primitive buffer, so 
+ * no {@link String} is created per field (see {@link DoubleParser}).
+ * Optionally, one column can be the id and one column can be 
+ * the class (see {@link ClusterItemClass}); all other columns 
+ * are values. Empty lines are skipped.
+ * <p>
+ * With a parallelism greater than 1, the file is split into
+ * that many byte ranges which are parsed concurrently; the rows
+ * keep the order of the file.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class CsvLoader {
+
+	/**
+	 * Column index meaning that there is no such column.
+	 */
+	public static final int NONE = -1;
+	/**
+	 * Column index meaning the last column of each line.
+	 */
+	public static final int LAST = -2;
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private char delimiter = ',';
+	private int idColumn = NONE;
+	private int classColumn = NONE;
+	private int parallelism = 1;
+	
+	/**
+	 * Loads the values of a file.
+	 * @param file {@link File}.
+	 * @return {@link DenseDataset}.
+	 * @throws IOException
+	 */
+	public DenseDataset load(File file) throws IOException {
+		List<Chunk> chunks = parse(file, false);
+		
+		int size = 0;
+		int dimension = getDimension(chunks);
+		for(Chunk chunk : chunks) {
+			size += chunk.size;
+		}
+		
+		double[] values;
+		if(1 == chunks.size() && chunks.get(0).values.length == size * dimension) {
+			values = chunks.get(0).values;
+		} else {
+			values = new double[size * dimension];
+			int offset = 0;
+			for(Chunk chunk : chunks) {
+				int length = chunk.size * dimension;
+				System.arraycopy(chunk.values, 0, values, offset, length);
+				offset += length;
+			}
+		}
+		
+		return new DenseDataset(size, dimension, values);
+	}
+	
+	/**
+	 * Loads a file as a {@link List} of {@link ClusterItem}. If there
+	 * is a class column, the items are {@link ClusterItemClass}. If
+	 * there is no id column, the id is the row number (starting at 0).
+	 * @param file {@link File}.
+	 * @return {@link List} of {@link ClusterItem}.
+	 * @throws IOException
+	 */
+	public List<ClusterItem> loadClusterItems(File file) throws IOException {
+		List<Chunk> chunks = parse(file, true);
+		int dimension = getDimension(chunks);
+		
+		List<ClusterItem> items = new ArrayList<ClusterItem>();
+		int row = 0;
+		for(Chunk chunk : chunks) {
+			for(int i=0; i < chunk.size; i++, row++) {
+				String id = (NONE == idColumn) ? String.valueOf(row) : chunk.ids[i];
+				ClusterItem item = (NONE == classColumn) ? new ClusterItem(id) : new ClusterItemClass(id, chunk.classes[i]);
+				
+				int offset = i * dimension;
+				for(int j=0; j < dimension; j++) {
+					item.add(new IndexValue(j, chunk.values[offset + j]));
+				}
+				items.add(item);
+			}
+		}
+		
+		return items;
+	}
+	
+	/**
+	 * Opens a file as a {@link PointSource} that reads the values
+	 * of the lines in order, one buffer at a time, so the file 
+	 * does not have to fit in memory. At the end of the file, 
+	 * {@link PointSource#reset()} starts over.
+	 * @param file {@link File}.
+	 * @return {@link PointSource}.
+	 * @throws IOException
+	 */
+	public PointSource open(File file) throws IOException {
+		return new CsvPointSource(file);
+	}
+	
+	private static int getDimension(List<Chunk> chunks) throws IOException {
+		int dimension = -1;
+		for(Chunk chunk : chunks) {
+			if(chunk.dimension < 0)
+				continue;
+			if(dimension >= 0 && dimension != chunk.dimension)
+				throw new IOException("expected " + dimension + " values per line but got " + chunk.dimension);
+			dimension = chunk.dimension;
+		}
+		return (dimension < 0) ? 0 : dimension;
+	}
+	
+	private List<Chunk> parse(final File file, final boolean withLabels) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			long length = channel.size();
+			int numChunks = (int)Math.max(1L, Math.min(parallelism, length / BUFFER_SIZE));
+			
+			List<Chunk> chunks = new ArrayList<Chunk>();
+			if(1 == numChunks) {
+				Chunk chunk = new Chunk(withLabels);
+				chunk.parse(channel, 0L, length);
+				chunks.add(chunk);
+				return chunks;
+			}
+			
+			ExecutorService executor = Executors.newFixedThreadPool(numChunks);
+			try {
+				List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>();
+				for(int i=0; i < numChunks; i++) {
+					final long start = length * i / numChunks;
+					final long end = length * (i + 1) / numChunks;
+					futures.add(executor.submit(new Callable<Chunk>() {
+						@Override
+						public Chunk call() throws Exception {
+							Chunk chunk = new Chunk(withLabels);
+							chunk.parse(channel, start, end);
+							return chunk;
+						}
+					}));
+				}
+				
+				for(Future<Chunk> future : futures) {
+					chunks.add(future.get());
+				}
+				return chunks;
+			} catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while loading " + file);
+			} catch(ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if(cause instanceof IOException)
+					throw (IOException)cause;
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				throw new RuntimeException(cause);
+			} finally {
+				executor.shutdownNow();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+	
+	/**
+	 * The rows parsed from a byte range of the file.
+	 */
+	private class Chunk {
+		private boolean withLabels;
+		private int size;
+		private int dimension = -1;
+		private double[] values = new double[1024];
+		private String[] ids;
+		private String[] classes;
+		private Map<String, String> classCache;
+		
+		private Chunk(boolean withLabels) {
+			this.withLabels = withLabels;
+			if(withLabels) {
+				ids = new String[64];
+				classes = new String[64];
+				classCache = new HashMap<String, String>();
+			}
+		}
+		
+		/**
+		 * Parses the lines that start in [start, end). The last
+		 * line may extend past the end.
+		 */
+		private void parse(FileChannel channel, long start, long end) throws IOException {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			long position = start;
+			boolean skip = false;
+			
+			//a line that started in the previous range belongs to it
+			if(start > 0) {
+				ByteBuffer previous = ByteBuffer.allocate(1);
+				channel.read(previous, start - 1);
+				skip = ('\n' != previous.get(0));
+			}
+			
+			int limit = 0;
+			while(true) {
+				buffer.limit(bytes.length);
+				buffer.position(limit);
+				int read = channel.read(buffer, position);
+				boolean eof = (read < 0);
+				if(!eof) {
+					position += read;
+					limit += read;
+				}
+				
+				//consume all complete lines in the buffer
+				int lineStart = 0;
+				long lineStartPosition = position - limit;
+				for(int i=0; i < limit; i++) {
+					if('\n' != bytes[i])
+						continue;
+					
+					if(lineStartPosition + lineStart >= end)
+						return;
+					if(skip)
+						skip = false;
+					else
+						parseLine(bytes, lineStart, i);
+					lineStart = i + 1;
+				}
+				
+				if(eof) {
+					if(lineStart < limit && lineStartPosition + lineStart < end && !skip)
+						parseLine(bytes, lineStart, limit);
+					return;
+				}
+				
+				//move the incomplete line to the front of the buffer,
+				//growing the buffer if a single line does not fit
+				limit -= lineStart;
+				System.arraycopy(bytes, lineStart, bytes, 0, limit);
+				if(limit == bytes.length) {
+					bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+					buffer = ByteBuffer.wrap(bytes);
+				}
+			}
+		}
+		
+		private void parseLine(byte[] bytes, int start, int end) throws IOException {
+			if(end > start && '\r' == bytes[end-1])
+				end--;
+			if(isBlank(bytes, start, end))
+				return;
+			
+			int numColumns = 1;
+			for(int i=start; i < end; i++) {
+				if(delimiter == bytes[i])
+					numColumns++;
+			}
+			int id = (LAST == idColumn) ? numColumns - 1 : idColumn;
+			int clazz = (LAST == classColumn) ? numColumns - 1 : classColumn;
+			
+			int numValues = numColumns;
+			if(id >= 0)
+				numValues--;
+			if(clazz >= 0 && clazz != id)
+				numValues--;
+			if(dimension < 0)
+				dimension = numValues;
+			else if(dimension != numValues)
+				throw new IOException("expected " + dimension + " values per line but got " + numValues);
+			
+			ensureCapacity();
+			int offset = size * dimension;
+			int column = 0;
+			int fieldStart = start;
+			for(int i=start; i <= end; i++) {
+				if(i < end && delimiter != bytes[i])
+					continue;
+				
+				if(column == id || column == clazz) {
+					if(withLabels) {
+						String label = new String(bytes, fieldStart, i - fieldStart, UTF8).trim();
+						if(column == id)
+							ids[size] = label;
+						if(column == clazz)
+							classes[size] = getClass(label);
+					}
+				} else {
+					values[offset++] = DoubleParser.parseDouble(bytes, fieldStart, i);
+				}
+				
+				column++;
+				fieldStart = i + 1;
+			}
+			size++;
+		}
+		
+		private String getClass(String clazz) {
+			String cached = classCache.get(clazz);
+			if(null == cached) {
+				classCache.put(clazz, clazz);
+				cached = clazz;
+			}
+			return cached;
+		}
+		
+		private void ensureCapacity() {
+			int required = (size + 1) * dimension;
+			if(required > values.length)
+				values = Arrays.copyOf(values, Math.max(2 * values.length, required));
+			if(withLabels && size == ids.length) {
+				ids = Arrays.copyOf(ids, 2 * size);
+				classes = Arrays.copyOf(classes, 2 * size);
+			}
+		}
+		
+		private boolean isBlank(byte[] bytes, int start, int end) {
+			for(int i=start; i < end; i++) {
+				if(bytes[i] > ' ')
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Reads the lines of a file in order, parsing one buffer of
+	 * bytes at a time into a {@link Chunk}.
+	 */
+	private class CsvPointSource implements PointSource {
+		private RandomAccessFile file;
+		private FileChannel channel;
+		private byte[] bytes = new byte[BUFFER_SIZE];
+		private int start;
+		private int limit;
+		private long position;
+		private boolean eof;
+		private Chunk chunk = new Chunk(false);
+		private int row;
+		
+		private CsvPointSource(File file) throws IOException {
+			this.file = new RandomAccessFile(file, "r");
+			this.channel = this.file.getChannel();
+		}
+		
+		@Override
+		public int getDimension() throws IOException {
+			if(chunk.dimension < 0 && row == chunk.size)
+				fill();
+			return (chunk.dimension < 0) ? 0 : chunk.dimension;
+		}
+
+		@Override
+		public int read(double[] values, int offset, int maxRows) throws IOException {
+			int numRows = 0;
+			while(numRows < maxRows) {
+				if(row == chunk.size && !fill())
+					break;
+				
+				int count = Math.min(maxRows - numRows, chunk.size - row);
+				int dimension = chunk.dimension;
+				System.arraycopy(chunk.values, row * dimension, values, offset + numRows * dimension, count * dimension);
+				row += count;
+				numRows += count;
+			}
+			return numRows;
+		}
+
+		@Override
+		public void reset() {
+			start = 0;
+			limit = 0;
+			position = 0L;
+			eof = false;
+			chunk.size = 0;
+			row = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			file.close();
+		}
+		
+		/**
+		 * Parses the complete lines in the buffer, reading more 
+		 * bytes until there is at least one row or the end of 
+		 * the file.
+		 * @return boolean (false if there are no more rows).
+		 */
+		private boolean fill() throws IOException {
+			chunk.size = 0;
+			row = 0;
+			
+			while(true) {
+				int lineStart = start;
+				for(int i=start; i < limit; i++) {
+					if('\n' != bytes[i])
+						continue;
+					chunk.parseLine(bytes, lineStart, i);
+					lineStart = i + 1;
+				}
+				start = lineStart;
+				if(chunk.size > 0)
+					return true;
+				
+				if(eof) {
+					if(start < limit)
+						chunk.parseLine(bytes, start, limit);
+					start = limit;
+					return chunk.size > 0;
+				}
+				
+				//move the incomplete line to the front of the buffer,
+				//growing the buffer if a single line does not fit
+				limit -= start;
+				System.arraycopy(bytes, start, bytes, 0, limit);
+				start = 0;
+				if(limit == bytes.length)
+					bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+				
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, limit, bytes.length - limit);
+				int read = channel.read(buffer, position);
+				if(read < 0) {
+					eof = true;
+				} else {
+					position += read;
+					limit += read;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the delimiter.
+	 * @return char.
+	 */
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	public void setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Gets the index of the id column.
+	 * @return int ({@link #NONE} if there is no id column).
+	 */
+	public int getIdColumn() {
+		return idColumn;
+	}
+
+	public void setIdColumn(int idColumn) {
+		this.idColumn = idColumn;
+	}
+
+	/**
+	 * Gets the index of the class column.
+	 * @return int ({@link #NONE} if there is no class column).
+	 */
+	public int getClassColumn() {
+		return classColumn;
+	}
+
+	public void setClassColumn(int classColumn) {
+		this.classColumn = classColumn;
+	}
+
+	/**
+	 * Gets the number of byte ranges parsed concurrently.
+	 * @return int.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = (parallelism < 1) ? 1 : parallelism;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+/**
+ * Type of the values stored in a binary dataset file.
+ * @author Jee Vang
+ *
+ */
+public enum DataType {
+	/**
+	 * 8-byte IEEE 754 double.
+	 */
+	FLOAT64(0, 8),
+	/**
+	 * 4-byte IEEE 754 float. Halves the file size at
+	 * the cost of precision.
+	 */
+	FLOAT32(1, 4);
+	
+	private int id;
+	private int numOfBytes;
+	
+	private DataType(int id, int numOfBytes) {
+		this.id = id;
+		this.numOfBytes = numOfBytes;
+	}
+	
+	/**
+	 * Gets the id stored in the file header.
+	 * @return int.
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/**
+	 * Gets the number of bytes per value.
+	 * @return int.
+	 */
+	public int getNumOfBytes() {
+		return numOfBytes;
+	}
+	
+	/**
+	 * Gets the {@link DataType} for the id stored in the file header.
+	 * @param id Id.
+	 * @return {@link DataType}.
+	 */
+	public static DataType fromId(int id) {
+		for(DataType type : values()) {
+			if(type.id == id)
+				return type;
+		}
+		throw new IllegalArgumentException("unknown data type id = " + id);
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+/**
+ * A dataset of rows (points) over a fixed number of 
+ * columns (dimensions). Rows are identified by their
+ * int position in the dataset.
+ * @author Jee Vang
+ *
+ */
+public interface Dataset {
+
+	/**
+	 * Gets the number of rows.
+	 * @return int.
+	 */
+	public int size();
+	
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 */
+	public int getDimension();
+	
+	/**
+	 * Copies the values of a row into the buffer. The
+	 * buffer must have a length of at least the dimension.
+	 * @param row Row.
+	 * @param buffer Buffer.
+	 */
+	public void getRow(int row, double[] buffer);
+}
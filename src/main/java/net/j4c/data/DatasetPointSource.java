@@ -0,0 +1,80 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.util.Random;
+
+/**
+ * A {@link PointSource} that samples the rows of a {@link Dataset}
+ * uniformly at random (with replacement), so there is always 
+ * another row. The {@link Dataset} may be a {@link MappedDataset},
+ * in which case only the sampled rows are read from disk.
+ * @author Jee Vang
+ *
+ */
+public class DatasetPointSource implements PointSource {
+
+	private Dataset data;
+	private Random random;
+	
+	/**
+	 * Constructor.
+	 * @param data {@link Dataset}.
+	 * @param random {@link Random}.
+	 */
+	public DatasetPointSource(Dataset data, Random random) {
+		this.data = data;
+		this.random = random;
+	}
+	
+	@Override
+	public int getDimension() {
+		return data.getDimension();
+	}
+
+	@Override
+	public int read(double[] values, int offset, int maxRows) {
+		int numRows = data.size();
+		if(0 == numRows)
+			return 0;
+		
+		int dimension = data.getDimension();
+		double[] buffer = new double[dimension];
+		for(int i=0; i < maxRows; i++) {
+			data.getRow(random.nextInt(numRows), buffer);
+			System.arraycopy(buffer, 0, values, offset + i * dimension, dimension);
+		}
+		return maxRows;
+	}
+
+	@Override
+	public void reset() {
+		//rows are sampled, nothing to reset
+	}
+
+	@Override
+	public void close() {
+		//the dataset is not owned by the source
+	}
+	
+	/**
+	 * Gets the {@link Dataset}.
+	 * @return {@link Dataset}.
+	 */
+	public Dataset getData() {
+		return data;
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import net.j4c.ClusterItem;
+
+/**
+ * A dense dataset. The values are stored in a single
+ * contiguous row-major array, so that the value at
+ * (row, col) is at position (row * dimension + col).
+ * @author Jee Vang
+ *
+ */
+public class DenseDataset implements Dataset {
+
+	private int size;
+	private int dimension;
+	private double[] values;
+	
+	/**
+	 * Constructor. All values are initialized to 0.
+	 * @param size Number of rows.
+	 * @param dimension Number of columns.
+	 */
+	public DenseDataset(int size, int dimension) {
+		this(size, dimension, new double[size * dimension]);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param size Number of rows.
+	 * @param dimension Number of columns.
+	 * @param values Row-major values.
+	 */
+	public DenseDataset(int size, int dimension, double[] values) {
+		if(size < 0 || dimension < 0)
+			throw new IllegalArgumentException("size and dimension must be >= 0");
+		if(values.length < size * dimension)
+			throw new IllegalArgumentException("expected at least " + (size * dimension) + " values but got " + values.length);
+		
+		this.size = size;
+		this.dimension = dimension;
+		this.values = values;
+	}
+	
+	/**
+	 * Creates a {@link DenseDataset} from a {@link List} of {@link ClusterItem}.
+	 * The i-th {@link ClusterItem} becomes the i-th row, and
+	 * the dimension is one more than the largest index. Missing 
+	 * indexes are 0.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link DenseDataset}.
+	 */
+	public static DenseDataset fromClusterItems(List<ClusterItem> clusterItems) {
+		int size = clusterItems.size();
+		int dimension = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			for(Integer index : clusterItem.getIndexes()) {
+				if(index.intValue() >= dimension)
+					dimension = index.intValue() + 1;
+			}
+		}
+		
+		DenseDataset dataset = new DenseDataset(size, dimension);
+		double[] values = dataset.getValues();
+		int offset = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			Set<Integer> indexes = clusterItem.getIndexes();
+			for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); ) {
+				Integer index = it.next();
+				values[offset + index.intValue()] = clusterItem.getValue(index);
+			}
+			offset += dimension;
+		}
+		
+		return dataset;
+	}
+	
+	/**
+	 * Creates a {@link DenseDataset} with the rows of a {@link Dataset}
+	 * scaled to unit (Euclidean) length, e.g. for 
+	 * {@link net.j4c.SphericalKmeansClusterer}. Rows of all 0s stay 0.
+	 * @param data {@link Dataset}.
+	 * @return {@link DenseDataset}.
+	 */
+	public static DenseDataset normalize(Dataset data) {
+		int size = data.size();
+		int dimension = data.getDimension();
+		DenseDataset dataset = new DenseDataset(size, dimension);
+		double[] values = dataset.getValues();
+		double[] buffer = new double[dimension];
+		for(int row=0; row < size; row++) {
+			data.getRow(row, buffer);
+			double squaredNorm = 0.0d;
+			for(int i=0; i < dimension; i++) {
+				squaredNorm += buffer[i] * buffer[i];
+			}
+			double scale = (squaredNorm > 0.0d) ? 1.0d / Math.sqrt(squaredNorm) : 1.0d;
+			int offset = row * dimension;
+			for(int i=0; i < dimension; i++) {
+				values[offset + i] = buffer[i] * scale;
+			}
+		}
+		return dataset;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	@Override
+	public void getRow(int row, double[] buffer) {
+		System.arraycopy(values, getOffset(row), buffer, 0, dimension);
+	}
+	
+	/**
+	 * Sets the values of a row from the buffer.
+	 * @param row Row.
+	 * @param buffer Buffer.
+	 */
+	public void setRow(int row, double[] buffer) {
+		System.arraycopy(buffer, 0, values, getOffset(row), dimension);
+	}
+	
+	/**
+	 * Gets the value at the specified row and column.
+	 * @param row Row.
+	 * @param col Column.
+	 * @return double.
+	 */
+	public double getValue(int row, int col) {
+		return values[row * dimension + col];
+	}
+	
+	/**
+	 * Sets the value at the specified row and column.
+	 * @param row Row.
+	 * @param col Column.
+	 * @param value Value.
+	 */
+	public void setValue(int row, int col, double value) {
+		values[row * dimension + col] = value;
+	}
+	
+	/**
+	 * Gets the offset of the first value of a row 
+	 * in the values array.
+	 * @param row Row.
+	 * @return int.
+	 */
+	public int getOffset(int row) {
+		return row * dimension;
+	}
+	
+	/**
+	 * Gets the row-major values. This is the backing array,
+	 * not a copy.
+	 * @return Values.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(int row=0; row < size; row++) {
+			int offset = getOffset(row);
+			sb.append('[');
+			for(int col=0; col < dimension; col++) {
+				sb.append(col);
+				sb.append(':');
+				sb.append(values[offset + col]);
+				
+				if(col < dimension-1)
+					sb.append(',');
+			}
+			sb.append(']');
+			
+			if(row < size-1)
+				sb.append(System.getProperty("line.separator"));
+		}
+		return sb.toString();
+	}
+}
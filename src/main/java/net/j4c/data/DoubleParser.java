@@ -0,0 +1,251 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+/**
+ * Parses decimal numbers directly from bytes, without creating
+ * a {@link String} for each number. The result is the same 
+ * (correctly rounded) value as {@link Double#parseDouble(String)}.
+ * Numbers with up to 15 significant digits and small exponents are 
+ * converted exactly with a single multiplication or division (Clinger's 
+ * fast path); up to 19 significant digits are converted with the 
+ * Eisel-Lemire algorithm. Anything else (more digits, subnormals, 
+ * "NaN", hexadecimal, etc.) falls back to {@link Double#parseDouble(String)}.
+ * @author Jee Vang
+ *
+ */
+public final class DoubleParser {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	private static final int MAX_DIGITS = 19;
+	private static final int MIN_EXPONENT = -342;
+	private static final int MAX_EXPONENT = 308;
+	private static final double[] SMALL_POWERS = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	//128-bit mantissas of the powers of 10 (rounded down), normalized
+	//so that the most significant bit of the high word is set
+	private static final long[] POWERS_HI = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+	private static final long[] POWERS_LO = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+	
+	static {
+		BigInteger five = BigInteger.valueOf(5L);
+		for(int exponent=MIN_EXPONENT; exponent <= MAX_EXPONENT; exponent++) {
+			//10^e and 5^e only differ by a power of 2, so they
+			//have the same normalized mantissa
+			BigInteger m;
+			if(exponent >= 0) {
+				m = five.pow(exponent);
+				int shift = m.bitLength() - 128;
+				m = (shift > 0) ? m.shiftRight(shift) : m.shiftLeft(-shift);
+			} else {
+				BigInteger p = five.pow(-exponent);
+				m = BigInteger.ONE.shiftLeft(p.bitLength() + 127).divide(p);
+			}
+			
+			POWERS_HI[exponent - MIN_EXPONENT] = m.shiftRight(64).longValue();
+			POWERS_LO[exponent - MIN_EXPONENT] = m.longValue();
+		}
+	}
+	
+	private DoubleParser() { }
+	
+	/**
+	 * Parses the bytes in [start, end) as a double. Leading
+	 * and trailing whitespace is ignored.
+	 * @param bytes Bytes.
+	 * @param start Start position (inclusive).
+	 * @param end End position (exclusive).
+	 * @return double.
+	 * @throws NumberFormatException If the bytes are not a number.
+	 */
+	public static double parseDouble(byte[] bytes, int start, int end) {
+		int i = start;
+		int e = end;
+		while(i < e && bytes[i] <= ' ') 
+			i++;
+		while(e > i && bytes[e-1] <= ' ')
+			e--;
+		
+		boolean negative = false;
+		if(i < e && ('-' == bytes[i] || '+' == bytes[i])) {
+			negative = ('-' == bytes[i]);
+			i++;
+		}
+		
+		//value = mantissa * 10^exponent
+		long mantissa = 0L;
+		int numDigits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		
+		for(; i < e && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+			hasDigits = true;
+			if(0L != mantissa || '0' != bytes[i]) {
+				if(++numDigits > MAX_DIGITS)
+					return fallback(bytes, start, end);
+				mantissa = 10L * mantissa + (bytes[i] - '0');
+			}
+		}
+		
+		if(i < e && '.' == bytes[i]) {
+			for(i++; i < e && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+				hasDigits = true;
+				if(0L != mantissa || '0' != bytes[i]) {
+					if(++numDigits > MAX_DIGITS)
+						return fallback(bytes, start, end);
+					mantissa = 10L * mantissa + (bytes[i] - '0');
+				}
+				exponent--;
+			}
+		}
+		
+		if(!hasDigits)
+			return fallback(bytes, start, end);
+		
+		if(i < e && ('e' == bytes[i] || 'E' == bytes[i])) {
+			i++;
+			boolean negativeExponent = false;
+			if(i < e && ('-' == bytes[i] || '+' == bytes[i])) {
+				negativeExponent = ('-' == bytes[i]);
+				i++;
+			}
+			
+			if(i == e)
+				return fallback(bytes, start, end);
+			
+			int value = 0;
+			for(; i < e && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+				if(value < 100000)
+					value = 10 * value + (bytes[i] - '0');
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+		
+		//trailing characters (e.g. a 'd' or 'f' suffix)
+		if(i != e)
+			return fallback(bytes, start, end);
+		
+		if(0L == mantissa)
+			return negative ? -0.0d : 0.0d;
+		
+		//exact when both the mantissa and the power of 10 are exact doubles
+		if(mantissa > 0L && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+			double d = (double)mantissa;
+			d = (exponent < 0) ? d / SMALL_POWERS[-exponent] : d * SMALL_POWERS[exponent];
+			return negative ? -d : d;
+		}
+		
+		double d = eiselLemire(mantissa, exponent, negative);
+		if(Double.isNaN(d))
+			return fallback(bytes, start, end);
+		return d;
+	}
+	
+	/**
+	 * Converts mantissa * 10^exponent with the Eisel-Lemire algorithm.
+	 * The mantissa is unsigned.
+	 * @return The double, or NaN if the result cannot be decided exactly.
+	 */
+	private static double eiselLemire(long mantissa, int exponent, boolean negative) {
+		if(exponent < MIN_EXPONENT || exponent > MAX_EXPONENT)
+			return Double.NaN;
+		
+		//normalization
+		int clz = Long.numberOfLeadingZeros(mantissa);
+		mantissa <<= clz;
+		long retExp2 = ((217706 * exponent) >> 16) + 64 + 1023 - clz;
+		
+		//multiplication
+		int index = exponent - MIN_EXPONENT;
+		long xHi = multiplyHigh(mantissa, POWERS_HI[index]);
+		long xLo = mantissa * POWERS_HI[index];
+		
+		//wider approximation
+		if(0x1FFL == (xHi & 0x1FFL) && lessThan(xLo + mantissa, mantissa)) {
+			long yHi = multiplyHigh(mantissa, POWERS_LO[index]);
+			long yLo = mantissa * POWERS_LO[index];
+			long mergedHi = xHi;
+			long mergedLo = xLo + yHi;
+			if(lessThan(mergedLo, xLo))
+				mergedHi++;
+			if(0x1FFL == (mergedHi & 0x1FFL) && -1L == mergedLo && lessThan(yLo + mantissa, mantissa))
+				return Double.NaN;
+			xHi = mergedHi;
+			xLo = mergedLo;
+		}
+		
+		//shifting to 54 bits
+		int msb = (int)(xHi >>> 63);
+		long retMantissa = xHi >>> (msb + 9);
+		retExp2 -= 1 ^ msb;
+		
+		//half-way ambiguity
+		if(0L == xLo && 0L == (xHi & 0x1FFL) && 1L == (retMantissa & 3L))
+			return Double.NaN;
+		
+		//from 54 to 53 bits
+		retMantissa += retMantissa & 1L;
+		retMantissa >>>= 1;
+		if((retMantissa >>> 53) > 0L) {
+			retMantissa >>>= 1;
+			retExp2 += 1;
+		}
+		
+		//subnormal, infinite or NaN
+		if(retExp2 <= 0L || retExp2 >= 0x7FFL)
+			return Double.NaN;
+		
+		long bits = (retExp2 << 52) | (retMantissa & 0x000FFFFFFFFFFFFFL);
+		if(negative)
+			bits |= 0x8000000000000000L;
+		return Double.longBitsToDouble(bits);
+	}
+	
+	/**
+	 * Gets the high 64 bits of the unsigned 128-bit product.
+	 */
+	private static long multiplyHigh(long a, long b) {
+		long aLo = a & 0xFFFFFFFFL;
+		long aHi = a >>> 32;
+		long bLo = b & 0xFFFFFFFFL;
+		long bHi = b >>> 32;
+		
+		long loLo = aLo * bLo;
+		long hiLo = aHi * bLo;
+		long loHi = aLo * bHi;
+		long hiHi = aHi * bHi;
+		
+		long cross = (loLo >>> 32) + (hiLo & 0xFFFFFFFFL) + loHi;
+		return hiHi + (hiLo >>> 32) + (cross >>> 32);
+	}
+	
+	/**
+	 * Unsigned less-than.
+	 */
+	private static boolean lessThan(long a, long b) {
+		return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+	}
+	
+	private static double fallback(byte[] bytes, int start, int end) {
+		return Double.parseDouble(new String(bytes, start, end - start, ASCII));
+	}
+}
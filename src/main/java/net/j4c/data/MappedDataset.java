@@ -0,0 +1,176 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link Dataset} backed by a memory-mapped binary dataset 
+ * file (see {@link BinaryDatasetWriter} for the format). The 
+ * values stay in the file (and the OS page cache) instead of 
+ * on the heap, so datasets larger than the heap can be clustered. 
+ * Since a single mapping is limited to 2GB, the file is mapped 
+ * in segments of whole rows.
+ * <p>
+ * Reading rows is thread-safe. Note that the mappings are only
+ * released when they are garbage collected, even after 
+ * {@link #close()}.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class MappedDataset implements Dataset, Closeable {
+
+	private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+	
+	private RandomAccessFile file;
+	private int size;
+	private int dimension;
+	private DataType dataType;
+	private int rowSize;
+	private int rowsPerSegment;
+	private MappedByteBuffer[] segments;
+	
+	/**
+	 * Constructor.
+	 * @param file {@link File}.
+	 * @throws IOException
+	 */
+	public MappedDataset(File file) throws IOException {
+		this(file, MAX_SEGMENT_SIZE);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param file {@link File}.
+	 * @param maxSegmentSize Maximum number of bytes per mapped segment.
+	 * @throws IOException
+	 */
+	public MappedDataset(File file, long maxSegmentSize) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = this.file.getChannel();
+			readHeader(channel);
+			
+			rowSize = dimension * dataType.getNumOfBytes();
+			long segmentSize = Math.min(maxSegmentSize, MAX_SEGMENT_SIZE);
+			rowsPerSegment = (0 == rowSize) ? Integer.MAX_VALUE : (int)Math.max(1L, segmentSize / rowSize);
+			
+			long expected = BinaryDatasetWriter.HEADER_SIZE + (long)size * rowSize;
+			if(channel.size() < expected)
+				throw new IOException("expected at least " + expected + " bytes but file has " + channel.size());
+			
+			int numSegments = (0 == size) ? 0 : (int)((size - 1L) / rowsPerSegment + 1L);
+			segments = new MappedByteBuffer[numSegments];
+			for(int i=0; i < numSegments; i++) {
+				long firstRow = (long)i * rowsPerSegment;
+				long numRows = Math.min(rowsPerSegment, size - firstRow);
+				long position = BinaryDatasetWriter.HEADER_SIZE + firstRow * rowSize;
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, numRows * rowSize);
+				segment.order(ByteOrder.LITTLE_ENDIAN);
+				segments[i] = segment;
+			}
+		} catch(IOException ex) {
+			this.file.close();
+			throw ex;
+		}
+	}
+	
+	private void readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(BinaryDatasetWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while(header.hasRemaining()) {
+			if(channel.read(header) < 0)
+				throw new IOException("file is too short to have a header");
+		}
+		header.flip();
+		
+		if(BinaryDatasetWriter.MAGIC != header.getInt())
+			throw new IOException("not a binary dataset file");
+		int version = header.getInt();
+		if(BinaryDatasetWriter.VERSION != version)
+			throw new IOException("unsupported version = " + version);
+		
+		long numRows = header.getLong();
+		if(numRows < 0 || numRows > Integer.MAX_VALUE)
+			throw new IOException("unsupported number of rows = " + numRows);
+		
+		size = (int)numRows;
+		dimension = header.getInt();
+		dataType = DataType.fromId(header.getInt());
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+	
+	/**
+	 * Gets the {@link DataType} of the values in the file.
+	 * @return {@link DataType}.
+	 */
+	public DataType getDataType() {
+		return dataType;
+	}
+
+	@Override
+	public void getRow(int row, double[] buffer) {
+		//absolute gets do not touch the position of the
+		//segment, so concurrent readers are safe
+		MappedByteBuffer segment = segments[row / rowsPerSegment];
+		int position = (row % rowsPerSegment) * rowSize;
+		
+		if(DataType.FLOAT32 == dataType) {
+			for(int i=0; i < dimension; i++, position += 4) {
+				buffer[i] = segment.getFloat(position);
+			}
+		} else {
+			for(int i=0; i < dimension; i++, position += 8) {
+				buffer[i] = segment.getDouble(position);
+			}
+		}
+	}
+	
+	/**
+	 * Loads all the rows onto the heap.
+	 * @return {@link DenseDataset}.
+	 */
+	public DenseDataset toDenseDataset() {
+		DenseDataset dense = new DenseDataset(size, dimension);
+		double[] buffer = new double[dimension];
+		for(int row=0; row < size; row++) {
+			getRow(row, buffer);
+			dense.setRow(row, buffer);
+		}
+		return dense;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
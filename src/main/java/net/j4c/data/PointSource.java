@@ -0,0 +1,53 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of rows (points) that are read in batches, for 
+ * clustering data that does not have to be in memory (see 
+ * {@link net.j4c.MiniBatchKmeansClusterer}).
+ * @author Jee Vang
+ *
+ */
+public interface PointSource extends Closeable {
+
+	/**
+	 * Gets the number of columns.
+	 * @return int.
+	 * @throws IOException
+	 */
+	public int getDimension() throws IOException;
+	
+	/**
+	 * Reads the next rows into the buffer, one row after
+	 * the other.
+	 * @param values Buffer.
+	 * @param offset Index in the buffer of the first value.
+	 * @param maxRows Maximum number of rows to read.
+	 * @return Number of rows read, 0 if there are no more rows.
+	 * @throws IOException
+	 */
+	public int read(double[] values, int offset, int maxRows) throws IOException;
+	
+	/**
+	 * Starts reading again from the first row.
+	 * @throws IOException
+	 */
+	public void reset() throws IOException;
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import net.j4c.ClusterItem;
+
+/**
+ * A sparse dataset in compressed sparse row (CSR) format.
+ * The non-zero values of row r are at positions 
+ * [pointers[r], pointers[r+1]) of the indices and values
+ * arrays, and the indices of each row are sorted in 
+ * ascending order. The squared norm of each row is 
+ * computed once and cached.
+ * @author Jee Vang
+ *
+ */
+public class SparseDataset implements Dataset {
+
+	private int size;
+	private int dimension;
+	private int[] pointers;
+	private int[] indices;
+	private double[] values;
+	private double[] squaredNorms;
+	
+	/**
+	 * Constructor.
+	 * @param size Number of rows.
+	 * @param dimension Number of columns.
+	 * @param pointers Row pointers (length size+1).
+	 * @param indices Column indices, sorted ascending within each row.
+	 * @param values Values.
+	 */
+	public SparseDataset(int size, int dimension, int[] pointers, int[] indices, double[] values) {
+		if(size < 0 || dimension < 0)
+			throw new IllegalArgumentException("size and dimension must be >= 0");
+		if(pointers.length < size + 1)
+			throw new IllegalArgumentException("expected " + (size + 1) + " row pointers but got " + pointers.length);
+		
+		this.size = size;
+		this.dimension = dimension;
+		this.pointers = pointers;
+		this.indices = indices;
+		this.values = values;
+		this.squaredNorms = new double[size];
+		
+		for(int row=0; row < size; row++) {
+			int start = pointers[row];
+			int end = pointers[row+1];
+			double sum = 0.0d;
+			for(int i=start; i < end; i++) {
+				int index = indices[i];
+				if(index < 0 || index >= dimension)
+					throw new IllegalArgumentException("index " + index + " of row " + row + " is out of range");
+				if(i > start && index <= indices[i-1])
+					throw new IllegalArgumentException("indices of row " + row + " are not sorted ascending");
+				sum += values[i] * values[i];
+			}
+			squaredNorms[row] = sum;
+		}
+	}
+	
+	/**
+	 * Creates a {@link SparseDataset} from a {@link List} of {@link ClusterItem}.
+	 * The i-th {@link ClusterItem} becomes the i-th row, and
+	 * the dimension is one more than the largest index.
+	 * @param clusterItems {@link List} of {@link ClusterItem}.
+	 * @return {@link SparseDataset}.
+	 */
+	public static SparseDataset fromClusterItems(List<ClusterItem> clusterItems) {
+		int size = clusterItems.size();
+		int[] pointers = new int[size + 1];
+		int row = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			pointers[row+1] = pointers[row] + clusterItem.size();
+			row++;
+		}
+		
+		int[] indices = new int[pointers[size]];
+		double[] values = new double[pointers[size]];
+		int dimension = 0;
+		row = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			Set<Integer> indexes = clusterItem.getIndexes();
+			int start = pointers[row];
+			int i = start;
+			for(Integer index : indexes) {
+				indices[i++] = index.intValue();
+			}
+			Arrays.sort(indices, start, i);
+			
+			for(i=start; i < pointers[row+1]; i++) {
+				values[i] = clusterItem.getValue(indices[i]);
+				if(indices[i] >= dimension)
+					dimension = indices[i] + 1;
+			}
+			row++;
+		}
+		
+		return new SparseDataset(size, dimension, pointers, indices, values);
+	}
+	
+	/**
+	 * Gets a new {@link SparseDataset} made up of the 
+	 * specified rows (in that order).
+	 * @param rows Rows.
+	 * @return {@link SparseDataset}.
+	 */
+	public SparseDataset getRows(int[] rows) {
+		int[] newPointers = new int[rows.length + 1];
+		for(int i=0; i < rows.length; i++) {
+			newPointers[i+1] = newPointers[i] + (pointers[rows[i]+1] - pointers[rows[i]]);
+		}
+		
+		int[] newIndices = new int[newPointers[rows.length]];
+		double[] newValues = new double[newPointers[rows.length]];
+		for(int i=0; i < rows.length; i++) {
+			int start = pointers[rows[i]];
+			int length = pointers[rows[i]+1] - start;
+			System.arraycopy(indices, start, newIndices, newPointers[i], length);
+			System.arraycopy(values, start, newValues, newPointers[i], length);
+		}
+		
+		return new SparseDataset(rows.length, dimension, newPointers, newIndices, newValues);
+	}
+	
+	/**
+	 * Gets a new {@link SparseDataset} with the rows scaled to unit
+	 * (Euclidean) length, e.g. for {@link net.j4c.SphericalKmeansClusterer}.
+	 * Rows of all 0s stay 0. The row pointers and column indices are 
+	 * shared with this dataset; only the values are new.
+	 * @return {@link SparseDataset}.
+	 */
+	public SparseDataset normalize() {
+		double[] newValues = new double[values.length];
+		for(int row=0; row < size; row++) {
+			double scale = (squaredNorms[row] > 0.0d) ? 1.0d / Math.sqrt(squaredNorms[row]) : 1.0d;
+			for(int i=pointers[row]; i < pointers[row+1]; i++) {
+				newValues[i] = values[i] * scale;
+			}
+		}
+		return new SparseDataset(size, dimension, pointers, indices, newValues);
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	@Override
+	public void getRow(int row, double[] buffer) {
+		Arrays.fill(buffer, 0, dimension, 0.0d);
+		for(int i=pointers[row]; i < pointers[row+1]; i++) {
+			buffer[indices[i]] = values[i];
+		}
+	}
+	
+	/**
+	 * Gets the position of the first non-zero value of a row.
+	 * @param row Row.
+	 * @return int.
+	 */
+	public int getRowStart(int row) {
+		return pointers[row];
+	}
+	
+	/**
+	 * Gets the position after the last non-zero value of a row.
+	 * @param row Row.
+	 * @return int.
+	 */
+	public int getRowEnd(int row) {
+		return pointers[row+1];
+	}
+	
+	/**
+	 * Gets the squared (Euclidean) norm of a row.
+	 * @param row Row.
+	 * @return double.
+	 */
+	public double getSquaredNorm(int row) {
+		return squaredNorms[row];
+	}
+	
+	/**
+	 * Gets the total number of non-zero values.
+	 * @return int.
+	 */
+	public int getNumOfNonZeros() {
+		return pointers[size];
+	}
+	
+	/**
+	 * Gets the row pointers. This is the backing array,
+	 * not a copy.
+	 * @return Row pointers.
+	 */
+	public int[] getPointers() {
+		return pointers;
+	}
+	
+	/**
+	 * Gets the column indices. This is the backing array,
+	 * not a copy.
+	 * @return Column indices.
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+	
+	/**
+	 * Gets the non-zero values. This is the backing array,
+	 * not a copy.
+	 * @return Values.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+	
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(int row=0; row < size; row++) {
+			int start = pointers[row];
+			int end = pointers[row+1];
+			sb.append('[');
+			for(int i=start; i < end; i++) {
+				sb.append(indices[i]);
+				sb.append(':');
+				sb.append(values[i]);
+				
+				if(i < end-1)
+					sb.append(',');
+			}
+			sb.append(']');
+			
+			if(row < size-1)
+				sb.append(System.getProperty("line.separator"));
+		}
+		return sb.toString();
+	}
+}
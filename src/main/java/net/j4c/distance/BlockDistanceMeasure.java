@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+/**
+ * A {@link DatasetDistanceMeasure} that can compute the distances from a 
+ * block of rows to all centroids at once, by expanding them into 
+ * norms (computed once and cached by the caller) and dot-products
+ * (computed with cache-tiled loops, see 
+ * {@link DistanceKernels#getDotProducts(double[], int, double[], int, int, double[])}).
+ * For example, the squared Euclidean distance is 
+ * ||x||^2 + ||c||^2 - 2x.c. The expanded distances lose precision
+ * when the vectors are far from the origin compared to their 
+ * distance, so they are approximations within 
+ * {@link #getError(double, double, int)} of 
+ * {@link #getDistance(double[], int, double[], int, int)}; 
+ * k-means uses them to narrow down the closest centroid and then
+ * computes the exact distance to the few that remain.
+ * @author Jee Vang
+ *
+ */
+public interface BlockDistanceMeasure extends DatasetDistanceMeasure {
+
+	/**
+	 * Checks if the distance can be expanded (e.g. a 
+	 * {@link MinkowskiDistance} only can for p = 2). If not,
+	 * the other methods must not be used.
+	 * @return boolean.
+	 */
+	public boolean isExpandable();
+	
+	/**
+	 * Computes the norm of a vector, as used by the expansion
+	 * (e.g. the squared norm for the Euclidean distance).
+	 * @param values Values of the vector.
+	 * @param offset Offset of the vector.
+	 * @param length Number of values (dimension).
+	 * @return double.
+	 */
+	public double getNorm(double[] values, int offset, int length);
+	
+	/**
+	 * Computes the approximate distances from each of a block of 
+	 * rows to each centroid.
+	 * @param rows Values of the rows (row-major).
+	 * @param rowNorms Norm of each row (see {@link #getNorm(double[], int, int)}).
+	 * @param numRows Number of rows.
+	 * @param centroids Values of the centroids (row-major).
+	 * @param centroidNorms Norm of each centroid.
+	 * @param numCentroids Number of centroids.
+	 * @param dimension Number of values of a row.
+	 * @param distances Distances (output, row-major, numRows x numCentroids).
+	 */
+	public void getDistances(double[] rows, double[] rowNorms, int numRows, 
+			double[] centroids, double[] centroidNorms, int numCentroids, int dimension, double[] distances);
+	
+	/**
+	 * Gets how far an approximate distance may be from the exact
+	 * one, given the norms of the two vectors. The error does not
+	 * decrease as either norm grows, so the largest norm of a set
+	 * of centroids gives an error for all of them.
+	 * @param norm1 Norm of the first vector.
+	 * @param norm2 Norm of the second vector.
+	 * @param length Number of values (dimension).
+	 * @return double.
+	 */
+	public double getError(double norm1, double norm2, int length);
+}
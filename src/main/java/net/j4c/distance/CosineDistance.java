@@ -1,75 +1,201 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c.distance;
-
-import java.util.Iterator;
-import java.util.Set;
-
-import net.j4c.ClusterItem;
-
-/**
- * Cosine distance. This uses the cosine-similarity
- * measure, which produces a value in the range [0, 1],
- * where a value closer to 1 means more similarity. Whatever
- * the value is, we return (1 - cosine_similarity) as
- * a distance measure/value.
- * @author Jee Vang
- *
- */
-public class CosineDistance implements DistanceMeasure {
-
-	@Override
-	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
-		double ab = getDotProduct(clusterItem1, clusterItem2);
-		double aa = getDotProduct(clusterItem1, clusterItem1);
-		double bb = getDotProduct(clusterItem2, clusterItem2);
-		
-		aa = Math.sqrt(aa);
-		bb = Math.sqrt(bb);
-		
-		double denom = aa * bb;
-		double similarity = (0.0d == denom) ? 0.0d : (ab / denom);
-		double dist = 1.0d - similarity;
-		return dist;
-	}
-	
-	/**
-	 * Computes the dot-product between two {@link ClusterItem}.
-	 * @param clusterItem1 {@link ClusterItem}.
-	 * @param clusterItem2 {@link ClusterItem}.
-	 * @return Dot-product.
-	 */
-	public double getDotProduct(ClusterItem clusterItem1, ClusterItem clusterItem2) {
-		Set<Integer> indexes1 = clusterItem1.getIndexes();
-		Set<Integer> indexes2 = clusterItem2.getIndexes();
-		
-		int size1 = indexes1.size();
-		int size2 = indexes2.size();
-		
-		Set<Integer> indexes = (size1 < size2) ? indexes1 : indexes2;
-		double sum = 0.0d;
-		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); ) {
-			Integer index = it.next();
-			double d1 = clusterItem1.getValue(index);
-			double d2 = clusterItem2.getValue(index);
-			double d = d1 * d2;
-			sum += d;
-		}
-		
-		return sum;
-	}
-
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+import net.j4c.ClusterItem;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Cosine distance. This uses the cosine-similarity
+ * measure, which produces a value in the range [0, 1],
+ * where a value closer to 1 means more similarity. Whatever
+ * the value is, we return (1 - cosine_similarity) as
+ * a distance measure/value. The distances to many centroids
+ * can be computed at once (see {@link BlockDistanceMeasure}),
+ * where the norms are the Euclidean norms.
+ * @author Jee Vang
+ *
+ */
+public class CosineDistance implements BlockDistanceMeasure {
+
+	static final DistanceKernels KERNELS = DistanceKernels.getInstance();
+	static final double EPSILON = Math.ulp(1.0d);
+
+	@Override
+	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
+		double ab = getDotProduct(clusterItem1, clusterItem2);
+		double aa = getDotProduct(clusterItem1, clusterItem1);
+		double bb = getDotProduct(clusterItem2, clusterItem2);
+		
+		aa = Math.sqrt(aa);
+		bb = Math.sqrt(bb);
+		
+		double denom = aa * bb;
+		double similarity = (0.0d == denom) ? 0.0d : (ab / denom);
+		double dist = 1.0d - similarity;
+		return dist;
+	}
+	
+	@Override
+	public double getDistance(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		//one pass for the dot-product and both norms
+		return KERNELS.getCosine(values1, offset1, values2, offset2, length);
+	}
+	
+	/**
+	 * Computes the dot-product between two {@link ClusterItem}.
+	 * @param clusterItem1 {@link ClusterItem}.
+	 * @param clusterItem2 {@link ClusterItem}.
+	 * @return Dot-product.
+	 */
+	public double getDotProduct(ClusterItem clusterItem1, ClusterItem clusterItem2) {
+		Set<Integer> indexes1 = clusterItem1.getIndexes();
+		Set<Integer> indexes2 = clusterItem2.getIndexes();
+		
+		int size1 = indexes1.size();
+		int size2 = indexes2.size();
+		
+		Set<Integer> indexes = (size1 < size2) ? indexes1 : indexes2;
+		double sum = 0.0d;
+		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); ) {
+			Integer index = it.next();
+			double d1 = clusterItem1.getValue(index);
+			double d2 = clusterItem2.getValue(index);
+			double d = d1 * d2;
+			sum += d;
+		}
+		
+		return sum;
+	}
+	
+	@Override
+	public double getDistance(SparseDataset data1, int row1, SparseDataset data2, int row2) {
+		double ab = getDotProduct(data1, row1, data2, row2);
+		//the norms are cached by the datasets
+		double denom = Math.sqrt(data1.getSquaredNorm(row1) * data2.getSquaredNorm(row2));
+		double similarity = (0.0d == denom) ? 0.0d : (ab / denom);
+		double dist = 1.0d - similarity;
+		return dist;
+	}
+	
+	/**
+	 * Computes the dot-product between two rows of {@link SparseDataset}s
+	 * by merging their sorted indices. When one row has far fewer 
+	 * non-zero values than the other (e.g. a document against a 
+	 * centroid), the longer row is binary searched instead.
+	 * @param data1 {@link SparseDataset} of the first row.
+	 * @param row1 First row.
+	 * @param data2 {@link SparseDataset} of the second row.
+	 * @param row2 Second row.
+	 * @return Dot-product.
+	 */
+	public double getDotProduct(SparseDataset data1, int row1, SparseDataset data2, int row2) {
+		int i = data1.getRowStart(row1);
+		int end1 = data1.getRowEnd(row1);
+		int j = data2.getRowStart(row2);
+		int end2 = data2.getRowEnd(row2);
+		
+		//make the first row the shorter one
+		if(end1 - i > end2 - j) {
+			SparseDataset data = data1;
+			data1 = data2;
+			data2 = data;
+			int t = i; i = j; j = t;
+			t = end1; end1 = end2; end2 = t;
+		}
+		
+		int[] indices1 = data1.getIndices();
+		double[] values1 = data1.getValues();
+		int[] indices2 = data2.getIndices();
+		double[] values2 = data2.getValues();
+		double sum = 0.0d;
+		
+		if((end1 - i) * 16 < (end2 - j)) {
+			for(; i < end1 && j < end2; i++) {
+				int found = Arrays.binarySearch(indices2, j, end2, indices1[i]);
+				if(found >= 0) {
+					sum += values1[i] * values2[found];
+					j = found + 1;
+				} else {
+					j = -found - 1;
+				}
+			}
+		} else {
+			while(i < end1 && j < end2) {
+				int index1 = indices1[i];
+				int index2 = indices2[j];
+				if(index1 == index2) {
+					sum += values1[i] * values2[j];
+					i++;
+					j++;
+				} else if(index1 < index2) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+		}
+		
+		return sum;
+	}
+	
+	@Override
+	public boolean isExpandable() {
+		return true;
+	}
+	
+	@Override
+	public double getNorm(double[] values, int offset, int length) {
+		return Math.sqrt(KERNELS.getDotProduct(values, offset, values, offset, length));
+	}
+	
+	@Override
+	public void getDistances(double[] rows, double[] rowNorms, int numRows, 
+			double[] centroids, double[] centroidNorms, int numCentroids, int dimension, double[] distances) {
+		KERNELS.getDotProducts(rows, numRows, centroids, numCentroids, dimension, distances);
+		for(int row=0; row < numRows; row++) {
+			int offset = row * numCentroids;
+			for(int index=0; index < numCentroids; index++) {
+				double denom = rowNorms[row] * centroidNorms[index];
+				double similarity = (0.0d == denom) ? 0.0d : (distances[offset + index] / denom);
+				distances[offset + index] = 1.0d - similarity;
+			}
+		}
+	}
+	
+	/**
+	 * The rounding error of a dot-product is at most about 
+	 * length * epsilon * ||a|| * ||b||, so the error of the 
+	 * similarity does not depend on the norms.
+	 */
+	@Override
+	public double getError(double norm1, double norm2, int length) {
+		return 4.0d * (length + 2) * EPSILON;
+	}
+	
+	/**
+	 * Cosine distance does not satisfy the triangle inequality.
+	 */
+	@Override
+	public boolean isMetric() {
+		return false;
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.j4c.ClusterItem;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Counts the distances computed by another {@link DistanceMeasure},
+ * e.g. to see how many distances seeding takes. The count is safe to
+ * update from multiple threads, but costs an atomic increment per 
+ * distance, so this is meant for measuring rather than production runs.
+ * A clusterer that needs a particular measure (e.g. the Euclidean 
+ * {@link MinkowskiDistance} of {@link net.j4c.KdTreeKmeansClusterer}) 
+ * does not see through the wrapper.
+ * @author Jee Vang
+ *
+ */
+public class CountingDistanceMeasure implements DatasetDistanceMeasure {
+
+	private DatasetDistanceMeasure distanceMeasure;
+	private AtomicLong numOfDistances = new AtomicLong();
+	
+	/**
+	 * Constructor.
+	 * @param distanceMeasure {@link DatasetDistanceMeasure} to count.
+	 */
+	public CountingDistanceMeasure(DatasetDistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+	
+	@Override
+	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
+		numOfDistances.incrementAndGet();
+		return distanceMeasure.getDistance(clusterItem1, clusterItem2);
+	}
+
+	@Override
+	public double getDistance(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		numOfDistances.incrementAndGet();
+		return distanceMeasure.getDistance(values1, offset1, values2, offset2, length);
+	}
+
+	@Override
+	public double getDistance(SparseDataset data1, int row1, SparseDataset data2, int row2) {
+		numOfDistances.incrementAndGet();
+		return distanceMeasure.getDistance(data1, row1, data2, row2);
+	}
+
+	@Override
+	public boolean isMetric() {
+		return distanceMeasure.isMetric();
+	}
+	
+	/**
+	 * Gets the number of distances computed so far.
+	 * @return long.
+	 */
+	public long getNumOfDistances() {
+		return numOfDistances.get();
+	}
+	
+	/**
+	 * Sets the number of distances back to 0.
+	 */
+	public void reset() {
+		numOfDistances.set(0L);
+	}
+	
+	/**
+	 * Gets the {@link DistanceMeasure} that is counted.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure getDistanceMeasure() {
+		return distanceMeasure;
+	}
+}
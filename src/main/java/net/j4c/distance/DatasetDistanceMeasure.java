@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import net.j4c.data.SparseDataset;
+
+/**
+ * A {@link DistanceMeasure} that can also measure rows of 
+ * {@link net.j4c.data.Dataset}s, which is needed to cluster them 
+ * (e.g. {@link net.j4c.KmeansClusterer#getClusters(int, int, net.j4c.data.Dataset)}).
+ * A {@link DistanceMeasure} that only measures {@link net.j4c.ClusterItem}s
+ * can still cluster a {@link java.util.List} of them.
+ * @author Jee Vang
+ *
+ */
+public interface DatasetDistanceMeasure extends DistanceMeasure {
+
+	/**
+	 * Computes the distance between two dense vectors. The
+	 * vectors may be rows of row-major arrays (e.g. 
+	 * {@link net.j4c.data.DenseDataset#getValues()}), so
+	 * each one is given as an array and an offset.
+	 * @param values1 Values of the first vector.
+	 * @param offset1 Offset of the first vector.
+	 * @param values2 Values of the second vector.
+	 * @param offset2 Offset of the second vector.
+	 * @param length Number of values (dimension).
+	 * @return double.
+	 */
+	public double getDistance(double[] values1, int offset1, double[] values2, int offset2, int length);
+	
+	/**
+	 * Computes the distance between two rows of {@link SparseDataset}s.
+	 * @param data1 {@link SparseDataset} of the first row.
+	 * @param row1 First row.
+	 * @param data2 {@link SparseDataset} of the second row.
+	 * @param row2 Second row.
+	 * @return double.
+	 */
+	public double getDistance(SparseDataset data1, int row1, SparseDataset data2, int row2);
+	
+	/**
+	 * Checks if the distance is a metric, in particular if it 
+	 * satisfies the triangle inequality. Accelerated k-means 
+	 * (e.g. {@link net.j4c.ElkanKmeansClusterer}) relies on it.
+	 * @return boolean.
+	 */
+	public boolean isMetric();
+}
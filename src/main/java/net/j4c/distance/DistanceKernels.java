@@ -0,0 +1,249 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+/**
+ * The loops over dense vectors that the distance measures are built 
+ * on. This class computes them one value at a time. When the library 
+ * is built with the vector profile and run on a JDK with the 
+ * jdk.incubator.vector module (e.g. java --add-modules jdk.incubator.vector),
+ * {@link #getInstance()} returns a subclass that computes them with
+ * SIMD instructions instead. The vectorized sums are added in a 
+ * different order, so they may differ in the last bits. Set the 
+ * system property j4c.scalar to true to always use this class.
+ * @author Jee Vang
+ *
+ */
+public class DistanceKernels {
+
+	private static final String VECTOR_KERNELS = "net.j4c.distance.VectorDistanceKernels";
+	private static final DistanceKernels INSTANCE = load();
+	//number of centroid values (32 KB) in a tile of getDotProducts
+	private static final int TILE_VALUES = 4096;
+	
+	/**
+	 * Constructor.
+	 */
+	protected DistanceKernels() { }
+	
+	/**
+	 * Gets the kernels to use: the vectorized ones if they can be
+	 * loaded, otherwise these.
+	 * @return {@link DistanceKernels}.
+	 */
+	public static DistanceKernels getInstance() {
+		return INSTANCE;
+	}
+	
+	private static DistanceKernels load() {
+		if(Boolean.getBoolean("j4c.scalar"))
+			return new DistanceKernels();
+		
+		//the vector kernels are only there (and only load) on
+		//a recent JDK with the incubator module
+		try {
+			return (DistanceKernels)Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+		} catch(Exception ex) {
+			return new DistanceKernels();
+		} catch(LinkageError err) {
+			return new DistanceKernels();
+		}
+	}
+	
+	/**
+	 * Checks if the kernels use SIMD instructions.
+	 * @return boolean.
+	 */
+	public boolean isVectorized() {
+		return false;
+	}
+	
+	/**
+	 * Computes the squared Euclidean distance between two vectors.
+	 * @param values1 Values of the first vector.
+	 * @param offset1 Offset of the first vector.
+	 * @param values2 Values of the second vector.
+	 * @param offset2 Offset of the second vector.
+	 * @param length Number of values.
+	 * @return double.
+	 */
+	public double getSquaredEuclidean(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		double sum = 0.0d;
+		for(int i=0; i < length; i++) {
+			double d = values1[offset1 + i] - values2[offset2 + i];
+			sum += d * d;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Computes the Manhattan distance between two vectors.
+	 * @param values1 Values of the first vector.
+	 * @param offset1 Offset of the first vector.
+	 * @param values2 Values of the second vector.
+	 * @param offset2 Offset of the second vector.
+	 * @param length Number of values.
+	 * @return double.
+	 */
+	public double getManhattan(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		double sum = 0.0d;
+		for(int i=0; i < length; i++) {
+			sum += Math.abs(values1[offset1 + i] - values2[offset2 + i]);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Computes the dot-product of two vectors.
+	 * @param values1 Values of the first vector.
+	 * @param offset1 Offset of the first vector.
+	 * @param values2 Values of the second vector.
+	 * @param offset2 Offset of the second vector.
+	 * @param length Number of values.
+	 * @return double.
+	 */
+	public double getDotProduct(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		double ab = 0.0d;
+		for(int i=0; i < length; i++) {
+			ab += values1[offset1 + i] * values2[offset2 + i];
+		}
+		return ab;
+	}
+	
+	/**
+	 * Computes the dot-products of each of a block of rows with 
+	 * each of a set of centroids. The centroids are taken in tiles
+	 * that fit in the L1 cache, and each tile is multiplied with all
+	 * the rows before moving on, so a centroid is read from memory 
+	 * once per block of rows rather than once per row. Within a tile,
+	 * 2 rows are multiplied with 4 centroids at a time, so each value
+	 * that is loaded is used more than once.
+	 * @param rows Values of the rows (row-major).
+	 * @param numRows Number of rows.
+	 * @param centroids Values of the centroids (row-major).
+	 * @param numCentroids Number of centroids.
+	 * @param dimension Number of values of a row.
+	 * @param products Dot-products (output, row-major, numRows x numCentroids).
+	 */
+	public void getDotProducts(double[] rows, int numRows, double[] centroids, int numCentroids, int dimension, double[] products) {
+		int tileSize = Math.max(4, (TILE_VALUES / Math.max(1, dimension)) & ~3);
+		for(int tileStart=0; tileStart < numCentroids; tileStart += tileSize) {
+			int tileEnd = Math.min(numCentroids, tileStart + tileSize);
+			int row = 0;
+			for(; row + 1 < numRows; row += 2) {
+				int index = tileStart;
+				for(; index + 3 < tileEnd; index += 4) {
+					getDotProducts(rows, row, centroids, index, dimension, numCentroids, products);
+				}
+				for(; index < tileEnd; index++) {
+					products[row * numCentroids + index] = getDotProduct(rows, row * dimension, centroids, index * dimension, dimension);
+					products[(row + 1) * numCentroids + index] = getDotProduct(rows, (row + 1) * dimension, centroids, index * dimension, dimension);
+				}
+			}
+			for(; row < numRows; row++) {
+				for(int index=tileStart; index < tileEnd; index++) {
+					products[row * numCentroids + index] = getDotProduct(rows, row * dimension, centroids, index * dimension, dimension);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Computes the dot-products of 2 rows with 4 centroids.
+	 * @param rows Values of the rows (row-major).
+	 * @param row First row.
+	 * @param centroids Values of the centroids (row-major).
+	 * @param index First centroid.
+	 * @param dimension Number of values of a row.
+	 * @param numCentroids Number of centroids.
+	 * @param products Dot-products (output, row-major).
+	 */
+	private static void getDotProducts(double[] rows, int row, double[] centroids, int index, int dimension, int numCentroids, double[] products) {
+		int r0 = row * dimension;
+		int r1 = r0 + dimension;
+		int c0 = index * dimension;
+		int c1 = c0 + dimension;
+		int c2 = c1 + dimension;
+		int c3 = c2 + dimension;
+		double p00 = 0.0d, p01 = 0.0d, p02 = 0.0d, p03 = 0.0d;
+		double p10 = 0.0d, p11 = 0.0d, p12 = 0.0d, p13 = 0.0d;
+		for(int i=0; i < dimension; i++) {
+			double a0 = rows[r0 + i];
+			double a1 = rows[r1 + i];
+			double b0 = centroids[c0 + i];
+			double b1 = centroids[c1 + i];
+			double b2 = centroids[c2 + i];
+			double b3 = centroids[c3 + i];
+			p00 += a0 * b0;
+			p01 += a0 * b1;
+			p02 += a0 * b2;
+			p03 += a0 * b3;
+			p10 += a1 * b0;
+			p11 += a1 * b1;
+			p12 += a1 * b2;
+			p13 += a1 * b3;
+		}
+		int offset = row * numCentroids + index;
+		products[offset] = p00;
+		products[offset + 1] = p01;
+		products[offset + 2] = p02;
+		products[offset + 3] = p03;
+		offset += numCentroids;
+		products[offset] = p10;
+		products[offset + 1] = p11;
+		products[offset + 2] = p12;
+		products[offset + 3] = p13;
+	}
+	
+	/**
+	 * Computes the cosine distance (1 - cosine similarity) between 
+	 * two vectors, in one pass for the dot-product and both norms.
+	 * The distance to a vector of all 0s is 1.
+	 * @param values1 Values of the first vector.
+	 * @param offset1 Offset of the first vector.
+	 * @param values2 Values of the second vector.
+	 * @param offset2 Offset of the second vector.
+	 * @param length Number of values.
+	 * @return double.
+	 */
+	public double getCosine(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		double ab = 0.0d;
+		double aa = 0.0d;
+		double bb = 0.0d;
+		for(int i=0; i < length; i++) {
+			double a = values1[offset1 + i];
+			double b = values2[offset2 + i];
+			ab += a * b;
+			aa += a * a;
+			bb += b * b;
+		}
+		return getCosine(ab, aa, bb);
+	}
+	
+	/**
+	 * Computes the cosine distance from the dot-product and the 
+	 * squared norms.
+	 * @param ab Dot-product.
+	 * @param aa Squared norm of the first vector.
+	 * @param bb Squared norm of the second vector.
+	 * @return double.
+	 */
+	protected static double getCosine(double ab, double aa, double bb) {
+		double denom = Math.sqrt(aa) * Math.sqrt(bb);
+		double similarity = (0.0d == denom) ? 0.0d : (ab / denom);
+		return 1.0d - similarity;
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+/**
+ * Type of a {@link DistanceMeasure} stored in a binary model file,
+ * together with its parameter (if any).
+ * @author Jee Vang
+ *
+ */
+public enum DistanceMeasureType {
+	/**
+	 * {@link MinkowskiDistance}; the parameter is the order p.
+	 */
+	MINKOWSKI(0),
+	/**
+	 * {@link CosineDistance}.
+	 */
+	COSINE(1),
+	/**
+	 * {@link NormalizedCosineDistance}.
+	 */
+	NORMALIZED_COSINE(2);
+	
+	private int id;
+	
+	private DistanceMeasureType(int id) {
+		this.id = id;
+	}
+	
+	/**
+	 * Gets the id stored in the file header.
+	 * @return int.
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/**
+	 * Gets the parameter of a {@link DistanceMeasure} of this type.
+	 * @param distanceMeasure {@link DistanceMeasure}.
+	 * @return double.
+	 */
+	public double getParameter(DistanceMeasure distanceMeasure) {
+		if(MINKOWSKI == this)
+			return ((MinkowskiDistance)distanceMeasure).getP();
+		return 0.0d;
+	}
+	
+	/**
+	 * Creates a {@link DistanceMeasure} of this type.
+	 * @param parameter Parameter, see {@link #getParameter(DistanceMeasure)}.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure newInstance(double parameter) {
+		switch(this) {
+		case MINKOWSKI:
+			return new MinkowskiDistance(parameter);
+		case NORMALIZED_COSINE:
+			return new NormalizedCosineDistance();
+		default:
+			return new CosineDistance();
+		}
+	}
+	
+	/**
+	 * Gets the {@link DistanceMeasureType} for the id stored in the file header.
+	 * @param id Id.
+	 * @return {@link DistanceMeasureType}.
+	 */
+	public static DistanceMeasureType fromId(int id) {
+		for(DistanceMeasureType type : values()) {
+			if(type.id == id)
+				return type;
+		}
+		throw new IllegalArgumentException("unknown distance measure id = " + id);
+	}
+	
+	/**
+	 * Gets the {@link DistanceMeasureType} of a {@link DistanceMeasure}. 
+	 * Only the classes themselves are known, not subclasses of them, 
+	 * since a subclass may measure distances differently.
+	 * @param distanceMeasure {@link DistanceMeasure}.
+	 * @return {@link DistanceMeasureType}.
+	 */
+	public static DistanceMeasureType of(DistanceMeasure distanceMeasure) {
+		Class<?> clazz = distanceMeasure.getClass();
+		if(MinkowskiDistance.class == clazz)
+			return MINKOWSKI;
+		if(CosineDistance.class == clazz)
+			return COSINE;
+		if(NormalizedCosineDistance.class == clazz)
+			return NORMALIZED_COSINE;
+		throw new IllegalArgumentException("unsupported distance measure = " + clazz.getName());
+	}
+}
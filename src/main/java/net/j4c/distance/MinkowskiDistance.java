@@ -1,68 +1,195 @@
-/**
- * Copyright 2014 Jee Vang
-
-   Licensed under the Apache License, Version 2.0 (the "License");
-   you may not use this file except in compliance with the License.
-   You may obtain a copy of the License at
-
-       http://www.apache.org/licenses/LICENSE-2.0
-
-   Unless required by applicable law or agreed to in writing, software
-   distributed under the License is distributed on an "AS IS" BASIS,
-   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-   See the License for the specific language governing permissions and
-   limitations under the License.
- */
-package net.j4c.distance;
-
-import java.util.Iterator;
-import java.util.Set;
-
-import net.j4c.ClusterItem;
-
-/**
- * Minkowski distance.
- * @author Jee Vang
- *
- */
-public class MinkowskiDistance implements DistanceMeasure {
-
-	private double p = 2.0d;
-	
-	/**
-	 * Constructor.
-	 */
-	public MinkowskiDistance() { }
-	
-	/**
-	 * Constructor.
-	 * @param p Order (e.g. 1 = Manhattan, 2 = Euclidean)
-	 */
-	public MinkowskiDistance(double p) {
-		if(p > 0)
-			this.p = p;
-	}
-	
-	@Override
-	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
-		Set<Integer> indexes1 = clusterItem1.getIndexes();
-		Set<Integer> indexes2 = clusterItem2.getIndexes();
-		
-		int size1 = indexes1.size();
-		int size2 = indexes2.size();
-		
-		Set<Integer> indexes = (size1 < size2) ? indexes1 : indexes2;
-		double sum = 0.0d;
-		for(Iterator<Integer> it = indexes.iterator(); it.hasNext(); ) {
-			Integer index = it.next();
-			double d1 = clusterItem1.getValue(index);
-			double d2 = clusterItem2.getValue(index);
-			double d = Math.pow(Math.abs(d1 - d2), p);
-			sum += d;
-		}
-		
-		double dist = Math.pow(sum, 1.0d / p);
-		return dist;
-	}
-
-}
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import net.j4c.ClusterItem;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Minkowski distance. For p = 2 (Euclidean), the distances to
+ * many centroids can be computed at once (see {@link BlockDistanceMeasure}), 
+ * where the norms are the squared norms.
+ * @author Jee Vang
+ *
+ */
+public class MinkowskiDistance implements BlockDistanceMeasure {
+
+	private static final DistanceKernels KERNELS = DistanceKernels.getInstance();
+	private static final double EPSILON = Math.ulp(1.0d);
+	
+	private double p = 2.0d;
+	
+	/**
+	 * Constructor.
+	 */
+	public MinkowskiDistance() { }
+	
+	/**
+	 * Constructor.
+	 * @param p Order (e.g. 1 = Manhattan, 2 = Euclidean)
+	 */
+	public MinkowskiDistance(double p) {
+		if(p > 0)
+			this.p = p;
+	}
+	
+	@Override
+	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
+		Set<Integer> indexes1 = clusterItem1.getIndexes();
+		Set<Integer> indexes2 = clusterItem2.getIndexes();
+		
+		//every index of either item contributes (missing values are 0)
+		double sum = 0.0d;
+		for(Iterator<Integer> it = indexes1.iterator(); it.hasNext(); ) {
+			Integer index = it.next();
+			double d1 = clusterItem1.getValue(index);
+			double d2 = clusterItem2.getValue(index);
+			double d = Math.pow(Math.abs(d1 - d2), p);
+			sum += d;
+		}
+		for(Iterator<Integer> it = indexes2.iterator(); it.hasNext(); ) {
+			Integer index = it.next();
+			if(indexes1.contains(index))
+				continue;
+			double d = Math.pow(Math.abs(clusterItem2.getValue(index)), p);
+			sum += d;
+		}
+		
+		double dist = Math.pow(sum, 1.0d / p);
+		return dist;
+	}
+	
+	@Override
+	public double getDistance(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		//Euclidean and Manhattan avoid Math.pow in the loop
+		if(2.0d == p) {
+			return Math.sqrt(KERNELS.getSquaredEuclidean(values1, offset1, values2, offset2, length));
+		} else if(1.0d == p) {
+			return KERNELS.getManhattan(values1, offset1, values2, offset2, length);
+		}
+		
+		double sum = 0.0d;
+		for(int i=0; i < length; i++) {
+			double d = Math.abs(values1[offset1 + i] - values2[offset2 + i]);
+			sum += Math.pow(d, p);
+		}
+		
+		double dist = Math.pow(sum, 1.0d / p);
+		return dist;
+	}
+	
+	@Override
+	public double getDistance(SparseDataset data1, int row1, SparseDataset data2, int row2) {
+		int i = data1.getRowStart(row1);
+		int end1 = data1.getRowEnd(row1);
+		int j = data2.getRowStart(row2);
+		int end2 = data2.getRowEnd(row2);
+		int[] indices1 = data1.getIndices();
+		double[] values1 = data1.getValues();
+		int[] indices2 = data2.getIndices();
+		double[] values2 = data2.getValues();
+		
+		//merge over the union of the indices, since an index
+		//that only one row has still contributes
+		double sum = 0.0d;
+		while(i < end1 || j < end2) {
+			double d;
+			if(j >= end2 || (i < end1 && indices1[i] < indices2[j])) {
+				d = values1[i++];
+			} else if(i >= end1 || indices2[j] < indices1[i]) {
+				d = values2[j++];
+			} else {
+				d = values1[i++] - values2[j++];
+			}
+			
+			if(2.0d == p) {
+				sum += d * d;
+			} else if(1.0d == p) {
+				sum += Math.abs(d);
+			} else {
+				sum += Math.pow(Math.abs(d), p);
+			}
+		}
+		
+		if(2.0d == p) {
+			return Math.sqrt(sum);
+		} else if(1.0d == p) {
+			return sum;
+		}
+		
+		double dist = Math.pow(sum, 1.0d / p);
+		return dist;
+	}
+	
+	/**
+	 * Only the Euclidean distance (p = 2) can be expanded.
+	 */
+	@Override
+	public boolean isExpandable() {
+		return 2.0d == p;
+	}
+	
+	@Override
+	public double getNorm(double[] values, int offset, int length) {
+		return KERNELS.getDotProduct(values, offset, values, offset, length);
+	}
+	
+	@Override
+	public void getDistances(double[] rows, double[] rowNorms, int numRows, 
+			double[] centroids, double[] centroidNorms, int numCentroids, int dimension, double[] distances) {
+		KERNELS.getDotProducts(rows, numRows, centroids, numCentroids, dimension, distances);
+		for(int row=0; row < numRows; row++) {
+			int offset = row * numCentroids;
+			for(int index=0; index < numCentroids; index++) {
+				//rounding can make the expansion slightly negative
+				double sum = rowNorms[row] + centroidNorms[index] - 2.0d * distances[offset + index];
+				distances[offset + index] = (sum > 0.0d) ? Math.sqrt(sum) : 0.0d;
+			}
+		}
+	}
+	
+	/**
+	 * The expansion and the exact sum each round to within about 
+	 * length * epsilon * (||x||^2 + ||c||^2) of the squared distance, 
+	 * and the square root of the difference bounds the difference 
+	 * of the distances.
+	 */
+	@Override
+	public double getError(double norm1, double norm2, int length) {
+		double squaredError = 4.0d * (length + 2) * EPSILON * (norm1 + norm2);
+		return Math.sqrt(squaredError) + 2.0d * EPSILON * (Math.sqrt(norm1) + Math.sqrt(norm2));
+	}
+	
+	/**
+	 * Gets the order.
+	 * @return double.
+	 */
+	public double getP() {
+		return p;
+	}
+	
+	/**
+	 * Minkowski distance satisfies the triangle inequality for p >= 1.
+	 */
+	@Override
+	public boolean isMetric() {
+		return p >= 1.0d;
+	}
+
+}
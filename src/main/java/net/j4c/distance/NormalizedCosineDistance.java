@@ -0,0 +1,66 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import net.j4c.ClusterItem;
+import net.j4c.data.SparseDataset;
+
+/**
+ * Cosine distance of rows that are already unit length (e.g. 
+ * {@link net.j4c.data.DenseDataset#normalize(net.j4c.data.Dataset)}).
+ * The norms are then 1, so the distance is (1 - dot-product), 
+ * computed with a single dot-product and no square roots. The 
+ * result is only the cosine distance if both rows are unit length.
+ * @author Jee Vang
+ *
+ */
+public class NormalizedCosineDistance extends CosineDistance {
+
+	@Override
+	public double getDistance(ClusterItem clusterItem1, ClusterItem clusterItem2) {
+		return 1.0d - getDotProduct(clusterItem1, clusterItem2);
+	}
+	
+	@Override
+	public double getDistance(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		return 1.0d - KERNELS.getDotProduct(values1, offset1, values2, offset2, length);
+	}
+	
+	@Override
+	public double getDistance(SparseDataset data1, int row1, SparseDataset data2, int row2) {
+		return 1.0d - getDotProduct(data1, row1, data2, row2);
+	}
+	
+	@Override
+	public void getDistances(double[] rows, double[] rowNorms, int numRows, 
+			double[] centroids, double[] centroidNorms, int numCentroids, int dimension, double[] distances) {
+		KERNELS.getDotProducts(rows, numRows, centroids, numCentroids, dimension, distances);
+		int size = numRows * numCentroids;
+		for(int i=0; i < size; i++) {
+			distances[i] = 1.0d - distances[i];
+		}
+	}
+	
+	/**
+	 * The norms are not used for the distances, but they bound
+	 * the error when the rows are not exactly unit length.
+	 */
+	@Override
+	public double getError(double norm1, double norm2, int length) {
+		return 4.0d * (length + 2) * EPSILON * norm1 * norm2 + EPSILON;
+	}
+
+}
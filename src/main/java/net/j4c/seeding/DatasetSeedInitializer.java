@@ -0,0 +1,57 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.seeding;
+
+import java.util.Random;
+
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+
+/**
+ * A {@link SeedInitializer} that can also seed k-means over
+ * {@link Dataset}s, which is needed to cluster them (e.g. 
+ * {@link net.j4c.KmeansClusterer#getClusters(int, int, Dataset)}).
+ * @author Jee Vang
+ *
+ */
+public interface DatasetSeedInitializer extends SeedInitializer {
+
+	/**
+	 * Gets the initial seeds for k-means over a {@link Dataset}.
+	 * @param k Number of seeds.
+	 * @param data {@link Dataset}.
+	 * @return {@link DenseDataset} where each row is a seed.
+	 */
+	public DenseDataset getSeeds(int k, Dataset data);
+	
+	/**
+	 * Gets the initial seeds for k-means over a {@link SparseDataset}.
+	 * @param k Number of seeds.
+	 * @param data {@link SparseDataset}.
+	 * @return {@link SparseDataset} where each row is a seed.
+	 */
+	public SparseDataset getSeeds(int k, SparseDataset data);
+	
+	/**
+	 * Creates a seed initializer with the same settings, that
+	 * draws from its own {@link Random}, so that independent runs
+	 * (e.g. restarts) get independent seeds.
+	 * @param random {@link Random}.
+	 * @return {@link DatasetSeedInitializer}.
+	 */
+	public DatasetSeedInitializer newInstance(Random random);
+}
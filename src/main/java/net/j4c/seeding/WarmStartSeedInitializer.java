@@ -0,0 +1,325 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.seeding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.j4c.ClusterItem;
+import net.j4c.IndexValue;
+import net.j4c.KmeansModel;
+import net.j4c.centroid.Centroid;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.DatasetDistanceMeasure;
+
+/**
+ * Seed initializer that starts from the centroids of a previous 
+ * run (or of a {@link KmeansModel}), so that re-clustering data 
+ * that has changed only a little takes a few iterations, and 
+ * seeding does not go over the data at all.
+ * <p>
+ * If fewer seeds are asked for than there are centroids, the two 
+ * closest centroids are merged into their mean (weighted by the 
+ * number of rows of their clusters, if known) until there are k. 
+ * If more seeds are asked for, the centroids are kept and the rest
+ * are picked from the data as by {@link KmppSeedInitializer}, with 
+ * a probability proportional to the distance to the nearest seed.
+ * </p>
+ * @author Jee Vang
+ *
+ */
+public class WarmStartSeedInitializer implements DatasetSeedInitializer {
+
+	private DenseDataset centroids;
+	private int[] counts;
+	private Random random;
+	private DatasetDistanceMeasure distanceMeasure;
+	
+	/**
+	 * Constructor.
+	 * @param centroids {@link DenseDataset} where each row is a centroid (copied).
+	 */
+	public WarmStartSeedInitializer(DenseDataset centroids) {
+		this(centroids, null);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param centroids {@link DenseDataset} where each row is a centroid (copied).
+	 * @param counts Number of rows of each cluster, used to weigh merged 
+	 * centroids (may be null).
+	 */
+	public WarmStartSeedInitializer(DenseDataset centroids, int[] counts) {
+		if(centroids.size() < 1)
+			throw new IllegalArgumentException("expected at least one centroid");
+		if(null != counts && counts.length != centroids.size())
+			throw new IllegalArgumentException("expected " + centroids.size() + " counts but got " + counts.length);
+		
+		int length = centroids.size() * centroids.getDimension();
+		double[] values = new double[length];
+		System.arraycopy(centroids.getValues(), 0, values, 0, length);
+		this.centroids = new DenseDataset(centroids.size(), centroids.getDimension(), values);
+		this.counts = (null == counts) ? null : counts.clone();
+	}
+	
+	/**
+	 * Constructor. The seeds are the centroids of the {@link KmeansModel},
+	 * weighted by its counts (if it has them), and the distance measure
+	 * is the one of the {@link KmeansModel}.
+	 * @param model {@link KmeansModel}.
+	 */
+	public WarmStartSeedInitializer(KmeansModel model) {
+		this.centroids = model.getCentroids();
+		this.counts = model.getCounts();
+		this.distanceMeasure = model.getDistanceMeasure();
+	}
+	
+	@Override
+	public List<Centroid> getSeeds(int k, List<ClusterItem> clusterItems) {
+		int dimension = centroids.getDimension();
+		DenseDataset data = new DenseDataset(clusterItems.size(), dimension);
+		int row = 0;
+		for(ClusterItem clusterItem : clusterItems) {
+			for(Integer index : clusterItem.getIndexes()) {
+				if(index.intValue() >= dimension)
+					throw new IllegalArgumentException("index " + index + " is out of range of the centroids");
+				data.setValue(row, index.intValue(), clusterItem.getValue(index));
+			}
+			row++;
+		}
+		
+		DenseDataset seeds = getSeeds(k, data);
+		List<Centroid> results = new ArrayList<Centroid>();
+		for(int index=0; index < seeds.size(); index++) {
+			Centroid centroid = new Centroid(""+index);
+			for(int i=0; i < dimension; i++) {
+				double value = seeds.getValue(index, i);
+				if(0.0d != value)
+					centroid.add(new IndexValue(i, value));
+			}
+			results.add(centroid);
+		}
+		return results;
+	}
+	
+	@Override
+	public DenseDataset getSeeds(int k, Dataset data) {
+		int dimension = centroids.getDimension();
+		if(data.getDimension() != dimension)
+			throw new IllegalArgumentException("expected dimension " + dimension + " but got " + data.getDimension());
+		
+		int total = data.size();
+		int kMax = (k <= total) ? k : total;
+		int numCentroids = centroids.size();
+		if(kMax <= numCentroids)
+			return merge(kMax);
+		
+		DenseDataset seeds = new DenseDataset(kMax, dimension);
+		double[] seedValues = seeds.getValues();
+		System.arraycopy(centroids.getValues(), 0, seedValues, 0, numCentroids * dimension);
+		
+		double[] buffer = new double[dimension];
+		double[] distances = new double[total];
+		Random random = getRandom();
+		DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		
+		for(int numSeeds=numCentroids; numSeeds < kMax; numSeeds++) {
+			//the first time, the distance from each row to all the
+			//centroids; after that, only to the newest seed
+			int first = (numSeeds == numCentroids) ? 0 : numSeeds - 1;
+			double sumOfDistances = 0.0d;
+			for(int row=0; row < total; row++) {
+				data.getRow(row, buffer);
+				for(int c=first; c < numSeeds; c++) {
+					double dist = distanceMeasure.getDistance(buffer, 0, seedValues, c * dimension, dimension);
+					if((0 == c && numSeeds == numCentroids) || dist < distances[row])
+						distances[row] = dist;
+				}
+				sumOfDistances += distances[row];
+			}
+			
+			data.getRow(pickIndex(distances, sumOfDistances, random), buffer);
+			seeds.setRow(numSeeds, buffer);
+		}
+		
+		return seeds;
+	}
+	
+	@Override
+	public SparseDataset getSeeds(int k, SparseDataset data) {
+		DenseDataset seeds = getSeeds(k, (Dataset)data);
+		int size = seeds.size();
+		int dimension = seeds.getDimension();
+		double[] values = seeds.getValues();
+		
+		//keep only the non-zero values
+		int[] pointers = new int[size + 1];
+		for(int row=0; row < size; row++) {
+			int numNonZeros = 0;
+			for(int i=row * dimension; i < (row + 1) * dimension; i++) {
+				if(0.0d != values[i])
+					numNonZeros++;
+			}
+			pointers[row+1] = pointers[row] + numNonZeros;
+		}
+		
+		int[] newIndices = new int[pointers[size]];
+		double[] newValues = new double[pointers[size]];
+		int position = 0;
+		for(int row=0; row < size; row++) {
+			for(int i=0; i < dimension; i++) {
+				double value = values[row * dimension + i];
+				if(0.0d != value) {
+					newIndices[position] = i;
+					newValues[position] = value;
+					position++;
+				}
+			}
+		}
+		
+		return new SparseDataset(size, dimension, pointers, newIndices, newValues);
+	}
+	
+	/**
+	 * Merges the two closest centroids until there are k left. A
+	 * merged centroid takes the place of the first of the two.
+	 * @param k Number of seeds.
+	 * @return {@link DenseDataset} where each row is a seed.
+	 */
+	private DenseDataset merge(int k) {
+		int numCentroids = centroids.size();
+		int dimension = centroids.getDimension();
+		double[] values = centroids.getValues().clone();
+		double[] weights = new double[numCentroids];
+		boolean[] merged = new boolean[numCentroids];
+		for(int c=0; c < numCentroids; c++) {
+			//an empty cluster still counts a little, so that its 
+			//centroid is not lost if merged with another empty one
+			weights[c] = (null == counts) ? 1.0d : Math.max(counts[c], 1.0e-9d);
+		}
+		
+		DatasetDistanceMeasure distanceMeasure = getDistanceMeasure();
+		for(int numLeft=numCentroids; numLeft > k; numLeft--) {
+			double min = Double.POSITIVE_INFINITY;
+			int closest1 = -1;
+			int closest2 = -1;
+			for(int c1=0; c1 < numCentroids; c1++) {
+				if(merged[c1])
+					continue;
+				for(int c2=c1+1; c2 < numCentroids; c2++) {
+					if(merged[c2])
+						continue;
+					double dist = distanceMeasure.getDistance(values, c1 * dimension, values, c2 * dimension, dimension);
+					if(closest1 < 0 || dist < min) {
+						min = dist;
+						closest1 = c1;
+						closest2 = c2;
+					}
+				}
+			}
+			
+			double weight = weights[closest1] + weights[closest2];
+			for(int i=0; i < dimension; i++) {
+				values[closest1 * dimension + i] = (weights[closest1] * values[closest1 * dimension + i] 
+						+ weights[closest2] * values[closest2 * dimension + i]) / weight;
+			}
+			weights[closest1] = weight;
+			merged[closest2] = true;
+		}
+		
+		DenseDataset seeds = new DenseDataset(k, dimension);
+		int index = 0;
+		for(int c=0; c < numCentroids && index < k; c++) {
+			if(!merged[c])
+				System.arraycopy(values, c * dimension, seeds.getValues(), (index++) * dimension, dimension);
+		}
+		return seeds;
+	}
+	
+	/**
+	 * Picks an index randomly, with a probability proportional 
+	 * to its distance to the nearest seed.
+	 * @param distances Distance of each row to its nearest seed.
+	 * @param sumOfDistances Sum of the distances.
+	 * @param random {@link Random}.
+	 * @return Index.
+	 */
+	private int pickIndex(double[] distances, double sumOfDistances, Random random) {
+		int total = distances.length;
+		
+		//pick randomly from the cummulative probability distribution
+		double p = random.nextDouble();
+		double cummulative = 0.0d;
+		for(int index=0; index < total; index++) {
+			cummulative += distances[index] / sumOfDistances;
+			if(cummulative >= p)
+				return index;
+		}
+		
+		//if we still haven't picked a seed, just pick
+		//one randomly
+		return random.nextInt(total);
+	}
+
+	@Override
+	public DatasetSeedInitializer newInstance(Random random) {
+		WarmStartSeedInitializer seedInitializer = new WarmStartSeedInitializer(centroids, counts);
+		seedInitializer.setRandom(random);
+		seedInitializer.setDistanceMeasure(distanceMeasure);
+		return seedInitializer;
+	}
+	
+	/**
+	 * Gets the number of centroids to start from.
+	 * @return int.
+	 */
+	public int getNumOfCentroids() {
+		return centroids.size();
+	}
+
+	/**
+	 * Gets random number generator.
+	 * @return {@link Random}.
+	 */
+	public Random getRandom() {
+		if(null == random)
+			random = new Random(37L);
+		return random;
+	}
+
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * Gets distance measure.
+	 * @return {@link DatasetDistanceMeasure}.
+	 */
+	public DatasetDistanceMeasure getDistanceMeasure() {
+		if(null == distanceMeasure)
+			distanceMeasure = new CosineDistance();
+		return distanceMeasure;
+	}
+
+	public void setDistanceMeasure(DatasetDistanceMeasure distanceMeasure) {
+		this.distanceMeasure = distanceMeasure;
+	}
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.j4c.data.BinaryDatasetConverter;
+
+/**
+ * Converts generated data from {@link GenerateData}
+ * into a binary dataset file. The input and output
+ * files may be given as arguments and default to
+ * out.data and out.bin.
+ * @author Jee Vang
+ *
+ */
+public class ConvertData {
+
+	public static void main(String[] args) throws IOException {
+		String input = (args.length > 0) ? args[0] : "out.data";
+		String output = (args.length > 1) ? args[1] : "out.bin";
+		long rows = (new BinaryDatasetConverter()).convert(new File(input), new File(output));
+		System.out.println("converted " + rows + " rows from " + input + " to " + output);
+	}
+
+}
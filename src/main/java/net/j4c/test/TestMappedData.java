@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.test;
+
+import java.io.File;
+
+import net.j4c.KmeansClusterer;
+import net.j4c.KmeansResult;
+import net.j4c.data.BinaryDatasetConverter;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.MappedDataset;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Tests k-means algorithm on generated data from 
+ * {@link GenerateData}, converted to a binary dataset
+ * file and memory-mapped instead of loaded on the heap.
+ * @author Jee Vang
+ *
+ */
+public class TestMappedData {
+
+	public static void main(String[] args) {
+		File csvFile = new File("out.data");
+		File binaryFile = new File("out.bin");
+		
+		MappedDataset data = null;
+		try {
+			(new BinaryDatasetConverter()).convert(csvFile, binaryFile);
+			data = new MappedDataset(binaryFile);
+			
+			KmeansClusterer clusterer = new KmeansClusterer();
+			clusterer.setDistanceMeasure(new MinkowskiDistance(2.0d));
+			
+			KmeansResult<DenseDataset> result = clusterer.getClusters(2, 100, data);
+			System.out.println(result.getCentroids());
+		} catch(Exception ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			if(null != data) {
+				try { data.close(); }
+				catch(Exception ex) { }
+			}
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link DistanceKernels} that use the (incubating) Vector API, so 
+ * that each loop handles as many values at once as the CPU's widest
+ * SIMD registers hold. The values that do not fill a whole vector 
+ * are handled one at a time, and vectors shorter than two SIMD 
+ * registers are handled entirely by the scalar kernels, for which
+ * they are faster. Only built by the vector profile, and loaded by 
+ * {@link DistanceKernels#getInstance()}.
+ * @author Jee Vang
+ *
+ */
+public class VectorDistanceKernels extends DistanceKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	
+	/**
+	 * Constructor. Fails (with a {@link LinkageError}) if the 
+	 * jdk.incubator.vector module is not there.
+	 */
+	public VectorDistanceKernels() {
+		DoubleVector.zero(SPECIES);
+	}
+	
+	@Override
+	public boolean isVectorized() {
+		return true;
+	}
+	
+	@Override
+	public double getSquaredEuclidean(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		if(length < 2 * LANES)
+			return super.getSquaredEuclidean(values1, offset1, values2, offset2, length);
+		
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector d = DoubleVector.fromArray(SPECIES, values1, offset1 + i)
+					.sub(DoubleVector.fromArray(SPECIES, values2, offset2 + i));
+			sum = d.fma(d, sum);
+		}
+		double total = sum.reduceLanes(VectorOperators.ADD);
+		for(; i < length; i++) {
+			double d = values1[offset1 + i] - values2[offset2 + i];
+			total += d * d;
+		}
+		return total;
+	}
+	
+	@Override
+	public double getManhattan(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		if(length < 2 * LANES)
+			return super.getManhattan(values1, offset1, values2, offset2, length);
+		
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector d = DoubleVector.fromArray(SPECIES, values1, offset1 + i)
+					.sub(DoubleVector.fromArray(SPECIES, values2, offset2 + i));
+			sum = sum.add(d.abs());
+		}
+		double total = sum.reduceLanes(VectorOperators.ADD);
+		for(; i < length; i++) {
+			total += Math.abs(values1[offset1 + i] - values2[offset2 + i]);
+		}
+		return total;
+	}
+	
+	@Override
+	public double getDotProduct(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		if(length < 2 * LANES)
+			return super.getDotProduct(values1, offset1, values2, offset2, length);
+		
+		DoubleVector sum = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, values1, offset1 + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, values2, offset2 + i);
+			sum = a.fma(b, sum);
+		}
+		double total = sum.reduceLanes(VectorOperators.ADD);
+		for(; i < length; i++) {
+			total += values1[offset1 + i] * values2[offset2 + i];
+		}
+		return total;
+	}
+	
+	@Override
+	public double getCosine(double[] values1, int offset1, double[] values2, int offset2, int length) {
+		if(length < 2 * LANES)
+			return super.getCosine(values1, offset1, values2, offset2, length);
+		
+		DoubleVector abs = DoubleVector.zero(SPECIES);
+		DoubleVector aas = DoubleVector.zero(SPECIES);
+		DoubleVector bbs = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < bound; i += LANES) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, values1, offset1 + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, values2, offset2 + i);
+			abs = a.fma(b, abs);
+			aas = a.fma(a, aas);
+			bbs = b.fma(b, bbs);
+		}
+		double ab = abs.reduceLanes(VectorOperators.ADD);
+		double aa = aas.reduceLanes(VectorOperators.ADD);
+		double bb = bbs.reduceLanes(VectorOperators.ADD);
+		for(; i < length; i++) {
+			double a = values1[offset1 + i];
+			double b = values2[offset2 + i];
+			ab += a * b;
+			aa += a * a;
+			bb += b * b;
+		}
+		return getCosine(ab, aa, bb);
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Tests that an accelerated k-means clusterer gives the clusters of 
+ * {@link KmeansClusterer}, whatever the parallelism, and falls back
+ * to computing all distances for distance measures it cannot 
+ * accelerate. Subclasses create the clusterer and add the assertions
+ * that are specific to it.
+ */
+public abstract class AcceleratedKmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public AcceleratedKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * Creates the clusterer under test.
+     */
+    protected abstract KmeansClusterer newClusterer();
+
+    /**
+     * Gets the number of clusters (and of centers of the data).
+     */
+    protected int getK()
+    {
+        return 20;
+    }
+
+    /**
+     * Gets the powers of the {@link MinkowskiDistance}s that the
+     * clusterer accelerates.
+     */
+    protected double[] getPowers()
+    {
+        return new double[] { 1.0d, 2.0d, 3.0d };
+    }
+
+    /**
+     * Checks if the centroids are exactly those of {@link KmeansClusterer},
+     * or only up to rounding (if the sums are added in another order).
+     */
+    protected boolean isExact()
+    {
+        return true;
+    }
+
+    /**
+     * Checks what is specific to the clusterer, against the result
+     * of {@link KmeansClusterer}.
+     */
+    protected void checkSameAsLloyd( KmeansResult<DenseDataset> expected, KmeansResult<DenseDataset> result )
+    {
+    }
+
+    public void testSameAsLloyd()
+    {
+        int k = getK();
+        DenseDataset data = SyntheticData.getDense( 5000, 4, k );
+        for( double p : getPowers() )
+        {
+            KmeansClusterer lloyd = new KmeansClusterer();
+            lloyd.setDistanceMeasure( new MinkowskiDistance( p ) );
+            KmeansResult<DenseDataset> expected = lloyd.getClusters( k, 100, data );
+
+            KmeansClusterer clusterer = newClusterer();
+            clusterer.setDistanceMeasure( new MinkowskiDistance( p ) );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( k, 100, data );
+
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertEquals( expected.getNumOfIterations(), result.getNumOfIterations() );
+            assertEquals( expected.getStopReason(), result.getStopReason() );
+            if( isExact() )
+            {
+                assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+                assertTrue( Arrays.equals( expected.getDistances(), result.getDistances() ) );
+            }
+            else
+            {
+                double[] expectedValues = expected.getCentroids().getValues();
+                double[] values = result.getCentroids().getValues();
+                for( int i = 0; i < values.length; i++ )
+                {
+                    assertEquals( expectedValues[i], values[i], 1e-9d );
+                }
+                assertEquals( expected.getInertia(), result.getInertia(), 1e-9d * expected.getInertia() );
+            }
+            assertEquals( 0L, expected.getNumOfSkippedDistances() );
+            assertTrue( result.getNumOfSkippedDistances() > 0L );
+            assertEquals( expected.getNumOfDistances(), result.getNumOfDistances() + result.getNumOfSkippedDistances() );
+            checkSameAsLloyd( expected, result );
+        }
+    }
+
+    public void testParallelIsDeterministic()
+    {
+        int k = getK();
+        DenseDataset data = SyntheticData.getDense( 20000, 3, k );
+
+        KmeansResult<DenseDataset> expected = null;
+        for( int parallelism = 1; parallelism <= 4; parallelism++ )
+        {
+            KmeansClusterer clusterer = newClusterer();
+            clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+            clusterer.setParallelism( parallelism );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( k, 100, data );
+            if( null == expected )
+            {
+                expected = result;
+                continue;
+            }
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+            assertEquals( expected.getNumOfDistances(), result.getNumOfDistances() );
+        }
+    }
+
+    public void testNotAccelerated()
+    {
+        DenseDataset data = SyntheticData.getDense( 1000, 3, 5 );
+        KmeansClusterer clusterer = newClusterer();
+        clusterer.setDistanceMeasure( new CosineDistance() );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 5, 100, data );
+        assertEquals( 0L, result.getNumOfSkippedDistances() );
+        assertEquals( 1000, result.getLabels().length );
+    }
+}
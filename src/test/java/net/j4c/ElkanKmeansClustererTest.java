@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for {@link ElkanKmeansClusterer}.
+ */
+public class ElkanKmeansClustererTest 
+    extends AcceleratedKmeansClustererTest
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ElkanKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ElkanKmeansClustererTest.class );
+    }
+
+    @Override
+    protected KmeansClusterer newClusterer()
+    {
+        return new ElkanKmeansClusterer();
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.seeding.RandomSeedInitializer;
+
+/**
+ * Unit test for {@link HamerlyKmeansClusterer}.
+ */
+public class HamerlyKmeansClustererTest 
+    extends AcceleratedKmeansClustererTest
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public HamerlyKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( HamerlyKmeansClustererTest.class );
+    }
+
+    @Override
+    protected KmeansClusterer newClusterer()
+    {
+        return new HamerlyKmeansClusterer();
+    }
+
+    public void testTighteningIsCountedOnce()
+    {
+        //all rows (and so all centroids) are the same: the bounds
+        //of every row fail even once tightened
+        DenseDataset data = new DenseDataset( 1000, 2 );
+        Arrays.fill( data.getValues(), 1.0d );
+        HamerlyKmeansClusterer clusterer = new HamerlyKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setSeedInitializer( new RandomSeedInitializer() );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 3, 2, data );
+        assertEquals( 0L, result.getNumOfSkippedDistances() );
+        assertEquals( 2L * 3L * 1000L, result.getNumOfDistances() );
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Unit test for {@link KdTreeKmeansClusterer}.
+ */
+public class KdTreeKmeansClustererTest 
+    extends AcceleratedKmeansClustererTest
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public KdTreeKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( KdTreeKmeansClustererTest.class );
+    }
+
+    @Override
+    protected KmeansClusterer newClusterer()
+    {
+        return new KdTreeKmeansClusterer();
+    }
+
+    @Override
+    protected double[] getPowers()
+    {
+        return new double[] { 2.0d };
+    }
+
+    @Override
+    protected boolean isExact()
+    {
+        //the sums are added in another order, so only the labels are exact
+        return false;
+    }
+
+    @Override
+    protected void checkSameAsLloyd( KmeansResult<DenseDataset> expected, KmeansResult<DenseDataset> result )
+    {
+        assertTrue( result.getNumOfDistances() < expected.getNumOfDistances() / 5L );
+    }
+
+    public void testChangedRows()
+    {
+        DenseDataset data = SyntheticData.getDense( 5000, 2, 5 );
+        KmeansClusterer lloyd = new KmeansClusterer();
+        lloyd.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        lloyd.setNumOfRestarts( 2 );
+        lloyd.getClusters( 5, 100, data );
+        KdTreeKmeansClusterer kdTree = new KdTreeKmeansClusterer();
+        kdTree.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        kdTree.setNumOfRestarts( 2 );
+        kdTree.getClusters( 5, 100, data );
+
+        //the rows change in place between calls
+        double[] values = data.getValues();
+        for( int i = 0; i < values.length; i += 2 )
+        {
+            values[i] = -values[i];
+        }
+
+        KmeansResult<DenseDataset> expected = lloyd.getClusters( 5, 100, data );
+        KmeansResult<DenseDataset> result = kdTree.getClusters( 5, 100, data );
+        assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+    }
+}
@@ -0,0 +1,698 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.centroid.Centroid;
+import net.j4c.centroid.MeanCentroidAnalyzer;
+import net.j4c.data.Dataset;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.CountingDistanceMeasure;
+import net.j4c.distance.DatasetDistanceMeasure;
+import net.j4c.distance.DistanceMeasure;
+import net.j4c.distance.MinkowskiDistance;
+import net.j4c.distance.NormalizedCosineDistance;
+import net.j4c.seeding.KmppSeedInitializer;
+
+/**
+ * Unit test for {@link KmeansClusterer}.
+ */
+public class KmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public KmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( KmeansClustererTest.class );
+    }
+
+    /**
+     * Generates items around 2 centers at (0,0) and (10,10), 
+     * like {@link net.j4c.test.GenerateData}.
+     */
+    static List<ClusterItem> getClusterItems( int n )
+    {
+        Random random = new Random( 37L );
+        List<ClusterItem> items = new ArrayList<ClusterItem>();
+        for( int i = 0; i < n; i++ )
+        {
+            double c = ( i % 2 == 0 ) ? 0.0d : 10.0d;
+            ClusterItem item = new ClusterItem( "" + i );
+            item.add( new IndexValue( 0, c + random.nextDouble() ) );
+            item.add( new IndexValue( 1, c + random.nextDouble() ) );
+            items.add( item );
+        }
+        return items;
+    }
+
+    public void testFromClusterItems()
+    {
+        List<ClusterItem> items = new ArrayList<ClusterItem>();
+        ClusterItem item = new ClusterItem( "0" );
+        item.add( new IndexValue( 2, 3.0d ) );
+        items.add( item );
+        item = new ClusterItem( "1" );
+        item.add( new IndexValue( 0, 1.0d ) );
+        items.add( item );
+
+        DenseDataset data = DenseDataset.fromClusterItems( items );
+        assertEquals( 2, data.size() );
+        assertEquals( 3, data.getDimension() );
+        assertEquals( 3.0d, data.getValue( 0, 2 ), 0.0d );
+        assertEquals( 0.0d, data.getValue( 0, 0 ), 0.0d );
+        assertEquals( 1.0d, data.getValue( 1, 0 ), 0.0d );
+    }
+
+    public void testDenseClusters()
+    {
+        DenseDataset data = DenseDataset.fromClusterItems( getClusterItems( 1000 ) );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 2, 100, data );
+        int[] labels = result.getLabels();
+        assertEquals( 2, result.getK() );
+        for( int row = 2; row < data.size(); row++ )
+        {
+            assertEquals( labels[row % 2], labels[row] );
+        }
+        assertTrue( labels[0] != labels[1] );
+
+        DenseDataset centroids = result.getCentroids();
+        int c = labels[1];
+        assertEquals( 10.5d, centroids.getValue( c, 0 ), 0.1d );
+        assertEquals( 10.5d, centroids.getValue( c, 1 ), 0.1d );
+    }
+
+    public void testSparseDistances()
+    {
+        List<ClusterItem> items = new ArrayList<ClusterItem>();
+        ClusterItem item = new ClusterItem( "0" );
+        item.add( new IndexValue( 0, 1.0d ) );
+        item.add( new IndexValue( 3, 2.0d ) );
+        items.add( item );
+        item = new ClusterItem( "1" );
+        item.add( new IndexValue( 3, 1.0d ) );
+        item.add( new IndexValue( 5, 4.0d ) );
+        item.add( new IndexValue( 7, 1.0d ) );
+        items.add( item );
+
+        SparseDataset sparse = SparseDataset.fromClusterItems( items );
+        DenseDataset dense = DenseDataset.fromClusterItems( items );
+        double[] values = dense.getValues();
+        int d = dense.getDimension();
+
+        MinkowskiDistance minkowski = new MinkowskiDistance( 2.0d );
+        assertEquals( Math.sqrt( 1.0d + 1.0d + 16.0d + 1.0d ), minkowski.getDistance( sparse, 0, sparse, 1 ), 1e-12 );
+        assertEquals( minkowski.getDistance( values, 0, values, d, d ), minkowski.getDistance( sparse, 0, sparse, 1 ), 1e-12 );
+        assertEquals( minkowski.getDistance( items.get( 0 ), items.get( 1 ) ), minkowski.getDistance( sparse, 0, sparse, 1 ), 1e-12 );
+
+        CosineDistance cosine = new CosineDistance();
+        assertEquals( cosine.getDistance( values, 0, values, d, d ), cosine.getDistance( sparse, 0, sparse, 1 ), 1e-12 );
+        assertEquals( cosine.getDistance( items.get( 0 ), items.get( 1 ) ), cosine.getDistance( sparse, 0, sparse, 1 ), 1e-12 );
+    }
+
+    public void testSparseClusters()
+    {
+        List<ClusterItem> items = getClusterItems( 1000 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+
+        KmeansResult<DenseDataset> dense = clusterer.getClusters( 2, 100, DenseDataset.fromClusterItems( items ) );
+        clusterer.setSeedInitializer( null );
+        KmeansResult<SparseDataset> sparse = clusterer.getClusters( 2, 100, SparseDataset.fromClusterItems( items ) );
+
+        assertTrue( Arrays.equals( dense.getLabels(), sparse.getLabels() ) );
+        double[] buffer = new double[2];
+        for( int c = 0; c < 2; c++ )
+        {
+            sparse.getCentroids().getRow( c, buffer );
+            assertEquals( dense.getCentroids().getValue( c, 0 ), buffer[0], 1e-9 );
+            assertEquals( dense.getCentroids().getValue( c, 1 ), buffer[1], 1e-9 );
+        }
+        assertEquals( dense.getNumOfIterations(), sparse.getNumOfIterations() );
+        assertEquals( dense.getInertia(), sparse.getInertia(), 1e-9 * dense.getInertia() );
+    }
+
+    public void testSparseAsDataset()
+    {
+        Dataset data = SparseDataset.fromClusterItems( getClusterItems( 100 ) );
+        KmeansClusterer[] clusterers = { new KmeansClusterer(), new ElkanKmeansClusterer(), 
+                new KdTreeKmeansClusterer(), new SphericalKmeansClusterer() };
+        for( KmeansClusterer clusterer : clusterers )
+        {
+            try
+            {
+                clusterer.getClusters( 2, 100, data );
+                fail( "a SparseDataset has its own overload" );
+            }
+            catch( IllegalArgumentException ex )
+            {
+            }
+        }
+    }
+
+    public void testParallelIsDeterministic()
+    {
+        Random random = new Random( 37L );
+        DenseDataset data = new DenseDataset( 20000, 5 );
+        for( int i = 0; i < data.getValues().length; i++ )
+        {
+            data.getValues()[i] = random.nextGaussian() + ( i / 5 ) % 7;
+        }
+
+        KmeansResult<DenseDataset> expected = null;
+        for( int parallelism = 1; parallelism <= 4; parallelism++ )
+        {
+            KmeansClusterer clusterer = new KmeansClusterer();
+            clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+            clusterer.setParallelism( parallelism );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( 7, 100, data );
+            if( null == expected )
+            {
+                expected = result;
+                continue;
+            }
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+        }
+    }
+
+    public void testClusterItems()
+    {
+        List<ClusterItem> items = getClusterItems( 1000 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        List<Centroid> centroids = clusterer.getClusters( 2, 100, items );
+
+        assertEquals( 2, centroids.size() );
+        assertEquals( 1000, centroids.get( 0 ).getNumOfClusterItems() + centroids.get( 1 ).getNumOfClusterItems() );
+        for( Centroid centroid : centroids )
+        {
+            assertEquals( 500, centroid.getNumOfClusterItems() );
+            double expected = centroid.getValue( 0 ) < 5.0d ? 0.5d : 10.5d;
+            assertEquals( expected, centroid.getValue( 1 ), 0.1d );
+        }
+    }
+
+    public void testIncrementalStatistics()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 3, data );
+
+        //the centroids of the running statistics are the means of the rows
+        DenseDataset centroids = result.getCentroids();
+        DenseDataset expected = new DenseDataset( centroids.size(), centroids.getDimension(), centroids.getValues().clone() );
+        ( new MeanCentroidAnalyzer() ).recompute( data, result.getLabels(), expected );
+        for( int i = 0; i < expected.getValues().length; i++ )
+        {
+            assertEquals( expected.getValues()[i], centroids.getValues()[i], 1e-9d );
+        }
+    }
+
+    public void testResult()
+    {
+        List<ClusterItem> items = getClusterItems( 1000 );
+        MinkowskiDistance distance = new MinkowskiDistance( 2.0d );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( distance );
+        for( int maxIterations = 1; maxIterations <= 100; maxIterations += 99 )
+        {
+            KmeansResult<? extends Dataset> result = clusterer.getResult( 2, maxIterations, items );
+            assertEquals( 1000, result.getLabels().length );
+            assertEquals( 1000, result.getDistances().length );
+
+            //distances are to the final centroids, converged or not
+            DenseDataset data = DenseDataset.fromClusterItems( items );
+            DenseDataset centroids = (DenseDataset) result.getCentroids();
+            double[] row = new double[2];
+            for( int i = 0; i < 1000; i++ )
+            {
+                data.getRow( i, row );
+                int label = result.getLabels()[i];
+                assertEquals( distance.getDistance( row, 0, centroids.getValues(), 2 * label, 2 ), result.getDistances()[i], 0.0d );
+            }
+        }
+    }
+
+    public void testStoppingRules()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> converged = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.CONVERGED, converged.getStopReason() );
+        assertEquals( converged.getNumOfIterations(), converged.getInertias().length );
+
+        //the inertia never increases, and is the sum of squared distances to the means
+        double[] inertias = converged.getInertias();
+        for( int i = 1; i < inertias.length; i++ )
+        {
+            assertTrue( inertias[i] <= inertias[i - 1] * ( 1.0d + 1e-12d ) );
+        }
+        double inertia = 0.0d;
+        for( double distance : converged.getDistances() )
+        {
+            inertia += distance * distance;
+        }
+        assertEquals( inertia, converged.getInertia(), 1e-9d * inertia );
+
+        assertEquals( StopReason.MAX_ITERATIONS, clusterer.getClusters( 12, 2, data ).getStopReason() );
+
+        clusterer.setReassignmentTolerance( 0.01d );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.REASSIGNMENTS, result.getStopReason() );
+        assertTrue( result.getNumOfIterations() < converged.getNumOfIterations() );
+
+        clusterer.setReassignmentTolerance( 0.0d );
+        clusterer.setInertiaTolerance( 1e-3d );
+        result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.INERTIA, result.getStopReason() );
+
+        clusterer.setInertiaTolerance( 0.0d );
+        clusterer.setShiftTolerance( 0.1d );
+        result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.CENTROID_SHIFT, result.getStopReason() );
+    }
+
+    /**
+     * Restarts keep the run with the lowest inertia, and without
+     * abandonment the result does not depend on the number of threads.
+     */
+    public void testRestarts()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> single = clusterer.getClusters( 12, 1000, data );
+
+        clusterer.setNumOfRestarts( 8 );
+        clusterer.setRandom( new Random( 11L ) );
+        KmeansResult<DenseDataset> expected = clusterer.getClusters( 12, 1000, data );
+        assertTrue( expected.getInertia() <= single.getInertia() );
+        assertTrue( StopReason.ABANDONED != expected.getStopReason() );
+
+        for( int parallelism = 2; parallelism <= 4; parallelism += 2 )
+        {
+            clusterer.setParallelism( parallelism );
+            clusterer.setRandom( new Random( 11L ) );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 1000, data );
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+        }
+
+        //abandoned runs are never kept
+        clusterer.setAbandonRatio( 1.0d );
+        clusterer.setRandom( new Random( 11L ) );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 1000, data );
+        assertTrue( StopReason.ABANDONED != result.getStopReason() );
+        assertTrue( result.getInertia() >= expected.getInertia() );
+    }
+
+    /**
+     * A sparse dataset is restarted the same way as a dense one.
+     */
+    public void testSparseRestarts()
+    {
+        DenseDataset dense = SyntheticData.getDense( 10000, 4, 12 );
+        int[] pointers = new int[dense.size() + 1];
+        int[] indices = new int[dense.getValues().length];
+        for( int row = 0; row < dense.size(); row++ )
+        {
+            pointers[row + 1] = ( row + 1 ) * 4;
+            for( int i = 0; i < 4; i++ )
+                indices[row * 4 + i] = i;
+        }
+        SparseDataset sparse = new SparseDataset( dense.size(), 4, pointers, indices, dense.getValues() );
+
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<SparseDataset> single = clusterer.getClusters( 12, 1000, sparse );
+
+        clusterer.setNumOfRestarts( 8 );
+        clusterer.setRandom( new Random( 11L ) );
+        KmeansResult<DenseDataset> expected = clusterer.getClusters( 12, 1000, dense );
+        for( int parallelism = 1; parallelism <= 4; parallelism += 3 )
+        {
+            clusterer.setParallelism( parallelism );
+            clusterer.setRandom( new Random( 11L ) );
+            KmeansResult<SparseDataset> result = clusterer.getClusters( 12, 1000, sparse );
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertEquals( expected.getInertia(), result.getInertia(), 1e-9d * expected.getInertia() );
+            assertTrue( result.getInertia() <= single.getInertia() );
+        }
+    }
+
+    /**
+     * Starting from the centroids of a converged run converges in
+     * the second iteration (the first assigns every row), and a 
+     * changed k gives that many clusters.
+     */
+    public void testWarmStart()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> cold = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.CONVERGED, cold.getStopReason() );
+
+        KmeansResult<DenseDataset> warm = clusterer.getClusters( 12, 1000, data, cold.getCentroids() );
+        assertEquals( 2, warm.getNumOfIterations() );
+        assertTrue( Arrays.equals( cold.getLabels(), warm.getLabels() ) );
+        assertTrue( warm.getNumOfIterations() < cold.getNumOfIterations() );
+
+        KmeansModel model = KmeansModel.fromResult( cold, data, clusterer.getDatasetDistanceMeasure() );
+        for( int k = 10; k <= 14; k += 4 )
+        {
+            KmeansResult<DenseDataset> result = clusterer.getClusters( k, 1000, data, model );
+            assertEquals( k, result.getK() );
+            assertEquals( StopReason.CONVERGED, result.getStopReason() );
+        }
+    }
+
+    /**
+     * The listener is told about the seeds and each iteration, and
+     * cancelling or passing the deadline stops after the iteration.
+     */
+    public void testListenerAndCancellation()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        final CancellationToken token = new CancellationToken();
+        final List<Integer> iterations = new ArrayList<Integer>();
+        final int[] numSeeds = new int[1];
+        clusterer.setCancellationToken( token );
+        clusterer.setListener( new KmeansListener()
+        {
+            public void seeded( int numOfSeeds, long elapsedTime )
+            {
+                numSeeds[0] = numOfSeeds;
+            }
+
+            public void iterated( int iteration, int numOfChanges, double inertia, long elapsedTime )
+            {
+                iterations.add( iteration );
+                if( 3 == iteration )
+                {
+                    token.cancel();
+                }
+            }
+        } );
+
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( 12, numSeeds[0] );
+        //the token is checked after the next iteration
+        assertEquals( Arrays.asList( 1, 2, 3, 4 ), iterations );
+        assertEquals( StopReason.CANCELLED, result.getStopReason() );
+        assertEquals( 4, result.getNumOfIterations() );
+
+        //a deadline that has passed still gives one iteration, 
+        //and skips the restarts after the first
+        clusterer.setCancellationToken( null );
+        clusterer.setListener( null );
+        clusterer.setDeadline( System.currentTimeMillis() - 1L );
+        clusterer.setNumOfRestarts( 4 );
+        result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.DEADLINE, result.getStopReason() );
+        assertEquals( 1, result.getNumOfIterations() );
+        assertEquals( 10000, result.getLabels().length );
+    }
+
+    /**
+     * The elapsed times of a restarted run start when it begins, 
+     * not when it was queued behind the runs before it.
+     */
+    public void testRestartTimes()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setNumOfRestarts( 4 );
+        final long[] lastIterated = new long[1];
+        final List<Long> seedingTimes = new ArrayList<Long>();
+        final List<Long> sinceLastRun = new ArrayList<Long>();
+        clusterer.setListener( new KmeansListener()
+        {
+            public void seeded( int numOfSeeds, long elapsedTime )
+            {
+                if( lastIterated[0] > 0L )
+                {
+                    seedingTimes.add( elapsedTime );
+                    sinceLastRun.add( System.nanoTime() - lastIterated[0] );
+                }
+            }
+
+            public void iterated( int iteration, int numOfChanges, double inertia, long elapsedTime )
+            {
+                lastIterated[0] = System.nanoTime();
+            }
+        } );
+
+        //the runs run one after the other
+        clusterer.getClusters( 12, 1000, data );
+        assertEquals( 3, seedingTimes.size() );
+        for( int i = 0; i < seedingTimes.size(); i++ )
+        {
+            assertTrue( seedingTimes.get( i ) <= sinceLastRun.get( i ) );
+        }
+    }
+
+    /**
+     * Metrics have one entry per iteration, and the counted 
+     * distances are those of seeding and of the assignments.
+     */
+    public void testMetrics()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 4, 12 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        CountingDistanceMeasure distanceMeasure = new CountingDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        CountingDistanceMeasure seedDistanceMeasure = new CountingDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmppSeedInitializer seedInitializer = new KmppSeedInitializer();
+        seedInitializer.setDistanceMeasure( seedDistanceMeasure );
+        clusterer.setDistanceMeasure( distanceMeasure );
+        clusterer.setSeedInitializer( seedInitializer );
+
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 12, 1000, data );
+        assertNull( result.getMetrics() );
+
+        distanceMeasure.reset();
+        seedDistanceMeasure.reset();
+        seedInitializer.setRandom( null );
+        clusterer.setCollectingMetrics( true );
+        result = clusterer.getClusters( 12, 1000, data );
+        assertEquals( StopReason.CONVERGED, result.getStopReason() );
+        assertEquals( 11L * 10000L, seedDistanceMeasure.getNumOfDistances() );
+        //besides the assignments, each iteration measures how far the centroids moved
+        int numOfIterations = result.getNumOfIterations();
+        assertEquals( result.getNumOfDistances() + 12L * numOfIterations, distanceMeasure.getNumOfDistances() );
+
+        KmeansMetrics metrics = result.getMetrics();
+        assertEquals( numOfIterations, metrics.getAssignmentTimes().length );
+        assertEquals( numOfIterations, metrics.getRecomputationTimes().length );
+        assertEquals( 10000, metrics.getNumOfChanges()[0] );
+        assertEquals( 0, metrics.getNumOfChanges()[numOfIterations - 1] );
+        assertTrue( metrics.getSeedingTime() > 0L );
+        assertTrue( metrics.getAssignmentTime() > 0L );
+    }
+
+    /**
+     * Expanded distances only narrow down the closest centroids,
+     * so the result is the same as with the exact distances (a
+     * {@link CountingDistanceMeasure} hides the expansion), even
+     * far from the origin where the expansion is least precise.
+     */
+    public void testExpandedDistances()
+    {
+        DenseDataset data = SyntheticData.getDense( 5000, 16, 20 );
+        double[] values = data.getValues();
+        for( int i = 0; i < values.length; i++ )
+        {
+            values[i] += 10000.0d;
+        }
+        DenseDataset normalized = DenseDataset.normalize( SyntheticData.getDense( 5000, 16, 20 ) );
+
+        DatasetDistanceMeasure[] distanceMeasures = { new MinkowskiDistance( 2.0d ), new CosineDistance(), new NormalizedCosineDistance() };
+        DenseDataset[] datasets = { data, data, normalized };
+        for( int i = 0; i < distanceMeasures.length; i++ )
+        {
+            KmeansClusterer exact = new KmeansClusterer();
+            exact.setDistanceMeasure( new CountingDistanceMeasure( distanceMeasures[i] ) );
+            KmeansResult<DenseDataset> expected = exact.getClusters( 20, 50, datasets[i] );
+
+            KmeansClusterer clusterer = new KmeansClusterer();
+            clusterer.setDistanceMeasure( distanceMeasures[i] );
+            assertTrue( KmeansClusterer.isExpandable( clusterer.getDatasetDistanceMeasure() ) );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( 20, 50, datasets[i] );
+
+            assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+            assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+            assertTrue( Arrays.equals( expected.getDistances(), result.getDistances() ) );
+            assertEquals( expected.getNumOfIterations(), result.getNumOfIterations() );
+        }
+        assertFalse( KmeansClusterer.isExpandable( new MinkowskiDistance( 1.0d ) ) );
+    }
+
+    /**
+     * A {@link DistanceMeasure} that only measures {@link ClusterItem}s,
+     * as implemented before there were datasets.
+     */
+    static class ClusterItemDistance implements DistanceMeasure
+    {
+        private MinkowskiDistance distance = new MinkowskiDistance( 2.0d );
+        private int count = 0;
+
+        @Override
+        public double getDistance( ClusterItem clusterItem1, ClusterItem clusterItem2 )
+        {
+            count++;
+            return distance.getDistance( clusterItem1, clusterItem2 );
+        }
+    }
+
+    public void testDatasetStrategies()
+    {
+        DenseDataset data = DenseDataset.fromClusterItems( getClusterItems( 100 ) );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new ClusterItemDistance() );
+        try
+        {
+            clusterer.getClusters( 2, 100, data );
+            fail( "a dataset needs a DatasetDistanceMeasure" );
+        }
+        catch( IllegalStateException ex )
+        {
+            assertTrue( ex.getMessage().contains( ClusterItemDistance.class.getName() ) );
+        }
+    }
+
+    public void testClusterItemStrategies()
+    {
+        List<ClusterItem> items = getClusterItems( 100 );
+        ClusterItemDistance distance = new ClusterItemDistance();
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( distance );
+
+        List<Centroid> centroids = clusterer.getClusters( 2, 100, items );
+        assertEquals( 2, centroids.size() );
+        assertTrue( distance.count >= 2 * items.size() );
+        for( Centroid centroid : centroids )
+        {
+            assertEquals( 50, centroid.getNumOfClusterItems() );
+        }
+
+        try
+        {
+            clusterer.getResult( 2, 100, items );
+            fail( "a result needs a DatasetDistanceMeasure" );
+        }
+        catch( IllegalStateException ex )
+        {
+        }
+    }
+
+    public void testBlockSize()
+    {
+        //few centroids and columns: the blocks only depend on the rows
+        assertEquals( KmeansClusterer.getBlockSize( 1000000 ), KmeansClusterer.getBlockSize( 1000000, 10, 10 ) );
+
+        //many centroids and columns: few blocks, each with its own statistics
+        int numRows = 1000000;
+        int blockSize = KmeansClusterer.getBlockSize( numRows, 1000, 1000 );
+        long numBlocks = ( numRows + blockSize - 1 ) / blockSize;
+        assertTrue( blockSize > KmeansClusterer.getBlockSize( numRows ) );
+        assertTrue( numBlocks * 1000L * 1000L <= ( 1L << 23 ) );
+    }
+
+    /**
+     * Gets the sum over all rows of the squared distance of the row
+     * to its centroid, one row at a time.
+     */
+    static double getInertia( Dataset data, int[] labels, Dataset centroids )
+    {
+        int dimension = data.getDimension();
+        double[] row = new double[dimension];
+        double[] centroid = new double[dimension];
+        double inertia = 0.0d;
+        for( int i = 0; i < data.size(); i++ )
+        {
+            data.getRow( i, row );
+            centroids.getRow( labels[i], centroid );
+            for( int j = 0; j < dimension; j++ )
+            {
+                inertia += ( row[j] - centroid[j] ) * ( row[j] - centroid[j] );
+            }
+        }
+        return inertia;
+    }
+
+    public void testInertiaFarFromOrigin()
+    {
+        DenseDataset data = SyntheticData.getDense( 20000, 2, 4 );
+        double[] values = data.getValues();
+        for( int i = 0; i < values.length; i++ )
+        {
+            values[i] += 1e7d;
+        }
+
+        KmeansClusterer[] clusterers = { new KmeansClusterer(), new KdTreeKmeansClusterer() };
+        for( KmeansClusterer clusterer : clusterers )
+        {
+            clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( 4, 100, data );
+            double expected = getInertia( data, result.getLabels(), result.getCentroids() );
+            assertEquals( expected, result.getInertia(), 1e-6d * expected );
+        }
+
+        List<ClusterItem> items = new ArrayList<ClusterItem>();
+        for( int i = 0; i < 2000; i++ )
+        {
+            ClusterItem item = new ClusterItem( "" + i );
+            item.add( new IndexValue( 0, values[2 * i] ) );
+            item.add( new IndexValue( 1, values[2 * i + 1] ) );
+            items.add( item );
+        }
+        SparseDataset sparse = SparseDataset.fromClusterItems( items );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<SparseDataset> result = clusterer.getClusters( 4, 100, sparse );
+        double expected = getInertia( sparse, result.getLabels(), result.getCentroids() );
+        assertEquals( expected, result.getInertia(), 1e-6d * expected );
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.centroid.Centroid;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.CosineDistance;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Unit test for {@link KmeansModel}.
+ */
+public class KmeansModelTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public KmeansModelTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( KmeansModelTest.class );
+    }
+
+    public void testPredict()
+    {
+        DenseDataset data = SyntheticData.getDense( 10000, 3, 10 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 10, 1000, data );
+        assertEquals( StopReason.CONVERGED, result.getStopReason() );
+
+        //the model is a copy of the centroids
+        KmeansModel model = KmeansModel.fromResult( result, clusterer.getDatasetDistanceMeasure() );
+        result.getCentroids().getValues()[0] += 1.0d;
+        assertEquals( result.getCentroids().getValue( 0, 0 ) - 1.0d, model.getValue( 0, 0 ) );
+        result.getCentroids().getValues()[0] -= 1.0d;
+
+        //converged labels are those of the final centroids
+        int[] labels = new int[data.size()];
+        double[] distances = new double[data.size()];
+        model.predict( data.getValues(), labels, distances );
+        assertTrue( Arrays.equals( result.getLabels(), labels ) );
+        assertTrue( Arrays.equals( result.getDistances(), distances ) );
+        assertEquals( labels[5], model.predict( data.getValues(), 5 * 3 ) );
+
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        int[] parallelLabels = new int[data.size()];
+        double[] parallelDistances = new double[data.size()];
+        model.predict( data.getValues(), parallelLabels, parallelDistances, pool );
+        pool.shutdown();
+        assertTrue( Arrays.equals( labels, parallelLabels ) );
+        assertTrue( Arrays.equals( distances, parallelDistances ) );
+    }
+
+    public void testFromCentroids()
+    {
+        List<ClusterItem> items = KmeansClustererTest.getClusterItems( 1000 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        List<Centroid> centroids = clusterer.getClusters( 2, 100, items );
+
+        KmeansModel model = KmeansModel.fromCentroids( centroids, 2, clusterer.getDatasetDistanceMeasure() );
+        assertEquals( 2, model.getK() );
+        for( int c = 0; c < 2; c++ )
+        {
+            Centroid centroid = centroids.get( c );
+            for( int i = 0; i < centroid.getNumOfClusterItems(); i++ )
+            {
+                ClusterItem item = centroid.getClusterItem( i );
+                double[] row = { item.getValue( 0 ), item.getValue( 1 ) };
+                assertEquals( c, model.predict( row ) );
+            }
+        }
+    }
+
+    public void testWriteRead() throws IOException
+    {
+        DenseDataset data = SyntheticData.getDense( 5000, 3, 5 );
+        KmeansClusterer clusterer = new KmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 1.0d ) );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 5, 1000, data );
+        KmeansModel model = KmeansModel.fromResult( result, data, clusterer.getDatasetDistanceMeasure() );
+
+        int total = 0;
+        for( int count : model.getCounts() )
+        {
+            total += count;
+        }
+        assertEquals( 5000, total );
+
+        File file = File.createTempFile( "j4c", ".model" );
+        file.deleteOnExit();
+        KmeansModelWriter.write( model, file );
+        KmeansModel read = KmeansModelReader.read( file );
+
+        assertEquals( 5, read.getK() );
+        assertEquals( 3, read.getDimension() );
+        assertEquals( 1.0d, ( (MinkowskiDistance) read.getDistanceMeasure() ).getP() );
+        assertTrue( Arrays.equals( model.getCentroids().getValues(), read.getCentroids().getValues() ) );
+        assertTrue( Arrays.equals( model.getCounts(), read.getCounts() ) );
+        assertTrue( Arrays.equals( model.getVariances(), read.getVariances() ) );
+
+        int[] labels = new int[data.size()];
+        read.predict( data.getValues(), labels );
+        assertTrue( Arrays.equals( result.getLabels(), labels ) );
+
+        //without the optional counts and variances
+        model = new KmeansModel( result.getCentroids(), new CosineDistance() );
+        KmeansModelWriter.write( model, file );
+        read = KmeansModelReader.read( file );
+        assertEquals( CosineDistance.class, read.getDistanceMeasure().getClass() );
+        assertNull( read.getCounts() );
+        assertNull( read.getVariances() );
+        assertTrue( Arrays.equals( model.getCentroids().getValues(), read.getCentroids().getValues() ) );
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.centroid.Centroid;
+import net.j4c.data.DatasetPointSource;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Unit test for {@link MiniBatchKmeansClusterer}.
+ */
+public class MiniBatchKmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public MiniBatchKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( MiniBatchKmeansClustererTest.class );
+    }
+
+    public void testClusterItems()
+    {
+        List<ClusterItem> items = KmeansClustererTest.getClusterItems( 10000 );
+        MiniBatchKmeansClusterer clusterer = new MiniBatchKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setBatchSize( 256 );
+        List<Centroid> centroids = clusterer.getClusters( 2, 100, items );
+
+        assertEquals( 2, centroids.size() );
+        for( Centroid centroid : centroids )
+        {
+            assertEquals( 5000, centroid.getNumOfClusterItems() );
+            double c = ( centroid.getValue( 0 ) < 5.0d ) ? 0.5d : 10.5d;
+            assertEquals( c, centroid.getValue( 0 ), 0.1d );
+            assertEquals( c, centroid.getValue( 1 ), 0.1d );
+        }
+    }
+
+    public void testPointSource() throws IOException
+    {
+        DenseDataset data = DenseDataset.fromClusterItems( KmeansClustererTest.getClusterItems( 10000 ) );
+        MiniBatchKmeansClusterer clusterer = new MiniBatchKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setPatience( 0 );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 2, 50, new DatasetPointSource( data, new Random( 37L ) ) );
+
+        assertNull( result.getLabels() );
+        DenseDataset centroids = result.getCentroids();
+        assertEquals( 2, centroids.size() );
+        for( int i = 0; i < 2; i++ )
+        {
+            double c = ( centroids.getValue( i, 0 ) < 5.0d ) ? 0.5d : 10.5d;
+            assertEquals( c, centroids.getValue( i, 0 ), 0.05d );
+            assertEquals( c, centroids.getValue( i, 1 ), 0.05d );
+        }
+    }
+
+    public void testPatience()
+    {
+        DenseDataset data = SyntheticData.getDense( 5000, 2, 3 );
+        MiniBatchKmeansClusterer clusterer = new MiniBatchKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setTolerance( 1e-3d );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 3, Integer.MAX_VALUE, data );
+        assertEquals( 5000, result.getLabels().length );
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Unit test for {@link OnlineKmeansClusterer}.
+ */
+public class OnlineKmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public OnlineKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( OnlineKmeansClustererTest.class );
+    }
+
+    /**
+     * Adds rows around 2 centers at (shift,shift) and (shift+10,shift+10).
+     */
+    private static void addRows( OnlineKmeansClusterer clusterer, int n, double shift, Random random )
+    {
+        double[] row = new double[2];
+        for( int i = 0; i < n; i++ )
+        {
+            double c = shift + ( ( i % 2 == 0 ) ? 0.0d : 10.0d );
+            row[0] = c + random.nextDouble();
+            row[1] = c + random.nextDouble();
+            clusterer.add( row, 0 );
+        }
+    }
+
+    public void testClusterItems()
+    {
+        OnlineKmeansClusterer clusterer = new OnlineKmeansClusterer( 2, 2 );
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        int[] labels = clusterer.addAll( KmeansClustererTest.getClusterItems( 1000 ) );
+        assertEquals( 1000L, clusterer.getNumOfItems() );
+
+        //the items alternate between the two centers
+        for( int i = 2; i < labels.length; i++ )
+        {
+            assertEquals( labels[i % 2], labels[i] );
+        }
+        DenseDataset centroids = clusterer.getCentroids();
+        assertEquals( 0.5d, centroids.getValue( labels[0], 0 ), 0.1d );
+        assertEquals( 10.5d, centroids.getValue( labels[1], 1 ), 0.1d );
+        assertEquals( 500.0d, clusterer.getWeight( labels[0] ), 1e-9 );
+    }
+
+    public void testWindow()
+    {
+        OnlineKmeansClusterer clusterer = new OnlineKmeansClusterer( 2, 2 );
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setWindow( 200 );
+        Random random = new Random( 37L );
+        addRows( clusterer, 1000, 0.0d, random );
+        addRows( clusterer, 1000, 3.0d, random );
+
+        //only the last 200 rows are left
+        DenseDataset centroids = clusterer.getCentroids();
+        assertEquals( 3.5d, centroids.getValue( 0, 0 ), 0.1d );
+        assertEquals( 13.5d, centroids.getValue( 1, 0 ), 0.1d );
+        assertEquals( 200.0d, clusterer.getWeight( 0 ) + clusterer.getWeight( 1 ), 1e-6 );
+    }
+
+    public void testDecay()
+    {
+        OnlineKmeansClusterer clusterer = new OnlineKmeansClusterer( 2, 2 );
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setDecay( 0.01d );
+        Random random = new Random( 37L );
+        addRows( clusterer, 1000, 0.0d, random );
+        addRows( clusterer, 1000, 3.0d, random );
+
+        //the first rows have almost no weight left
+        DenseDataset centroids = clusterer.getCentroids();
+        assertEquals( 3.5d, centroids.getValue( 0, 1 ), 0.1d );
+        assertEquals( 13.5d, centroids.getValue( 1, 1 ), 0.1d );
+        assertTrue( clusterer.getWeight( 0 ) + clusterer.getWeight( 1 ) < 101.0d );
+    }
+
+    public void testWindowAndDecay()
+    {
+        //the second centroid gets two rows, which both leave the
+        //window; it then keeps the values it had with the last one
+        for( int i = 1; i < 200; i++ )
+        {
+            OnlineKmeansClusterer clusterer = new OnlineKmeansClusterer( 2, 1 );
+            clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+            clusterer.setWindow( 10 );
+            clusterer.setDecay( 0.001d * i );
+            clusterer.add( new double[] { 0.0d }, 0 );
+            clusterer.add( new double[] { 10.0d }, 0 );
+            clusterer.add( new double[] { 11.0d }, 0 );
+            for( int row = 0; row < 30; row++ )
+            {
+                clusterer.add( new double[] { 0.0d }, 0 );
+            }
+
+            assertEquals( 11.0d, clusterer.getCentroids().getValue( 1, 0 ), 1e-6 );
+            assertEquals( 0.0d, clusterer.getWeight( 1 ), 0.0d );
+            assertEquals( 0.0d, clusterer.getCentroids().getValue( 0, 0 ), 0.0d );
+        }
+    }
+}
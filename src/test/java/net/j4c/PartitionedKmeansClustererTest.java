@@ -0,0 +1,166 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.centroid.MeanCentroidAnalyzer;
+import net.j4c.data.CsvLoader;
+import net.j4c.data.DenseDataset;
+import net.j4c.distance.MinkowskiDistance;
+
+/**
+ * Unit test for {@link PartitionedKmeansClusterer}.
+ */
+public class PartitionedKmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public PartitionedKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( PartitionedKmeansClustererTest.class );
+    }
+
+    /**
+     * Splits the rows into shards of consecutive rows.
+     */
+    private static List<ShardWorker> getWorkers( DenseDataset data, int numShards )
+    {
+        int dimension = data.getDimension();
+        List<ShardWorker> workers = new ArrayList<ShardWorker>();
+        for( int shard = 0; shard < numShards; shard++ )
+        {
+            int from = data.size() * shard / numShards;
+            int to = data.size() * ( shard + 1 ) / numShards;
+            double[] values = Arrays.copyOfRange( data.getValues(), from * dimension, to * dimension );
+            LocalShardWorker worker = new LocalShardWorker( new DenseDataset( to - from, dimension, values ) );
+            worker.setBufferSize( 100 );
+            workers.add( worker );
+        }
+        return workers;
+    }
+
+    public void testConverged() throws IOException
+    {
+        DenseDataset data = SyntheticData.getDense( 6000, 3, 8 );
+        PartitionedKmeansClusterer clusterer = new PartitionedKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 8, 100, getWorkers( data, 3 ) );
+        assertEquals( StopReason.CONVERGED, result.getStopReason() );
+        assertNull( result.getLabels() );
+
+        //the centroids are the means of the rows closest to them
+        DenseDataset centroids = result.getCentroids();
+        DenseDataset means = new DenseDataset( centroids.size(), 3, centroids.getValues().clone() );
+        new MeanCentroidAnalyzer().recompute( new LocalShardWorker( data ).assign( centroids, new MinkowskiDistance( 2.0d ) ), means );
+        for( int i = 0; i < means.getValues().length; i++ )
+        {
+            assertEquals( centroids.getValues()[i], means.getValues()[i], 1e-9 );
+        }
+    }
+
+    public void testConvergedWithZeroRows() throws IOException
+    {
+        //the cosine distance of a centroid of 0s to itself is 1, 
+        //so its shift is never 0
+        DenseDataset data = SyntheticData.getDense( 5000, 5, 4 );
+        double[] values = data.getValues();
+        for( int row = 0; row < 5000; row += 5 )
+        {
+            Arrays.fill( values, row * 5, row * 5 + 5, 0.0d );
+        }
+        PartitionedKmeansClusterer clusterer = new PartitionedKmeansClusterer();
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 5, 200, getWorkers( data, 2 ) );
+        assertEquals( StopReason.CONVERGED, result.getStopReason() );
+        assertTrue( result.getNumOfIterations() < 200 );
+    }
+
+    public void testParallelIsDeterministic() throws IOException
+    {
+        DenseDataset data = SyntheticData.getDense( 6000, 3, 8 );
+        KmeansResult<DenseDataset> expected = null;
+        for( int parallelism = 1; parallelism <= 4; parallelism++ )
+        {
+            PartitionedKmeansClusterer clusterer = new PartitionedKmeansClusterer();
+            clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+            clusterer.setParallelism( parallelism );
+            KmeansResult<DenseDataset> result = clusterer.getClusters( 8, 100, getWorkers( data, 4 ) );
+            if( null == expected )
+            {
+                expected = result;
+                continue;
+            }
+            assertTrue( Arrays.equals( expected.getCentroids().getValues(), result.getCentroids().getValues() ) );
+            assertTrue( Arrays.equals( expected.getInertias(), result.getInertias() ) );
+        }
+    }
+
+    public void testCsvShards() throws IOException
+    {
+        Random random = new Random( 37L );
+        CsvLoader loader = new CsvLoader();
+        List<ShardWorker> workers = new ArrayList<ShardWorker>();
+        for( int shard = 0; shard < 2; shard++ )
+        {
+            File file = File.createTempFile( "j4c", ".data" );
+            file.deleteOnExit();
+            BufferedWriter writer = new BufferedWriter( new FileWriter( file ) );
+            for( int i = 0; i < 500; i++ )
+            {
+                double c = ( i % 2 == 0 ) ? 0.0d : 10.0d;
+                writer.write( ( c + random.nextDouble() ) + "," + ( c + random.nextDouble() ) + "\n" );
+            }
+            writer.close();
+            workers.add( new LocalShardWorker( loader.open( file ) ) );
+        }
+
+        PartitionedKmeansClusterer clusterer = new PartitionedKmeansClusterer();
+        clusterer.setDistanceMeasure( new MinkowskiDistance( 2.0d ) );
+        clusterer.setParallelism( 2 );
+        KmeansResult<DenseDataset> result = clusterer.getClusters( 2, 100, workers );
+        for( ShardWorker worker : workers )
+        {
+            ( (LocalShardWorker)worker ).close();
+        }
+
+        DenseDataset centroids = result.getCentroids();
+        int low = ( centroids.getValue( 0, 0 ) < centroids.getValue( 1, 0 ) ) ? 0 : 1;
+        assertEquals( 0.5d, centroids.getValue( low, 0 ), 0.1d );
+        assertEquals( 10.5d, centroids.getValue( 1 - low, 1 ), 0.1d );
+    }
+}
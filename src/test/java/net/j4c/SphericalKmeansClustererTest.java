@@ -0,0 +1,139 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.centroid.SphericalCentroidAnalyzer;
+import net.j4c.data.DenseDataset;
+import net.j4c.data.SparseDataset;
+import net.j4c.distance.CosineDistance;
+
+/**
+ * Unit test for {@link SphericalKmeansClusterer}.
+ */
+public class SphericalKmeansClustererTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public SphericalKmeansClustererTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( SphericalKmeansClustererTest.class );
+    }
+
+    /**
+     * Generates documents over 3 topics of 10 words each, with
+     * 5 words of their topic and 1 word of any topic.
+     */
+    static List<ClusterItem> getDocuments( int n )
+    {
+        Random random = new Random( 37L );
+        List<ClusterItem> items = new ArrayList<ClusterItem>();
+        for( int i = 0; i < n; i++ )
+        {
+            int topic = i % 3;
+            ClusterItem item = new ClusterItem( "" + i );
+            for( int j = 0; j < 5; j++ )
+            {
+                item.add( new IndexValue( 10 * topic + random.nextInt( 10 ), 1.0d + random.nextInt( 3 ) ) );
+            }
+            item.add( new IndexValue( random.nextInt( 30 ), 1.0d ) );
+            items.add( item );
+        }
+        return items;
+    }
+
+    public void testNormalize()
+    {
+        DenseDataset data = new DenseDataset( 2, 2, new double[] { 3.0d, 4.0d, 0.0d, 0.0d } );
+        DenseDataset normalized = DenseDataset.normalize( data );
+        assertEquals( 0.6d, normalized.getValue( 0, 0 ), 1e-12 );
+        assertEquals( 0.8d, normalized.getValue( 0, 1 ), 1e-12 );
+        assertEquals( 0.0d, normalized.getValue( 1, 0 ) );
+
+        SparseDataset sparse = new SparseDataset( 2, 2, new int[] { 0, 2, 2 }, new int[] { 0, 1 }, new double[] { 3.0d, 4.0d } ).normalize();
+        assertEquals( 1.0d, sparse.getSquaredNorm( 0 ), 1e-12 );
+        assertEquals( 0.0d, sparse.getSquaredNorm( 1 ) );
+    }
+
+    public void testSameAsCosine()
+    {
+        DenseDataset data = DenseDataset.fromClusterItems( getDocuments( 600 ) );
+        KmeansClusterer cosine = new KmeansClusterer();
+        cosine.setDistanceMeasure( new CosineDistance() );
+        cosine.setCentroidAnalyzer( new SphericalCentroidAnalyzer() );
+        KmeansResult<DenseDataset> expected = cosine.getClusters( 3, 100, DenseDataset.normalize( data ) );
+
+        SphericalKmeansClusterer spherical = new SphericalKmeansClusterer();
+        KmeansResult<DenseDataset> result = spherical.getClusters( 3, 100, data );
+
+        assertTrue( Arrays.equals( expected.getLabels(), result.getLabels() ) );
+        for( int row = 0; row < data.size(); row++ )
+        {
+            assertEquals( expected.getDistances()[row], result.getDistances()[row], 1e-12 );
+        }
+
+        //the centroids are unit length
+        double[] values = result.getCentroids().getValues();
+        for( int c = 0; c < 3; c++ )
+        {
+            double squaredNorm = 0.0d;
+            for( int i = 0; i < data.getDimension(); i++ )
+            {
+                squaredNorm += values[c * data.getDimension() + i] * values[c * data.getDimension() + i];
+            }
+            assertEquals( 1.0d, squaredNorm, 1e-12 );
+        }
+    }
+
+    public void testSparse()
+    {
+        List<ClusterItem> items = getDocuments( 600 );
+        SphericalKmeansClusterer clusterer = new SphericalKmeansClusterer();
+        KmeansResult<DenseDataset> dense = clusterer.getClusters( 3, 100, DenseDataset.fromClusterItems( items ) );
+        clusterer.setSeedInitializer( null );
+        KmeansResult<SparseDataset> sparse = clusterer.getClusters( 3, 100, SparseDataset.fromClusterItems( items ) );
+
+        assertTrue( Arrays.equals( dense.getLabels(), sparse.getLabels() ) );
+        assertEquals( dense.getNumOfIterations(), sparse.getNumOfIterations() );
+        assertEquals( dense.getInertia(), sparse.getInertia(), 1e-9 * dense.getInertia() );
+
+        //each topic is a cluster
+        int[] labels = sparse.getLabels();
+        for( int row = 3; row < labels.length; row++ )
+        {
+            assertEquals( labels[row % 3], labels[row] );
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c;
+
+import java.util.Random;
+
+import net.j4c.data.DenseDataset;
+
+/**
+ * Synthetic data shared by the unit tests.
+ */
+final class SyntheticData
+{
+    private SyntheticData()
+    {
+    }
+
+    /**
+     * Generates rows around a number of random centers.
+     */
+    static DenseDataset getDense( int n, int dimension, int numCenters )
+    {
+        Random random = new Random( 37L );
+        double[] centers = new double[numCenters * dimension];
+        for( int i = 0; i < centers.length; i++ )
+        {
+            centers[i] = random.nextDouble() * 20.0d;
+        }
+
+        DenseDataset data = new DenseDataset( n, dimension );
+        double[] values = data.getValues();
+        for( int i = 0; i < values.length; i++ )
+        {
+            int center = ( i / dimension ) % numCenters;
+            values[i] = centers[center * dimension + i % dimension] + random.nextGaussian();
+        }
+        return data;
+    }
+}
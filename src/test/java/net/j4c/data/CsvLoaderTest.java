@@ -0,0 +1,179 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import net.j4c.ClusterItem;
+import net.j4c.ClusterItemClass;
+
+/**
+ * Unit test for {@link CsvLoader}.
+ */
+public class CsvLoaderTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public CsvLoaderTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( CsvLoaderTest.class );
+    }
+
+    private static File write( String content ) throws IOException
+    {
+        File file = File.createTempFile( "j4c", ".data" );
+        file.deleteOnExit();
+        BufferedWriter writer = new BufferedWriter( new FileWriter( file ) );
+        writer.write( content );
+        writer.close();
+        return file;
+    }
+
+    public void testLoadClusterItems() throws IOException
+    {
+        File file = write( "a, 1.5,2,x\r\n\r\nb,-3e2, .25 ,y\r\nc,4,5,x" );
+        CsvLoader loader = new CsvLoader();
+        loader.setIdColumn( 0 );
+        loader.setClassColumn( CsvLoader.LAST );
+        List<ClusterItem> items = loader.loadClusterItems( file );
+
+        assertEquals( 3, items.size() );
+        ClusterItemClass item = (ClusterItemClass) items.get( 1 );
+        assertEquals( "b", item.getId() );
+        assertEquals( "y", item.getClazz() );
+        assertEquals( -300.0d, item.getValue( 0 ), 0.0d );
+        assertEquals( 0.25d, item.getValue( 1 ), 0.0d );
+        assertEquals( 2, item.size() );
+        assertSame( ( (ClusterItemClass) items.get( 0 ) ).getClazz(), ( (ClusterItemClass) items.get( 2 ) ).getClazz() );
+    }
+
+    public void testDelimiter() throws IOException
+    {
+        File file = write( "1 2 3\n4 5 6\n" );
+        CsvLoader loader = new CsvLoader();
+        loader.setDelimiter( ' ' );
+        DenseDataset data = loader.load( file );
+
+        assertEquals( 2, data.size() );
+        assertEquals( 3, data.getDimension() );
+        assertEquals( 6.0d, data.getValue( 1, 2 ), 0.0d );
+        assertEquals( "1", loader.loadClusterItems( file ).get( 1 ).getId() );
+    }
+
+    public void testInconsistentColumns() throws IOException
+    {
+        File file = write( "1,2\n3\n" );
+        try
+        {
+            ( new CsvLoader() ).load( file );
+            fail();
+        }
+        catch( IOException ex )
+        {
+            //expected
+        }
+    }
+
+    public void testParallel() throws IOException
+    {
+        //same layout as GenerateData, large enough to be split
+        Random random = new Random( 37L );
+        StringBuilder sb = new StringBuilder();
+        int n = 100000;
+        double[] expected = new double[2 * n];
+        for( int i = 0; i < n; i++ )
+        {
+            expected[2 * i] = random.nextDouble() * 10.0d;
+            expected[2 * i + 1] = random.nextDouble();
+            sb.append( i ).append( ',' ).append( expected[2 * i] ).append( ',' ).append( expected[2 * i + 1] ).append( '\n' );
+        }
+        File file = write( sb.toString() );
+
+        CsvLoader loader = new CsvLoader();
+        loader.setIdColumn( 0 );
+        for( int parallelism = 1; parallelism <= 4; parallelism++ )
+        {
+            loader.setParallelism( parallelism );
+            DenseDataset data = loader.load( file );
+            assertEquals( n, data.size() );
+            assertEquals( 2, data.getDimension() );
+            for( int i = 0; i < expected.length; i++ )
+            {
+                assertEquals( expected[i], data.getValues()[i], 0.0d );
+            }
+        }
+    }
+
+    public void testOpen() throws IOException
+    {
+        //larger than the buffer, read in batches that do not divide the rows
+        Random random = new Random( 37L );
+        StringBuilder sb = new StringBuilder();
+        int n = 100000;
+        for( int i = 0; i < n; i++ )
+        {
+            sb.append( random.nextGaussian() ).append( ',' ).append( random.nextDouble() ).append( "\r\n" );
+        }
+        File file = write( sb.toString() );
+
+        CsvLoader loader = new CsvLoader();
+        DenseDataset expected = loader.load( file );
+        PointSource source = loader.open( file );
+        try
+        {
+            assertEquals( 2, source.getDimension() );
+            double[] values = new double[2 * n];
+            int numRows = 0;
+            int read;
+            while( ( read = source.read( values, 2 * numRows, Math.min( 777, n - numRows ) ) ) > 0 )
+            {
+                numRows += read;
+            }
+            assertEquals( n, numRows );
+            assertTrue( Arrays.equals( expected.getValues(), values ) );
+            assertEquals( 0, source.read( values, 0, 1 ) );
+
+            source.reset();
+            assertEquals( 1, source.read( values, 0, 1 ) );
+            assertEquals( expected.getValue( 0, 1 ), values[1], 0.0d );
+        }
+        finally
+        {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for {@link DoubleParser}.
+ */
+public class DoubleParserTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public DoubleParserTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( DoubleParserTest.class );
+    }
+
+    private static void assertParsed( String s )
+    {
+        byte[] bytes = ( "," + s + "," ).getBytes();
+        double expected = Double.parseDouble( s );
+        double actual = DoubleParser.parseDouble( bytes, 1, bytes.length - 1 );
+        assertEquals( s, Double.doubleToRawLongBits( expected ), Double.doubleToRawLongBits( actual ) );
+    }
+
+    public void testEdgeCases()
+    {
+        String[] values = { "0", "-0.0", "+1", "1.", ".5", " 42 ", "1e308", "1.7976931348623157e308",
+            "1.7976931348623159e308", "1e309", "4.9e-324", "1e-320", "2.2250738585072014E-308",
+            "9007199254740993", "9007199254740992", "123456789012345678", "1234567890123456789",
+            "12345678901234567890123", "0.000000000000000000000000000001234", "3.0e-5", "1E22", "1e23",
+            "NaN", "-Infinity", "2.5d", "0x1p3" };
+        for( String value : values )
+        {
+            assertParsed( value );
+        }
+    }
+
+    public void testRandomDoubles()
+    {
+        Random random = new Random( 37L );
+        for( int i = 0; i < 200000; i++ )
+        {
+            assertParsed( Double.toString( random.nextDouble() ) );
+            assertParsed( Double.toString( 10.0d + random.nextDouble() ) );
+            assertParsed( Double.toString( random.nextGaussian() * Math.pow( 10.0d, random.nextInt( 40 ) - 20 ) ) );
+            assertParsed( Double.toString( Double.longBitsToDouble( random.nextLong() ) ) );
+        }
+    }
+
+    public void testRandomDigits()
+    {
+        Random random = new Random( 37L );
+        StringBuilder sb = new StringBuilder();
+        for( int i = 0; i < 200000; i++ )
+        {
+            sb.setLength( 0 );
+            int numDigits = 1 + random.nextInt( 19 );
+            for( int j = 0; j < numDigits; j++ )
+            {
+                sb.append( (char) ( '0' + random.nextInt( 10 ) ) );
+            }
+            sb.insert( random.nextInt( numDigits + 1 ), '.' );
+            sb.append( 'e' ).append( random.nextInt( 700 ) - 350 );
+            assertParsed( sb.toString() );
+        }
+    }
+
+    public void testInvalid()
+    {
+        String[] values = { "", "-", "abc", "1e", "1.2.3" };
+        for( String value : values )
+        {
+            byte[] bytes = value.getBytes();
+            try
+            {
+                DoubleParser.parseDouble( bytes, 0, bytes.length );
+                fail( value );
+            }
+            catch( NumberFormatException ex )
+            {
+                //expected
+            }
+        }
+    }
+}
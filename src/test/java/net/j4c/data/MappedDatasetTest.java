@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.data;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for {@link MappedDataset}.
+ */
+public class MappedDatasetTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public MappedDatasetTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( MappedDatasetTest.class );
+    }
+
+    static DenseDataset getRandomDataset( int size, int dimension )
+    {
+        Random random = new Random( 37L );
+        DenseDataset data = new DenseDataset( size, dimension );
+        double[] values = data.getValues();
+        for( int i = 0; i < values.length; i++ )
+        {
+            values[i] = random.nextGaussian();
+        }
+        return data;
+    }
+
+    public void testRoundTrip() throws IOException
+    {
+        DenseDataset data = getRandomDataset( 1001, 3 );
+        File file = File.createTempFile( "j4c", ".bin" );
+        file.deleteOnExit();
+        BinaryDatasetWriter.write( data, file, DataType.FLOAT64 );
+
+        //small segments so that rows are spread over many mappings
+        MappedDataset mapped = new MappedDataset( file, 10 * 3 * 8 + 5 );
+        try
+        {
+            assertEquals( 1001, mapped.size() );
+            assertEquals( 3, mapped.getDimension() );
+            double[] expected = new double[3];
+            double[] actual = new double[3];
+            for( int row = 0; row < data.size(); row++ )
+            {
+                data.getRow( row, expected );
+                mapped.getRow( row, actual );
+                for( int i = 0; i < 3; i++ )
+                {
+                    assertEquals( expected[i], actual[i], 0.0d );
+                }
+            }
+        }
+        finally
+        {
+            mapped.close();
+        }
+    }
+
+    public void testFloat32() throws IOException
+    {
+        DenseDataset data = getRandomDataset( 10, 4 );
+        File file = File.createTempFile( "j4c", ".bin" );
+        file.deleteOnExit();
+        BinaryDatasetWriter.write( data, file, DataType.FLOAT32 );
+
+        MappedDataset mapped = new MappedDataset( file );
+        try
+        {
+            assertEquals( DataType.FLOAT32, mapped.getDataType() );
+            assertEquals( BinaryDatasetWriter.HEADER_SIZE + 10 * 4 * 4, file.length() );
+            DenseDataset loaded = mapped.toDenseDataset();
+            for( int i = 0; i < data.getValues().length; i++ )
+            {
+                assertEquals( (float) data.getValues()[i], loaded.getValues()[i], 0.0d );
+            }
+        }
+        finally
+        {
+            mapped.close();
+        }
+    }
+
+    public void testConvert() throws IOException
+    {
+        File csvFile = File.createTempFile( "j4c", ".data" );
+        csvFile.deleteOnExit();
+        FileWriter writer = new FileWriter( csvFile );
+        writer.write( "0,0.5,0.25\n1,10.125,10.75\n" );
+        writer.close();
+
+        File binaryFile = File.createTempFile( "j4c", ".bin" );
+        binaryFile.deleteOnExit();
+        assertEquals( 2L, ( new BinaryDatasetConverter() ).convert( csvFile, binaryFile ) );
+
+        MappedDataset mapped = new MappedDataset( binaryFile );
+        try
+        {
+            assertEquals( 2, mapped.size() );
+            assertEquals( 2, mapped.getDimension() );
+            DenseDataset loaded = mapped.toDenseDataset();
+            assertEquals( 0.25d, loaded.getValue( 0, 1 ), 0.0d );
+            assertEquals( 10.125d, loaded.getValue( 1, 0 ), 0.0d );
+        }
+        finally
+        {
+            mapped.close();
+        }
+    }
+
+    public void testConvertWithDelimiter() throws IOException
+    {
+        //more rows than one buffer, with blank lines and \r\n line ends
+        File csvFile = File.createTempFile( "j4c", ".data" );
+        csvFile.deleteOnExit();
+        FileWriter writer = new FileWriter( csvFile );
+        int numRows = 100000;
+        for( int i = 0; i < numRows; i++ )
+        {
+            writer.write( i + ";" + ( 0.5d * i ) + ";" + ( -0.25d * i ) + "\r\n" );
+            if( 0 == i % 1000 )
+                writer.write( "\r\n" );
+        }
+        writer.close();
+
+        File binaryFile = File.createTempFile( "j4c", ".bin" );
+        binaryFile.deleteOnExit();
+        BinaryDatasetConverter converter = new BinaryDatasetConverter();
+        converter.getCsvLoader().setDelimiter( ';' );
+        assertEquals( (long)numRows, converter.convert( csvFile, binaryFile ) );
+
+        MappedDataset mapped = new MappedDataset( binaryFile );
+        try
+        {
+            assertEquals( numRows, mapped.size() );
+            assertEquals( 2, mapped.getDimension() );
+            DenseDataset loaded = mapped.toDenseDataset();
+            for( int i = 0; i < numRows; i++ )
+            {
+                assertEquals( 0.5d * i, loaded.getValue( i, 0 ), 0.0d );
+                assertEquals( -0.25d * i, loaded.getValue( i, 1 ), 0.0d );
+            }
+        }
+        finally
+        {
+            mapped.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2014 Jee Vang
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package net.j4c.distance;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for {@link DistanceKernels}.
+ */
+public class DistanceKernelsTest 
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public DistanceKernelsTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( DistanceKernelsTest.class );
+    }
+
+    public void testKernels()
+    {
+        //compares the kernels in use (vectorized or not) against the 
+        //scalar ones, for lengths around the vector sizes and with offsets
+        DistanceKernels scalar = new DistanceKernels();
+        DistanceKernels kernels = DistanceKernels.getInstance();
+        Random random = new Random( 37L );
+        for( int length = 0; length <= 67; length++ )
+        {
+            double[] values1 = new double[length + 3];
+            double[] values2 = new double[length + 5];
+            for( int i = 0; i < values1.length; i++ )
+                values1[i] = random.nextDouble() * 10.0d - 5.0d;
+            for( int i = 0; i < values2.length; i++ )
+                values2[i] = random.nextDouble() * 10.0d - 5.0d;
+
+            double tolerance = 1e-12d * ( length + 1 );
+            assertEquals( scalar.getSquaredEuclidean( values1, 3, values2, 5, length ), 
+                    kernels.getSquaredEuclidean( values1, 3, values2, 5, length ), 100.0d * tolerance );
+            assertEquals( scalar.getManhattan( values1, 3, values2, 5, length ), 
+                    kernels.getManhattan( values1, 3, values2, 5, length ), 10.0d * tolerance );
+            assertEquals( scalar.getDotProduct( values1, 3, values2, 5, length ), 
+                    kernels.getDotProduct( values1, 3, values2, 5, length ), 100.0d * tolerance );
+            assertEquals( scalar.getCosine( values1, 3, values2, 5, length ), 
+                    kernels.getCosine( values1, 3, values2, 5, length ), tolerance );
+        }
+
+        //the distance to a vector of all 0s is 1
+        assertEquals( 1.0d, kernels.getCosine( new double[64], 0, new double[64], 0, 64 ), 0.0d );
+    }
+
+    public void testMeasures()
+    {
+        double[] values1 = { 1.0d, 2.0d, 3.0d, 4.0d, 5.0d, 6.0d, 7.0d, 8.0d, 9.0d };
+        double[] values2 = { 9.0d, 8.0d, 7.0d, 6.0d, 5.0d, 4.0d, 3.0d, 2.0d, 1.0d };
+
+        assertEquals( Math.sqrt( 240.0d ), new MinkowskiDistance().getDistance( values1, 0, values2, 0, 9 ), 1e-12d );
+        MinkowskiDistance manhattan = new MinkowskiDistance( 1.0d );
+        assertEquals( 40.0d, manhattan.getDistance( values1, 0, values2, 0, 9 ), 1e-12d );
+        assertEquals( 1.0d - 165.0d / 285.0d, new CosineDistance().getDistance( values1, 0, values2, 0, 9 ), 1e-12d );
+    }
+
+    public void testDotProducts()
+    {
+        //block sizes that leave remainders of rows and of centroids
+        DistanceKernels kernels = DistanceKernels.getInstance();
+        Random random = new Random( 37L );
+        int numRows = 7;
+        int numCentroids = 11;
+        for( int dimension = 1; dimension <= 600; dimension *= 5 )
+        {
+            double[] rows = new double[numRows * dimension];
+            double[] centroids = new double[numCentroids * dimension];
+            for( int i = 0; i < rows.length; i++ )
+                rows[i] = random.nextDouble();
+            for( int i = 0; i < centroids.length; i++ )
+                centroids[i] = random.nextDouble();
+
+            double[] products = new double[numRows * numCentroids];
+            kernels.getDotProducts( rows, numRows, centroids, numCentroids, dimension, products );
+            for( int row = 0; row < numRows; row++ )
+            {
+                for( int index = 0; index < numCentroids; index++ )
+                {
+                    double expected = kernels.getDotProduct( rows, row * dimension, centroids, index * dimension, dimension );
+                    assertEquals( expected, products[row * numCentroids + index], 1e-12d * dimension );
+                }
+            }
+        }
+    }
+}